@@ -0,0 +1,163 @@
+/*
+ * Footprint and speed of the three adjacency forms: the List<Edge> map of
+ * Graph.getAdjacencies(), the CSR arrays of CompressedGraph and the
+ * gap/varint coded EncodedGraph.
+ *
+ * The scan benchmarks walk every edge once, which is what bounds a search
+ * on a graph that does not fit in cache; the query benchmarks run full
+ * single-source searches on ConcurrentDijkstraAlgorithm and
+ * EncodedDijkstraAlgorithm. The bytes taken by the CSR arrays and by the
+ * encoded graph are printed once per fork, e.g.
+ *
+ *   # GRID 100000: CSR 6.8 MB, encoded 2.5 MB (6 weight bits)
+ */
+
+package dijkstra.benchmark;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dijkstra.benchmark.Topologies.Topology;
+import dijkstra.engine.ConcurrentDijkstraAlgorithm;
+import dijkstra.engine.EncodedDijkstraAlgorithm;
+import dijkstra.engine.ShortestPathTree;
+import dijkstra.model.CompressedGraph;
+import dijkstra.model.Edge;
+import dijkstra.model.EncodedGraph;
+import dijkstra.model.Graph;
+import dijkstra.model.Vertex;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AdjacencyBenchmark {
+
+	private static final int QUERY_COUNT = 64;
+
+	@Param({ "GRID", "MAZE" })
+	public Topology topology;
+
+	@Param({ "10000", "100000", "1000000" })
+	public int size;
+
+	private List<Vertex> vertexes;
+	private Map<Vertex, List<Edge>> adjacencies;
+
+	private CompressedGraph compressed_graph;
+	private EncodedGraph encoded_graph;
+	private EncodedGraph.Cursor cursor;
+
+	private ConcurrentDijkstraAlgorithm dijkstra;
+	private EncodedDijkstraAlgorithm encoded_dijkstra;
+
+	private int[] sources;
+	private int query;
+
+	@Setup
+	public void setUp() {
+		Graph graph = Topologies.generate(topology, size).toGraph();
+
+		vertexes = graph.getVertexes();
+		adjacencies = graph.getAdjacencies();
+
+		compressed_graph = graph.getCompressedGraph();
+		encoded_graph = EncodedGraph.encode(compressed_graph);
+		cursor = encoded_graph.cursor();
+
+		dijkstra = new ConcurrentDijkstraAlgorithm(graph);
+		encoded_dijkstra = new EncodedDijkstraAlgorithm(graph, encoded_graph);
+
+		long csr_size = 4L * (compressed_graph.getVertexCount() + 1
+				+ 2L * compressed_graph.getEdgeCount());
+
+		System.out.printf("%n# %s %d: CSR %.1f MB, encoded %.1f MB"
+				+ " (%d weight bits)%n", topology, size, csr_size / 1e6,
+				encoded_graph.getByteSize() / 1e6,
+				encoded_graph.getWeightBits());
+
+		Random rand = new Random(7);
+
+		sources = new int[QUERY_COUNT];
+
+		for (int n = 0; n < QUERY_COUNT; n++)
+			sources[n] = rand.nextInt(vertexes.size());
+	}
+
+	private int nextQuery() {
+		query = (query + 1) % QUERY_COUNT;
+		return query;
+	}
+
+	@Benchmark
+	public long scanEdgeLists() {
+		long sum = 0;
+
+		for (Vertex vertex : vertexes) {
+			List<Edge> edges = adjacencies.get(vertex);
+
+			if (null == edges)
+				continue;
+
+			for (Edge edge : edges)
+				sum += edge.getDestination().getOrdinal() + edge.getWeight();
+		}
+
+		return sum;
+	}
+
+	@Benchmark
+	public long scanCompressed() {
+		final int[] offsets = compressed_graph.getOffsets();
+		final int[] targets = compressed_graph.getTargets();
+		final int[] weights = compressed_graph.getWeights();
+
+		long sum = 0;
+
+		for (int v = 0; v < compressed_graph.getVertexCount(); v++)
+			for (int e = offsets[v]; e < offsets[v + 1]; e++)
+				sum += targets[e] + weights[e];
+
+		return sum;
+	}
+
+	@Benchmark
+	public long scanEncoded() {
+		long sum = 0;
+
+		for (int v = 0; v < encoded_graph.getVertexCount(); v++) {
+			cursor.reset(v);
+
+			while (cursor.next())
+				sum += cursor.target() + cursor.weight();
+		}
+
+		return sum;
+	}
+
+	@Benchmark
+	public ShortestPathTree compressedExecute() {
+		return dijkstra.execute(sources[nextQuery()]);
+	}
+
+	@Benchmark
+	public ShortestPathTree encodedExecute() {
+		return encoded_dijkstra.execute(sources[nextQuery()]);
+	}
+}
@@ -0,0 +1,97 @@
+/*
+ * Steady-state allocation of DijkstraAlgorithm queries. Run through
+ * BenchmarkRunner, which adds the GC profiler, e.g.
+ *
+ *   java -jar target/benchmarks.jar AllocationBenchmark
+ *
+ * gc.alloc.rate.norm should stay at about 0 B/op for the INDEXED_HEAP and
+ * BUCKET_QUEUE queue types: the search state is reused between queries and
+ * only the nodes reached by the previous query are reset. PRIORITY_QUEUE
+ * allocates an entry per push and is kept for comparison.
+ */
+
+package dijkstra.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dijkstra.benchmark.Topologies.Topology;
+import dijkstra.engine.DijkstraAlgorithm;
+import dijkstra.engine.DijkstraAlgorithm.QueueType;
+import dijkstra.model.Graph;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AllocationBenchmark {
+
+	private static final int QUERY_COUNT = 1024;
+
+	@Param({ "GRID", "MAZE" })
+	public Topology topology;
+
+	@Param({ "10000" })
+	public int size;
+
+	@Param({ "INDEXED_HEAP", "BUCKET_QUEUE", "PRIORITY_QUEUE" })
+	public QueueType queue_type;
+
+	private DijkstraAlgorithm dijkstra;
+
+	private int[] sources;
+	private int[] targets;
+	private int query;
+
+	@Setup
+	public void setUp() {
+		Graph graph = Topologies.generate(topology, size).toGraph();
+
+		dijkstra = new DijkstraAlgorithm(graph);
+		dijkstra.setQueueType(queue_type);
+
+		int node_count = graph.getVertexes().size();
+
+		Random rand = new Random(7);
+
+		sources = new int[QUERY_COUNT];
+		targets = new int[QUERY_COUNT];
+
+		for (int n = 0; n < QUERY_COUNT; n++) {
+			sources[n] = rand.nextInt(node_count);
+			targets[n] = rand.nextInt(node_count);
+		}
+	}
+
+	private int nextQuery() {
+		query = (query + 1) % QUERY_COUNT;
+		return query;
+	}
+
+	@Benchmark
+	public int execute() {
+		dijkstra.execute(sources[nextQuery()]);
+		return dijkstra.getSettledCount();
+	}
+
+	@Benchmark
+	public int executeToTarget() {
+		int n = nextQuery();
+		dijkstra.execute(sources[n], targets[n]);
+		return dijkstra.getSettledCount();
+	}
+}
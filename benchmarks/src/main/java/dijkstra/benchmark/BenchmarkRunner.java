@@ -0,0 +1,30 @@
+/*
+ * Entry point of benchmarks.jar. Runs the benchmarks matching the optional
+ * regular expression with the GC profiler enabled, so allocation rates
+ * (gc.alloc.rate.norm, bytes per operation) are reported next to
+ * throughput and the SampleTime latency percentiles. Any other JMH option
+ * can be passed after the pattern, e.g. "-p size=1000".
+ */
+
+package dijkstra.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+public class BenchmarkRunner {
+
+	public static void main(final String[] args) throws RunnerException,
+			CommandLineOptionException {
+		Options options = new OptionsBuilder()
+				.parent(new CommandLineOptions(args))
+				.addProfiler(GCProfiler.class)
+				.build();
+
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * Single-source queries on the sequential and the parallel engine, plus the
+ * path walk that follows them in GridTest and WumpusTest. Sources and
+ * targets cycle through a fixed random sequence.
+ *
+ * ParallelDijkstraAlgorithm parks its four leaf tasks on barriers, so its
+ * benchmark needs a pool of at least four threads; on smaller machines add
+ * "-jvmArgsAppend -XX:ActiveProcessorCount=4".
+ */
+
+package dijkstra.benchmark;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dijkstra.benchmark.Topologies.Topology;
+import dijkstra.engine.DijkstraAlgorithm;
+import dijkstra.engine.ParallelDijkstraAlgorithm;
+import dijkstra.model.Graph;
+import dijkstra.model.Vertex;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EngineBenchmark {
+
+	private static final int QUERY_COUNT = 1024;
+
+	@Param({ "GRID", "MAZE" })
+	public Topology topology;
+
+	@Param({ "1000", "10000", "100000" })
+	public int size;
+
+	private Graph graph;
+
+	private DijkstraAlgorithm dijkstra;
+	private ParallelDijkstraAlgorithm parallel_dijkstra;
+
+	private int[] sources;
+	private int[] targets;
+	private int query;
+
+	@Setup
+	public void setUp() {
+		graph = Topologies.generate(topology, size).toGraph();
+
+		dijkstra = new DijkstraAlgorithm(graph);
+		parallel_dijkstra = new ParallelDijkstraAlgorithm(graph);
+
+		int node_count = graph.getVertexes().size();
+
+		Random rand = new Random(7);
+
+		sources = new int[QUERY_COUNT];
+		targets = new int[QUERY_COUNT];
+
+		for (int n = 0; n < QUERY_COUNT; n++) {
+			sources[n] = rand.nextInt(node_count);
+			targets[n] = rand.nextInt(node_count);
+		}
+
+		/* getPath() walks the tree of the last query */
+
+		dijkstra.execute(sources[0]);
+	}
+
+	@TearDown
+	public void tearDown() {
+		parallel_dijkstra.terminate();
+	}
+
+	private int nextQuery() {
+		query = (query + 1) % QUERY_COUNT;
+		return query;
+	}
+
+	@Benchmark
+	public void dijkstraExecute() {
+		dijkstra.execute(sources[nextQuery()]);
+	}
+
+	@Benchmark
+	public void parallelDijkstraExecute() {
+		parallel_dijkstra.execute(sources[nextQuery()]);
+	}
+
+	@Benchmark
+	public List<Vertex> dijkstraGetPath() {
+		return dijkstra.getPath(targets[nextQuery()]);
+	}
+}
@@ -0,0 +1,93 @@
+/*
+ * Cost of deriving the engines' adjacency structures from the Vertex and
+ * Edge lists: the original HashMap form and the CSR form, and of building
+ * the CSR form directly from vertex ordinals with GraphBuilder.
+ */
+
+package dijkstra.benchmark;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dijkstra.benchmark.Topologies.GraphData;
+import dijkstra.benchmark.Topologies.Topology;
+import dijkstra.model.CompressedGraph;
+import dijkstra.model.Edge;
+import dijkstra.model.Graph;
+import dijkstra.model.GraphBuilder;
+import dijkstra.model.Vertex;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.AverageTime, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GraphConstructionBenchmark {
+
+	@Param({ "GRID", "MAZE" })
+	public Topology topology;
+
+	@Param({ "1000", "10000", "100000" })
+	public int size;
+
+	private GraphData data;
+
+	/* The edges as ordinals, for builder() */
+
+	private int[] sources;
+	private int[] destinations;
+	private int[] weights;
+
+	@Setup
+	public void setUp() {
+		data = Topologies.generate(topology, size);
+
+		Graph graph = data.toGraph();
+
+		sources = new int[data.edges.size()];
+		destinations = new int[data.edges.size()];
+		weights = new int[data.edges.size()];
+
+		for (int e = 0; e < data.edges.size(); e++) {
+			Edge edge = data.edges.get(e);
+
+			sources[e] = graph.indexOf(edge.getSource());
+			destinations[e] = graph.indexOf(edge.getDestination());
+			weights[e] = edge.getWeight();
+		}
+	}
+
+	@Benchmark
+	public Map<Vertex, List<Edge>> adjacencies() {
+		return data.toGraph().getAdjacencies();
+	}
+
+	@Benchmark
+	public CompressedGraph compressedGraph() {
+		return data.toGraph().getCompressedGraph();
+	}
+
+	@Benchmark
+	public CompressedGraph builder() {
+		GraphBuilder builder = new GraphBuilder(data.nodes);
+
+		for (int e = 0; e < sources.length; e++)
+			builder.addEdge(sources[e], destinations[e], weights[e]);
+
+		return builder.build().getCompressedGraph();
+	}
+}
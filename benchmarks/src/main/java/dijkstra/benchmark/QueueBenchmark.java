@@ -0,0 +1,73 @@
+/*
+ * DijkstraAlgorithm.execute with each of its queue types: the original
+ * PriorityQueue<UnsettledNode>, the indexed d-ary heap and Dial's bucket
+ * queue. Both topologies use small integer weights (100/141 on grids,
+ * 100-199 in mazes), the case the bucket queue is picked for by AUTO.
+ */
+
+package dijkstra.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dijkstra.benchmark.Topologies.Topology;
+import dijkstra.engine.DijkstraAlgorithm;
+import dijkstra.engine.DijkstraAlgorithm.QueueType;
+import dijkstra.model.Graph;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueueBenchmark {
+
+	private static final int QUERY_COUNT = 1024;
+
+	@Param({ "GRID", "MAZE" })
+	public Topology topology;
+
+	@Param({ "10000", "100000" })
+	public int size;
+
+	@Param({ "PRIORITY_QUEUE", "INDEXED_HEAP", "BUCKET_QUEUE" })
+	public QueueType queueType;
+
+	private DijkstraAlgorithm dijkstra;
+
+	private int[] sources;
+	private int query;
+
+	@Setup
+	public void setUp() {
+		Graph graph = Topologies.generate(topology, size).toGraph();
+
+		dijkstra = new DijkstraAlgorithm(graph);
+		dijkstra.setQueueType(queueType);
+
+		Random rand = new Random(7);
+
+		sources = new int[QUERY_COUNT];
+		for (int n = 0; n < QUERY_COUNT; n++)
+			sources[n] = rand.nextInt(graph.getVertexes().size());
+	}
+
+	@Benchmark
+	public void execute() {
+		query = (query + 1) % QUERY_COUNT;
+		dijkstra.execute(sources[query]);
+	}
+}
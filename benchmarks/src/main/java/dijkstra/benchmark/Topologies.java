@@ -0,0 +1,109 @@
+/*
+ * Graph generators shared by the benchmarks: 8-connected grids built like
+ * GridTest and random mazes built like WumpusTest. Generation is seeded so
+ * every fork measures the same graph.
+ */
+
+package dijkstra.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import dijkstra.model.Edge;
+import dijkstra.model.Graph;
+import dijkstra.model.Vertex;
+
+public final class Topologies {
+
+	public enum Topology { GRID, MAZE }
+
+	/* Lanes per node in a maze, as in WumpusTest (10000 for 1000 nodes) */
+
+	private static final int MAZE_LANES_PER_NODE = 10;
+
+	private static final long SEED = 42;
+
+	private Topologies() {
+	}
+
+	public static final class GraphData {
+
+		public final List<Vertex> nodes;
+		public final List<Edge> edges;
+
+		GraphData(final List<Vertex> nodes, final List<Edge> edges) {
+			this.nodes = nodes;
+			this.edges = edges;
+		}
+
+		public Graph toGraph() {
+			return new Graph(nodes, edges);
+		}
+	}
+
+	public static GraphData generate(final Topology topology, final int size) {
+		switch (topology) {
+		case GRID:
+			return grid((int) Math.ceil(Math.sqrt(size)));
+		default:
+			return maze(size);
+		}
+	}
+
+	public static GraphData grid(final int side) {
+		List<Vertex> nodes = new ArrayList<Vertex>(side * side);
+		List<Edge> edges = new ArrayList<Edge>(side * side * 8);
+
+		for (int j = 0; j < side; j++) {
+			for (int i = 0; i < side; i++) {
+				int n = j*side + i;
+
+				nodes.add(new Vertex("Node_" + n, i, j));
+
+				if(0 < i) Graph.addLane(edges, nodes, n, n-1, 100);
+				if(0 < j) Graph.addLane(edges, nodes, n, n-side, 100);
+				if((0 < j) && (0 < i)) Graph.addLane(edges, nodes, n, n-side-1, 141);
+				if ((0 < j) && ((side - 1) > i)) Graph.addLane(edges, nodes, n, n-side+1, 141);
+			}
+		}
+
+		return new GraphData(nodes, edges);
+	}
+
+	public static GraphData maze(final int node_count) {
+		Random rand = new Random(SEED);
+
+		List<Vertex> nodes = new ArrayList<Vertex>(node_count);
+		List<Edge> edges = 
+				new ArrayList<Edge>(node_count * MAZE_LANES_PER_NODE * 2);
+
+		for (int n = 0; n < node_count; n++)
+			nodes.add(new Vertex(String.format("%d", n)));
+
+		/* Connect every node to the next so there are no islands */
+
+		for (int n = 1; n < node_count; n++)
+			Graph.addLane(edges, nodes, n - 1, n, 100);
+
+		Set<Long> lanes = new HashSet<Long>();
+
+		long lane_count = (long) node_count * MAZE_LANES_PER_NODE;
+
+		while (lanes.size() < lane_count) {
+			int source_num = rand.nextInt(node_count);
+			int dest_num = rand.nextInt(node_count);
+
+			if (source_num == dest_num)
+				continue;
+
+			if (lanes.add(((long) source_num * node_count) + dest_num))
+				Graph.addLane(edges, nodes, source_num, dest_num,
+						100 + rand.nextInt(100));
+		}
+
+		return new GraphData(nodes, edges);
+	}
+}
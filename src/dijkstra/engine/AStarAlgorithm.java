@@ -0,0 +1,113 @@
+/*
+ * A* search for point-to-point queries.
+ *
+ * Shares the queue, distance, predecessor and removed-node state of
+ * DijkstraAlgorithm, but orders the queue by distance plus the Heuristic's
+ * estimate of the remaining cost and stops as soon as the target is
+ * settled. With a consistent heuristic the resulting path is a shortest one
+ * and far fewer nodes are settled than by execute(source); getPath() and
+ * getSettledCount() report on the last query as usual.
+ */
+
+package dijkstra.engine;
+
+import java.util.List;
+
+import dijkstra.model.Graph;
+import dijkstra.model.Vertex;
+
+public class AStarAlgorithm extends DijkstraAlgorithm {
+
+	private final Heuristic heuristic;
+
+	public AStarAlgorithm(final Graph graph, final Heuristic heuristic) {
+		super(graph);
+		this.heuristic = heuristic;
+		
+		/* Estimated keys are not confined to a window of one edge weight,
+		 * which rules out the bucket queue. */
+		
+		setQueueType(QueueType.INDEXED_HEAP);
+	}
+
+	public Heuristic getHeuristic() {
+		return heuristic;
+	}
+
+	@Override
+	public void execute(final int source, final int target) {
+		final boolean measured = metrics.isEnabled();
+		final long start = measured ? System.nanoTime() : 0;
+		
+		int relaxations = 0, pushes = 1, polls = 0, stale_polls = 0;
+		
+		resetSearch();
+
+		final Vertex target_vertex = nodes.get(target);
+
+		distances_from_source[source] = 0;
+		reached_nodes.add(source);
+		unsettled_nodes_queue.offer(source,
+				estimate(source, target, target_vertex));
+
+		while (false == unsettled_nodes_queue.isEmpty()) {
+			int node = unsettled_nodes_queue.poll();
+			polls += 1;
+
+			if (settled_nodes[node]) {
+				stale_polls += 1;
+				continue;
+			}
+
+			settled_nodes[node] = true;
+			settled_count += 1;
+
+			if (node == target)
+				break;
+
+			final int dist_to_node = distances_from_source[node];
+
+			relaxations += offsets[node + 1] - offsets[node];
+
+			for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+				int next = targets[e];
+
+				if (settled_nodes[next] || removed_nodes[next])
+					continue;
+
+				int dist = dist_to_node + weights[e];
+				if (distances_from_source[next] > dist) {
+					if (Integer.MAX_VALUE == distances_from_source[next])
+						reached_nodes.add(next);
+
+					distances_from_source[next] = dist;
+					predecessors[next] = node;
+					unsettled_nodes_queue.offer(next,
+							dist + estimate(next, target, target_vertex));
+					pushes += 1;
+				}
+			}
+		}
+
+		if (measured)
+			metrics.recordQuery(System.nanoTime() - start, settled_count,
+					relaxations, pushes, polls, stale_polls);
+	}
+
+	/* Overridden by engines whose estimates are not coordinate based */
+
+	int estimate(final int node, final int target, final Vertex target_vertex) {
+		return heuristic.estimate(nodes.get(node), target_vertex);
+	}
+
+	/*
+	 * Runs the A* query and returns the path from the target back to the
+	 * source, like execute(source, target) followed by getPath(target).
+	 */
+
+	@Override
+	public List<Vertex> shortestPath(final int source, final int target) {
+		execute(source, target);
+		return getPath(target);
+	}
+}
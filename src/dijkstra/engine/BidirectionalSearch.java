@@ -0,0 +1,248 @@
+/*
+ * Bidirectional Dijkstra for point-to-point queries.
+ *
+ * A forward search from the source over the outgoing edges and a backward
+ * search from the target over the incoming edges (Graph's reverse CSR) run
+ * in alternation, always advancing the side with the smaller queue. Every
+ * improvement of a node the other side has already reached yields a
+ * candidate path; the search stops as soon as the two queue minima together
+ * can no longer beat the best candidate, which usually happens once the
+ * frontiers meet half way, long before either side has settled the whole
+ * graph.
+ *
+ * Only the entries a query touched are reset afterwards, so the cost of a
+ * query is proportional to the part of the graph it explored.
+ */
+
+package dijkstra.engine;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import dijkstra.model.CompressedGraph;
+import dijkstra.model.Graph;
+import dijkstra.model.Vertex;
+import dijkstra.resources.IntList;
+
+class BidirectionalSearch {
+
+	private final List<Vertex> nodes;
+
+	private final int[] forward_offsets;
+	private final int[] forward_targets;
+	private final int[] forward_weights;
+
+	private final int[] backward_offsets;
+	private final int[] backward_sources;
+	private final int[] backward_weights;
+
+	private final int[] forward_distances;
+	private final int[] backward_distances;
+
+	/* Next node towards the source (forward) or the target (backward) */
+
+	private final int[] forward_predecessors;
+	private final int[] backward_successors;
+
+	private final boolean[] forward_settled;
+	private final boolean[] backward_settled;
+
+	private final IndexedDaryHeap forward_queue;
+	private final IndexedDaryHeap backward_queue;
+
+	private final IntList touched_nodes = new IntList();
+
+	private int settled_count;
+
+	public BidirectionalSearch(final Graph graph) {
+		nodes = graph.getVertexes();
+
+		CompressedGraph forward = graph.getCompressedGraph();
+		CompressedGraph backward = graph.getReverseCompressedGraph();
+
+		forward_offsets = forward.getOffsets();
+		forward_targets = forward.getTargets();
+		forward_weights = forward.getWeights();
+
+		backward_offsets = backward.getOffsets();
+		backward_sources = backward.getTargets();
+		backward_weights = backward.getWeights();
+
+		final int node_count = nodes.size();
+
+		forward_distances = new int[node_count];
+		backward_distances = new int[node_count];
+		forward_predecessors = new int[node_count];
+		backward_successors = new int[node_count];
+		forward_settled = new boolean[node_count];
+		backward_settled = new boolean[node_count];
+
+		Arrays.fill(forward_distances, Integer.MAX_VALUE);
+		Arrays.fill(backward_distances, Integer.MAX_VALUE);
+		Arrays.fill(forward_predecessors, -1);
+		Arrays.fill(backward_successors, -1);
+
+		forward_queue = new IndexedDaryHeap(node_count);
+		backward_queue = new IndexedDaryHeap(node_count);
+	}
+
+	/* Number of nodes settled by both sides during the last query */
+
+	public int getSettledCount() {
+		return settled_count;
+	}
+
+	/*
+	 * Returns the path from the target back to the source, in the same order
+	 * as the engines' getPath(), or NULL if no path exists (or source and
+	 * target are the same node). Edges into nodes flagged in removed_nodes
+	 * are ignored; removed_nodes may be null.
+	 */
+
+	public List<Vertex> shortestPath(final int source, final int target,
+			final boolean[] removed_nodes) {
+		reset();
+
+		if (source == target)
+			return null;
+
+		touch(source);
+		touch(target);
+
+		forward_distances[source] = 0;
+		backward_distances[target] = 0;
+
+		forward_queue.offer(source, 0);
+
+		if ((null == removed_nodes) || (false == removed_nodes[target]))
+			backward_queue.offer(target, 0);
+
+		int best_distance = Integer.MAX_VALUE;
+		int meeting_node = -1;
+
+		while ((false == forward_queue.isEmpty())
+				&& (false == backward_queue.isEmpty())) {
+
+			long lower_bound = (long) forward_queue.peekKey()
+					+ backward_queue.peekKey();
+
+			if (lower_bound >= best_distance)
+				break;
+
+			if (forward_queue.size() <= backward_queue.size()) {
+				int node = forward_queue.poll();
+				forward_settled[node] = true;
+				settled_count += 1;
+
+				final int dist_to_node = forward_distances[node];
+
+				for (int e = forward_offsets[node];
+						e < forward_offsets[node + 1]; e++) {
+					int next = forward_targets[e];
+
+					if (forward_settled[next] || ((null != removed_nodes)
+							&& removed_nodes[next]))
+						continue;
+
+					int dist = dist_to_node + forward_weights[e];
+
+					if (forward_distances[next] > dist) {
+						touch(next);
+						forward_distances[next] = dist;
+						forward_predecessors[next] = node;
+						forward_queue.offer(next, dist);
+
+						if ((Integer.MAX_VALUE != backward_distances[next])
+								&& (best_distance > dist + backward_distances[next])) {
+							best_distance = dist + backward_distances[next];
+							meeting_node = next;
+						}
+					}
+				}
+			} else {
+				int node = backward_queue.poll();
+				backward_settled[node] = true;
+				settled_count += 1;
+
+				final int dist_from_node = backward_distances[node];
+
+				for (int e = backward_offsets[node];
+						e < backward_offsets[node + 1]; e++) {
+					int previous = backward_sources[e];
+
+					if (backward_settled[previous])
+						continue;
+
+					int dist = dist_from_node + backward_weights[e];
+
+					if (backward_distances[previous] > dist) {
+						touch(previous);
+						backward_distances[previous] = dist;
+						backward_successors[previous] = node;
+
+						/* A removed node can still start a path, but the
+						 * backward search cannot pass through it. */
+
+						if ((null == removed_nodes)
+								|| (false == removed_nodes[previous]))
+							backward_queue.offer(previous, dist);
+
+						if ((Integer.MAX_VALUE != forward_distances[previous])
+								&& (best_distance > dist + forward_distances[previous])) {
+							best_distance = dist + forward_distances[previous];
+							meeting_node = previous;
+						}
+					}
+				}
+			}
+		}
+
+		if (-1 == meeting_node)
+			return null;
+
+		LinkedList<Vertex> path = new LinkedList<Vertex>();
+
+		int step = meeting_node;
+		path.add(nodes.get(step));
+		while (forward_predecessors[step] != -1) {
+			step = forward_predecessors[step];
+			path.add(nodes.get(step));
+		}
+
+		step = meeting_node;
+		while (backward_successors[step] != -1) {
+			step = backward_successors[step];
+			path.addFirst(nodes.get(step));
+		}
+
+		return path;
+	}
+
+	private void touch(final int node) {
+		if ((Integer.MAX_VALUE == forward_distances[node])
+				&& (Integer.MAX_VALUE == backward_distances[node]))
+			touched_nodes.add(node);
+	}
+
+	private void reset() {
+		int[] touched = touched_nodes.array();
+
+		for (int i = 0; i < touched_nodes.size(); i++) {
+			int node = touched[i];
+			forward_distances[node] = Integer.MAX_VALUE;
+			backward_distances[node] = Integer.MAX_VALUE;
+			forward_predecessors[node] = -1;
+			backward_successors[node] = -1;
+			forward_settled[node] = false;
+			backward_settled[node] = false;
+		}
+
+		touched_nodes.clear();
+
+		forward_queue.clear();
+		backward_queue.clear();
+
+		settled_count = 0;
+	}
+}
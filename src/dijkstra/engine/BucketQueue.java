@@ -0,0 +1,147 @@
+/*
+ * Dial's bucket queue: a monotone priority queue for integer keys that
+ * exploits small edge weights.
+ *
+ * While Dijkstra runs, every queued key lies in [d, d + max_weight], where d
+ * is the key last polled, so max_weight + 1 buckets used cyclically hold all
+ * of them. Each bucket is an intrusive doubly linked list threaded through
+ * per-node int arrays, which makes insert and decrease-key O(1); poll only
+ * advances a cursor over the buckets. No comparisons and no allocation.
+ *
+ * Keys must never drop below the last polled key nor exceed it by more than
+ * max_weight; offer() rejects keys outside that window.
+ */
+
+package dijkstra.engine;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+public final class BucketQueue implements NodeQueue {
+
+	private final int bucket_count;
+
+	private final int[] bucket_heads;
+
+	/* Per-node list links and keys; keys[node] is -1 if not queued */
+
+	private final int[] next_nodes;
+	private final int[] previous_nodes;
+	private final int[] keys;
+
+	/* Smallest key that can still be queued, -1 until the first offer */
+
+	private int current_key = -1;
+	private int size;
+
+	public BucketQueue(final int capacity, final int max_weight) {
+		if (0 > max_weight)
+			throw new IllegalArgumentException("Negative weight: " + max_weight);
+
+		bucket_count = max_weight + 1;
+
+		bucket_heads = new int[bucket_count];
+		next_nodes = new int[capacity];
+		previous_nodes = new int[capacity];
+		keys = new int[capacity];
+
+		Arrays.fill(bucket_heads, -1);
+		Arrays.fill(keys, -1);
+	}
+
+	@Override
+	public void clear() {
+		for (int b = 0; (b < bucket_count) && (0 < size); b++) {
+			for (int node = bucket_heads[b]; -1 != node; 
+					node = next_nodes[node]) {
+				keys[node] = -1;
+				size -= 1;
+			}
+
+			bucket_heads[b] = -1;
+		}
+
+		size = 0;
+		current_key = -1;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return (0 == size);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public void offer(final int node, final int key) {
+		if (-1 == current_key)
+			current_key = key;
+		else if ((key < current_key) || ((key - current_key) >= bucket_count))
+			throw new IllegalArgumentException("Key " + key
+					+ " outside the bucket window starting at " + current_key);
+
+		int queued_key = keys[node];
+
+		if (-1 != queued_key) {
+			if (key >= queued_key)
+				return;
+
+			unlink(node, queued_key);
+		} else {
+			size += 1;
+		}
+
+		keys[node] = key;
+		link(node, key);
+	}
+
+	@Override
+	public int poll() {
+		if (0 == size)
+			throw new NoSuchElementException();
+
+		int bucket = current_key % bucket_count;
+
+		while (-1 == bucket_heads[bucket]) {
+			current_key += 1;
+			bucket = (bucket + 1 == bucket_count) ? 0 : bucket + 1;
+		}
+
+		int node = bucket_heads[bucket];
+
+		unlink(node, keys[node]);
+		keys[node] = -1;
+		size -= 1;
+
+		return node;
+	}
+
+	private void link(final int node, final int key) {
+		int bucket = key % bucket_count;
+		int head = bucket_heads[bucket];
+
+		next_nodes[node] = head;
+		previous_nodes[node] = -1;
+
+		if (-1 != head)
+			previous_nodes[head] = node;
+
+		bucket_heads[bucket] = node;
+	}
+
+	private void unlink(final int node, final int key) {
+		int next = next_nodes[node];
+		int previous = previous_nodes[node];
+
+		if (-1 != next)
+			previous_nodes[next] = previous;
+
+		if (-1 != previous)
+			next_nodes[previous] = next;
+		else
+			bucket_heads[key % bucket_count] = next;
+	}
+}
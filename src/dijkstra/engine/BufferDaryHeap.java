@@ -0,0 +1,168 @@
+/*
+ * IndexedDaryHeap with its arrays in direct buffers, for engines whose
+ * per-query state is kept off the heap. Behaves exactly like
+ * IndexedDaryHeap, ties included.
+ */
+
+package dijkstra.engine;
+
+import java.nio.IntBuffer;
+import java.util.NoSuchElementException;
+
+import dijkstra.resources.DirectBuffers;
+
+public final class BufferDaryHeap implements NodeQueue {
+
+	private final int arity;
+
+	private final IntBuffer heap_nodes;
+	private final IntBuffer heap_keys;
+
+	/* Heap slot of each node, -1 if the node is not queued */
+
+	private final IntBuffer positions;
+
+	private int size;
+
+	public BufferDaryHeap(final int capacity) {
+		this(capacity, IndexedDaryHeap.DEFAULT_ARITY);
+	}
+
+	public BufferDaryHeap(final int capacity, final int arity) {
+		if (2 > arity)
+			throw new IllegalArgumentException("Heap arity must be >= 2: "
+					+ arity);
+
+		this.arity = arity;
+
+		heap_nodes = DirectBuffers.allocateInts(capacity);
+		heap_keys = DirectBuffers.allocateInts(capacity);
+		positions = DirectBuffers.allocateInts(capacity);
+
+		DirectBuffers.fill(positions, -1);
+	}
+
+	public int getArity() {
+		return arity;
+	}
+
+	/* Only the occupied slots are reset, so clearing costs O(size). */
+
+	@Override
+	public void clear() {
+		for (int i = 0; i < size; i++)
+			positions.put(heap_nodes.get(i), -1);
+
+		size = 0;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return (0 == size);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	public boolean contains(final int node) {
+		return (-1 != positions.get(node));
+	}
+
+	/*
+	 * Inserts the node, or lowers its key if it is already queued. Offering a
+	 * key that is not lower than the queued one is ignored.
+	 */
+
+	@Override
+	public void offer(final int node, final int key) {
+		int pos = positions.get(node);
+
+		if (-1 == pos) {
+			siftUp(size++, node, key);
+		} else if (key < heap_keys.get(pos)) {
+			siftUp(pos, node, key);
+		}
+	}
+
+	@Override
+	public int poll() {
+		if (0 == size)
+			throw new NoSuchElementException();
+
+		int node = heap_nodes.get(0);
+		positions.put(node, -1);
+
+		size -= 1;
+
+		if (0 < size)
+			siftDown(0, heap_nodes.get(size), heap_keys.get(size));
+
+		return node;
+	}
+
+	/* Moves the node with the key up from slot pos to where it belongs */
+
+	private void siftUp(int pos, final int node, final int key) {
+		while (0 < pos) {
+			int parent = (pos - 1) / arity;
+			int parent_key = heap_keys.get(parent);
+
+			if (parent_key <= key)
+				break;
+
+			move(parent, parent_key, pos);
+
+			pos = parent;
+		}
+
+		place(node, key, pos);
+	}
+
+	private void siftDown(int pos, final int node, final int key) {
+		while (true) {
+			int first_child = (pos * arity) + 1;
+
+			if (first_child >= size)
+				break;
+
+			int last_child = Math.min(first_child + arity, size);
+
+			int min_child = first_child;
+			int min_key = heap_keys.get(first_child);
+
+			for (int child = first_child + 1; child < last_child; child++) {
+				int child_key = heap_keys.get(child);
+
+				if (child_key < min_key) {
+					min_child = child;
+					min_key = child_key;
+				}
+			}
+
+			if (min_key >= key)
+				break;
+
+			move(min_child, min_key, pos);
+
+			pos = min_child;
+		}
+
+		place(node, key, pos);
+	}
+
+	private void move(final int from, final int key, final int to) {
+		int node = heap_nodes.get(from);
+
+		heap_nodes.put(to, node);
+		heap_keys.put(to, key);
+		positions.put(node, to);
+	}
+
+	private void place(final int node, final int key, final int pos) {
+		heap_nodes.put(pos, node);
+		heap_keys.put(pos, key);
+		positions.put(node, pos);
+	}
+}
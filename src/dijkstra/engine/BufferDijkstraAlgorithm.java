@@ -0,0 +1,169 @@
+/*
+ * Dijkstra over a BufferGraph, e.g. one mapped from a file by
+ * GraphFile.map(). The adjacency is read straight from the buffers; no
+ * Graph, Vertex or Edge objects are created except for the vertexes of a
+ * path returned by getPath().
+ *
+ * The per-query distances, predecessors and queue live in direct buffers
+ * as well, so with a mapped or BufferGraph.allocateDirect() graph the heap
+ * used by a query does not grow with the graph. As in DijkstraAlgorithm,
+ * a query only resets the nodes the previous one reached, so its cost
+ * follows the part of the graph it explores rather than the vertex count.
+ *
+ * Like DijkstraAlgorithm, the engine keeps the results of the last
+ * execute() and serves one query at a time.
+ */
+
+package dijkstra.engine;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+
+import dijkstra.model.BufferGraph;
+import dijkstra.model.Vertex;
+import dijkstra.resources.DirectBuffers;
+
+public class BufferDijkstraAlgorithm {
+
+	private final BufferGraph graph;
+
+	private final IntBuffer offsets;
+	private final IntBuffer targets;
+	private final IntBuffer weights;
+
+	private final IntBuffer distances_from_source;
+	private final IntBuffer predecessors;
+	private final ByteBuffer settled_nodes;
+
+	private final BufferDaryHeap unsettled_nodes_queue;
+
+	/* Nodes whose distance the last search set, in the order reached */
+
+	private final IntBuffer reached_nodes;
+	private int reached_count;
+
+	private int settled_count;
+
+	public BufferDijkstraAlgorithm(final BufferGraph graph) {
+		this.graph = graph;
+
+		offsets = graph.getOffsets();
+		targets = graph.getTargets();
+		weights = graph.getWeights();
+
+		final int node_count = graph.getVertexCount();
+
+		distances_from_source = DirectBuffers.allocateInts(node_count);
+		predecessors = DirectBuffers.allocateInts(node_count);
+		settled_nodes = DirectBuffers.allocateBytes(node_count);
+		reached_nodes = DirectBuffers.allocateInts(node_count);
+
+		unsettled_nodes_queue = new BufferDaryHeap(node_count);
+
+		DirectBuffers.fill(predecessors, -1);
+		DirectBuffers.fill(distances_from_source, Integer.MAX_VALUE);
+	}
+
+	public BufferGraph getGraph() {
+		return graph;
+	}
+
+	public void execute(final int source) {
+		execute(source, -1);
+	}
+
+	/* Stops as soon as the target (-1 for none) is settled */
+
+	public void execute(final int source, final int target) {
+		resetSearch();
+
+		unsettled_nodes_queue.offer(source, 0);
+		distances_from_source.put(source, 0);
+		reached_nodes.put(reached_count++, source);
+
+		while (false == unsettled_nodes_queue.isEmpty()) {
+			int node = unsettled_nodes_queue.poll();
+
+			settled_nodes.put(node, (byte) 1);
+			settled_count += 1;
+
+			if (node == target)
+				break;
+
+			final int dist_to_node = distances_from_source.get(node);
+			final int last = offsets.get(node + 1);
+
+			for (int e = offsets.get(node); e < last; e++) {
+				int next = targets.get(e);
+
+				if (0 != settled_nodes.get(next))
+					continue;
+
+				int dist = dist_to_node + weights.get(e);
+				int next_dist = distances_from_source.get(next);
+
+				if (next_dist > dist) {
+					if (Integer.MAX_VALUE == next_dist)
+						reached_nodes.put(reached_count++, next);
+
+					distances_from_source.put(next, dist);
+					predecessors.put(next, node);
+					unsettled_nodes_queue.offer(next, dist);
+				}
+			}
+		}
+	}
+
+	private void resetSearch() {
+		for (int i = 0; i < reached_count; i++) {
+			int node = reached_nodes.get(i);
+
+			predecessors.put(node, -1);
+			distances_from_source.put(node, Integer.MAX_VALUE);
+			settled_nodes.put(node, (byte) 0);
+		}
+
+		reached_count = 0;
+
+		unsettled_nodes_queue.clear();
+		settled_count = 0;
+	}
+
+	/* Number of nodes settled by the last execute() */
+
+	public int getSettledCount() {
+		return settled_count;
+	}
+
+	/* Distance of the node from the source, Integer.MAX_VALUE if unreached */
+
+	public int getDistance(final int node_num) {
+		return distances_from_source.get(node_num);
+	}
+
+	public int getPredecessor(final int node_num) {
+		return predecessors.get(node_num);
+	}
+
+	/*
+	 * This method returns the path from the source to the selected target and
+	 * NULL if no path exists
+	 */
+
+	public List<Vertex> getPath(final int node_num) {
+		LinkedList<Vertex> path = new LinkedList<Vertex>();
+		int step = node_num;
+		// check if a path exists
+		if (predecessors.get(step) == -1)
+			return null;
+		path.add(graph.getVertex(step));
+		while (predecessors.get(step) != -1) {
+			step = predecessors.get(step);
+			path.add(graph.getVertex(step));
+		}
+		return Collections.unmodifiableList(path);
+	}
+}
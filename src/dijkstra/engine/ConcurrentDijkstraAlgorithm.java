@@ -0,0 +1,484 @@
+/*
+ * Thread-safe Dijkstra engine over a single shared graph.
+ *
+ * Unlike DijkstraAlgorithm, which keeps its search state in instance fields
+ * and so serves one query at a time, this engine is immutable: every query
+ * borrows a SearchContext from a pool, runs on it and returns it. Any number
+ * of threads can query one instance concurrently, and the CSR arrays of the
+ * graph are shared rather than copied per thread. Results are returned to
+ * the caller instead of being kept for a later getPath().
+ *
+ * execute() and shortestPath() also take a GraphOverlay, which blocks
+ * vertexes and edges or changes weights for that query only. Queries with
+ * different overlays can run side by side on the same engine.
+ *
+ * Searches walk the edges through the EdgeCursor that cursor() returns, a
+ * CompressedGraph cursor here; EncodedDijkstraAlgorithm swaps in a cursor
+ * over an EncodedGraph and reuses the searches unchanged.
+ */
+
+package dijkstra.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import dijkstra.metrics.SearchMetrics;
+import dijkstra.model.CompressedGraph;
+import dijkstra.model.EdgeCursor;
+import dijkstra.model.Graph;
+import dijkstra.model.GraphOverlay;
+import dijkstra.model.Vertex;
+
+public class ConcurrentDijkstraAlgorithm {
+
+	private static ForkJoinPool fork_join_pool = 
+			dijkstra.resources.Concurrency.getForkJoinPool();
+
+	private final Graph graph;
+	private final List<Vertex> nodes;
+
+	private final CompressedGraph compressed_graph;
+
+	private final Queue<SearchContext> context_pool = 
+			new ConcurrentLinkedQueue<SearchContext>();
+
+	private volatile SearchMetrics metrics = SearchMetrics.DISABLED;
+
+	public ConcurrentDijkstraAlgorithm(final Graph graph) {
+		this.graph = graph;
+		nodes = graph.getVertexes();
+		compressed_graph = graph.getCompressedGraph();
+	}
+
+	public Graph getGraph() {
+		return graph;
+	}
+
+	public SearchMetrics getMetrics() {
+		return metrics;
+	}
+
+	/* Shared by all threads querying this engine; must be thread-safe */
+
+	public void setMetrics(final SearchMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/* -------------------------------------------------------------------- */
+
+	SearchContext acquireContext() {
+		SearchContext context = context_pool.poll();
+
+		if (null == context)
+			context = new SearchContext(nodes.size());
+
+		context.begin();
+		return context;
+	}
+
+	void releaseContext(final SearchContext context) {
+		context_pool.offer(context);
+	}
+
+	/*
+	 * Runs Dijkstra from the source on the given context, stopping early once
+	 * the target is settled; a target of -1 settles every reachable node.
+	 * The overlay, if not null, is applied on top of the graph.
+	 */
+
+	void search(final SearchContext context, final int source,
+			final int target) {
+		search(context, source, target, null);
+	}
+
+	/* A new cursor over the edges to relax, for one search at a time */
+
+	EdgeCursor cursor() {
+		return compressed_graph.cursor();
+	}
+
+	void search(final SearchContext context, final int source,
+			final int target, final GraphOverlay overlay) {
+		final SearchMetrics metrics = this.metrics;
+		final boolean measured = metrics.isEnabled();
+		final long start = measured ? System.nanoTime() : 0;
+
+		int settled = 0, relaxations = 0, pushes = 1;
+
+		final IndexedDaryHeap queue = context.queue;
+		final EdgeCursor cursor = cursor();
+
+		context.setDistance(source, 0, -1);
+		queue.offer(source, 0);
+
+		while (false == queue.isEmpty()) {
+			int node = queue.poll();
+			context.settle(node);
+			settled += 1;
+
+			if (node == target)
+				break;
+
+			final int dist_to_node = context.getDistance(node);
+
+			cursor.reset(node);
+
+			while (cursor.next()) {
+				int next = cursor.target();
+				relaxations += 1;
+
+				if (context.isSettled(next))
+					continue;
+
+				int weight = cursor.weight();
+
+				if (null != overlay) {
+					if (overlay.isVertexBlocked(next)
+							|| overlay.isEdgeBlocked(cursor.edge()))
+						continue;
+
+					weight = overlay.weight(cursor.edge());
+				}
+
+				int dist = dist_to_node + weight;
+				if (context.getDistance(next) > dist) {
+					context.setDistance(next, dist, node);
+					queue.offer(next, dist);
+					pushes += 1;
+				}
+			}
+		}
+
+		/* The indexed heap never holds stale entries: every poll settles */
+
+		if (measured)
+			metrics.recordQuery(System.nanoTime() - start, settled,
+					relaxations, pushes, settled, 0);
+	}
+
+	/*
+	 * Distance-only variant of search() that writes the distances of every
+	 * reachable node straight into row[row_offset, row_offset + V) and keeps
+	 * no predecessors. Only the context's settled stamps and queue are used.
+	 * The overlay, if not null, is applied as in search().
+	 */
+
+	void searchDistances(final SearchContext context, final int source,
+			final int[] row, final int row_offset, final GraphOverlay overlay) {
+		final IndexedDaryHeap queue = context.queue;
+		final EdgeCursor cursor = cursor();
+
+		Arrays.fill(row, row_offset, row_offset + nodes.size(),
+				Integer.MAX_VALUE);
+
+		row[row_offset + source] = 0;
+		queue.offer(source, 0);
+
+		while (false == queue.isEmpty()) {
+			int node = queue.poll();
+			context.settle(node);
+
+			final int dist_to_node = row[row_offset + node];
+
+			cursor.reset(node);
+
+			while (cursor.next()) {
+				int next = cursor.target();
+
+				if (context.isSettled(next))
+					continue;
+
+				int weight = cursor.weight();
+
+				if (null != overlay) {
+					if (overlay.isVertexBlocked(next)
+							|| overlay.isEdgeBlocked(cursor.edge()))
+						continue;
+
+					weight = overlay.weight(cursor.edge());
+				}
+
+				int dist = dist_to_node + weight;
+				if (row[row_offset + next] > dist) {
+					row[row_offset + next] = dist;
+					queue.offer(next, dist);
+				}
+			}
+		}
+	}
+
+	List<Vertex> getPath(final SearchContext context, final int target) {
+		LinkedList<Vertex> path = new LinkedList<Vertex>();
+		int step = target;
+		// check if a path exists
+		if (context.getPredecessor(step) == -1)
+			return null;
+		path.add(nodes.get(step));
+		while (context.getPredecessor(step) != -1) {
+			step = context.getPredecessor(step);
+			path.add(nodes.get(step));
+		}
+		return Collections.unmodifiableList(path);
+	}
+
+	/* -------------------------------------------------------------------- */
+
+	/*
+	 * Full single-source query. The returned tree is a copy and stays valid
+	 * independent of later queries.
+	 */
+
+	public ShortestPathTree execute(final int source) {
+		return execute(source, null);
+	}
+
+	public ShortestPathTree execute(final int source,
+			final GraphOverlay overlay) {
+		checkOverlay(overlay);
+
+		SearchContext context = acquireContext();
+
+		try {
+			search(context, source, -1, overlay);
+
+			final int node_count = nodes.size();
+
+			int[] distances = new int[node_count];
+			int[] predecessors = new int[node_count];
+
+			for (int n = 0; n < node_count; n++) {
+				distances[n] = context.getDistance(n);
+				predecessors[n] = context.getPredecessor(n);
+			}
+
+			return new ShortestPathTree(graph, source, distances,
+					predecessors);
+		} finally {
+			releaseContext(context);
+		}
+	}
+
+	public ShortestPathTree execute(final Vertex source) {
+		return execute(indexOf(source));
+	}
+
+	public ShortestPathTree execute(final Vertex source,
+			final GraphOverlay overlay) {
+		return execute(indexOf(source), overlay);
+	}
+
+	/*
+	 * Point-to-point query. Returns the path from the target back to the
+	 * source and NULL if no path exists.
+	 */
+
+	public List<Vertex> shortestPath(final int source, final int target) {
+		return shortestPath(source, target, null);
+	}
+
+	public List<Vertex> shortestPath(final int source, final int target,
+			final GraphOverlay overlay) {
+		checkOverlay(overlay);
+
+		SearchContext context = acquireContext();
+
+		try {
+			search(context, source, target, overlay);
+			return getPath(context, target);
+		} finally {
+			releaseContext(context);
+		}
+	}
+
+	public List<Vertex> shortestPath(final Vertex source, final Vertex target) {
+		return shortestPath(indexOf(source), indexOf(target));
+	}
+
+	public List<Vertex> shortestPath(final Vertex source, final Vertex target,
+			final GraphOverlay overlay) {
+		return shortestPath(indexOf(source), indexOf(target), overlay);
+	}
+
+	private void checkOverlay(final GraphOverlay overlay) {
+		if ((null != overlay) && (overlay.getGraph() != graph))
+			throw new IllegalArgumentException(
+					"Overlay belongs to another graph");
+	}
+
+	/* -------------------------------------------------------------------- */
+
+	/*
+	 * Answers a batch of independent point-to-point queries, sources[i] to
+	 * targets[i], on the shared ForkJoinPool. The batch is split into roughly
+	 * four chunks per worker; each chunk borrows one search context and
+	 * reuses it for all of its queries. Path i of the result is what
+	 * shortestPath(sources[i], targets[i]) would return.
+	 */
+
+	public List<List<Vertex>> executeAll(final int[] sources,
+			final int[] targets) {
+		if (sources.length != targets.length)
+			throw new IllegalArgumentException("Got " + sources.length
+					+ " sources but " + targets.length + " targets");
+
+		List<List<Vertex>> paths = new ArrayList<List<Vertex>>(
+				Collections.<List<Vertex>> nCopies(sources.length, null));
+
+		int chunk_size = Math.max(1, sources.length
+				/ (4 * fork_join_pool.getParallelism()));
+
+		fork_join_pool.invoke(new BatchTask(sources, targets, paths, 0,
+				sources.length, chunk_size));
+
+		return Collections.unmodifiableList(paths);
+	}
+
+	private class BatchTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int[] sources;
+		private final int[] targets;
+		private final List<List<Vertex>> paths;
+
+		private final int from;
+		private final int to;
+		private final int chunk_size;
+
+		public BatchTask(final int[] sources, final int[] targets,
+				final List<List<Vertex>> paths, final int from, final int to,
+				final int chunk_size) {
+			this.sources = sources;
+			this.targets = targets;
+			this.paths = paths;
+			this.from = from;
+			this.to = to;
+			this.chunk_size = chunk_size;
+		}
+
+		@Override
+		protected void compute() {
+			if ((to - from) > chunk_size) {
+				int mid = (from + to) >>> 1;
+
+				invokeAll(new BatchTask(sources, targets, paths, from, mid,
+						chunk_size), new BatchTask(sources, targets, paths, mid,
+						to, chunk_size));
+				return;
+			}
+
+			SearchContext context = acquireContext();
+
+			try {
+				for (int i = from; i < to; i++) {
+					if (i > from)
+						context.begin();
+
+					search(context, sources[i], targets[i]);
+
+					/* Distinct indexes, no structural change: safe to set
+					 * concurrently; join() publishes the results. */
+
+					paths.set(i, getPath(context, targets[i]));
+				}
+			} finally {
+				releaseContext(context);
+			}
+		}
+	}
+
+	/* -------------------------------------------------------------------- */
+
+	/*
+	 * All-pairs distances: one distance-only Dijkstra per source, spread over
+	 * the shared ForkJoinPool in chunks that each reuse one search context.
+	 * Rows are written in place, so the matrix is the only allocation that
+	 * grows with V. Throws IllegalArgumentException if V * V cells do not
+	 * fit in one int array.
+	 */
+
+	public DistanceMatrix computeAllPairs() {
+		return computeAllPairs(null);
+	}
+
+	public DistanceMatrix computeAllPairs(final GraphOverlay overlay) {
+		checkOverlay(overlay);
+
+		final int node_count = nodes.size();
+
+		DistanceMatrix matrix = new DistanceMatrix(node_count);
+
+		int chunk_size = Math.max(1, node_count
+				/ (4 * fork_join_pool.getParallelism()));
+
+		fork_join_pool.invoke(new AllPairsTask(matrix.array(), overlay, 0,
+				node_count, chunk_size));
+
+		return matrix;
+	}
+
+	private class AllPairsTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int[] matrix;
+		private final GraphOverlay overlay;
+
+		private final int from;
+		private final int to;
+		private final int chunk_size;
+
+		public AllPairsTask(final int[] matrix, final GraphOverlay overlay,
+				final int from, final int to, final int chunk_size) {
+			this.matrix = matrix;
+			this.overlay = overlay;
+			this.from = from;
+			this.to = to;
+			this.chunk_size = chunk_size;
+		}
+
+		@Override
+		protected void compute() {
+			if ((to - from) > chunk_size) {
+				int mid = (from + to) >>> 1;
+
+				invokeAll(new AllPairsTask(matrix, overlay, from, mid,
+						chunk_size), new AllPairsTask(matrix, overlay, mid, to,
+								chunk_size));
+				return;
+			}
+
+			final int node_count = nodes.size();
+
+			SearchContext context = acquireContext();
+
+			try {
+				for (int source = from; source < to; source++) {
+					if (source > from)
+						context.begin();
+
+					searchDistances(context, source, matrix,
+							source * node_count, overlay);
+				}
+			} finally {
+				releaseContext(context);
+			}
+		}
+	}
+
+	private int indexOf(final Vertex vertex) {
+		int index = graph.indexOf(vertex);
+
+		if (0 > index)
+			throw new IllegalArgumentException("Unknown vertex: " + vertex);
+
+		return index;
+	}
+}
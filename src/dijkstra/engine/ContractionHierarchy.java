@@ -0,0 +1,634 @@
+/*
+ * Contraction hierarchy (Geisberger et al., "Contraction Hierarchies: Faster
+ * and Simpler Hierarchical Routing in Road Networks", 2008) of a static
+ * Graph, queried by ContractionHierarchyAlgorithm.
+ *
+ * Preprocessing contracts the vertices one by one in order of importance.
+ * Contracting v removes it from the remaining graph and, for every pair of
+ * neighbors u -> v -> x, adds a shortcut u -> x unless a local witness
+ * search finds a path from u to x that is no longer and avoids v. The rank
+ * of a vertex is its position in the contraction order.
+ *
+ * Contraction runs in rounds on the shared ForkJoinPool: each round picks an
+ * independent set of vertices whose priority (edge difference plus number
+ * of contracted neighbors) is a local minimum, simulates their contractions
+ * in parallel, then applies the shortcuts and updates the neighbors'
+ * priorities, again in parallel. Witness searches avoid every vertex of the
+ * current round, so shortcuts found concurrently never rely on each other.
+ *
+ * The result is stored as two CSR graphs over the original edges plus the
+ * shortcuts: the upward graph holds the edges v -> x with rank[x] > rank[v]
+ * at v, the downward graph holds the edges y -> v with rank[y] > rank[v] at
+ * v. Each edge records the contracted middle vertex of its shortcut, or -1,
+ * so paths can be unpacked back into original edges.
+ */
+
+package dijkstra.engine;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import dijkstra.model.CompressedGraph;
+import dijkstra.model.Graph;
+import dijkstra.resources.IntList;
+
+public final class ContractionHierarchy {
+
+	/* Nodes a witness search may settle before it gives up and the
+	 * shortcut is added anyway. Priorities are only estimates, so their
+	 * simulated contractions use a much smaller budget. */
+
+	private static final int WITNESS_SETTLE_LIMIT = 500;
+	private static final int PRIORITY_SETTLE_LIMIT = 50;
+
+	/* Vertices per parallel chunk */
+
+	private static final int CHUNK_SIZE = 256;
+
+	private static ForkJoinPool fork_join_pool =
+			dijkstra.resources.Concurrency.getForkJoinPool();
+
+	private final Graph graph;
+
+	private final int[] ranks;
+
+	final int[] up_offsets;
+	final int[] up_targets;
+	final int[] up_weights;
+	final int[] up_middles;
+
+	final int[] down_offsets;
+	final int[] down_sources;
+	final int[] down_weights;
+	final int[] down_middles;
+
+	private final int shortcut_count;
+
+	public ContractionHierarchy(final Graph graph) {
+		this.graph = graph;
+
+		Contractor contractor = new Contractor(graph.getCompressedGraph());
+		contractor.contractAll();
+
+		ranks = contractor.ranks;
+		shortcut_count = contractor.shortcut_count;
+
+		final int node_count = ranks.length;
+
+		up_offsets = new int[node_count + 1];
+		down_offsets = new int[node_count + 1];
+
+		for (int v = 0; v < node_count; v++) {
+			up_offsets[v + 1] = up_offsets[v]
+					+ countHigher(contractor.out_edges[v], ranks[v]);
+			down_offsets[v + 1] = down_offsets[v]
+					+ countHigher(contractor.in_edges[v], ranks[v]);
+		}
+
+		up_targets = new int[up_offsets[node_count]];
+		up_weights = new int[up_offsets[node_count]];
+		up_middles = new int[up_offsets[node_count]];
+
+		down_sources = new int[down_offsets[node_count]];
+		down_weights = new int[down_offsets[node_count]];
+		down_middles = new int[down_offsets[node_count]];
+
+		for (int v = 0; v < node_count; v++) {
+			copyHigher(contractor.out_edges[v], ranks[v], up_offsets[v],
+					up_targets, up_weights, up_middles);
+			copyHigher(contractor.in_edges[v], ranks[v], down_offsets[v],
+					down_sources, down_weights, down_middles);
+		}
+	}
+
+	private int countHigher(final IntList edges, final int rank) {
+		int count = 0;
+		for (int i = 0; i < edges.size(); i += 3)
+			if (ranks[edges.get(i)] > rank)
+				count += 1;
+		return count;
+	}
+
+	private void copyHigher(final IntList edges, final int rank,
+			int slot, final int[] neighbors, final int[] weights,
+			final int[] middles) {
+		for (int i = 0; i < edges.size(); i += 3) {
+			if (ranks[edges.get(i)] > rank) {
+				neighbors[slot] = edges.get(i);
+				weights[slot] = edges.get(i + 1);
+				middles[slot] = edges.get(i + 2);
+				slot += 1;
+			}
+		}
+	}
+
+	public Graph getGraph() {
+		return graph;
+	}
+
+	public int getNodeCount() {
+		return ranks.length;
+	}
+
+	/* Position of the vertex in the contraction order */
+
+	public int getRank(final int node) {
+		return ranks[node];
+	}
+
+	public int getShortcutCount() {
+		return shortcut_count;
+	}
+
+	/* Edge index of x in the upward edges of v, -1 if there is none */
+
+	int findUpEdge(final int v, final int x) {
+		for (int e = up_offsets[v]; e < up_offsets[v + 1]; e++)
+			if (up_targets[e] == x)
+				return e;
+		return -1;
+	}
+
+	/* Edge index of y in the downward edges of v, -1 if there is none */
+
+	int findDownEdge(final int v, final int y) {
+		for (int e = down_offsets[v]; e < down_offsets[v + 1]; e++)
+			if (down_sources[e] == y)
+				return e;
+		return -1;
+	}
+
+	/* -------------------------------------------------------------------- */
+
+	/*
+	 * Mutable state of the preprocessing. Adjacency lists hold (neighbor,
+	 * weight, middle) triples and only ever contain uncontracted neighbors,
+	 * except in the lists of already contracted vertices, which are frozen.
+	 */
+
+	private static final class Contractor {
+
+		final int node_count;
+
+		final IntList[] out_edges;
+		final IntList[] in_edges;
+
+		final boolean[] in_current_round;
+
+		final int[] priorities;
+		final int[] contracted_neighbors;
+
+		final int[] ranks;
+		int shortcut_count;
+
+		private final Queue<WitnessSearch> witness_searches =
+				new ConcurrentLinkedQueue<WitnessSearch>();
+
+		Contractor(final CompressedGraph compressed_graph) {
+			node_count = compressed_graph.getVertexCount();
+
+			out_edges = new IntList[node_count];
+			in_edges = new IntList[node_count];
+
+			for (int v = 0; v < node_count; v++) {
+				out_edges[v] = new IntList(3 * compressed_graph.getOutDegree(v));
+				in_edges[v] = new IntList();
+			}
+
+			final int[] offsets = compressed_graph.getOffsets();
+			final int[] targets = compressed_graph.getTargets();
+			final int[] weights = compressed_graph.getWeights();
+
+			for (int v = 0; v < node_count; v++) {
+				for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+					int x = targets[e];
+
+					if (x == v)
+						continue;
+
+					addOrDecrease(out_edges[v], x, weights[e], -1);
+					addOrDecrease(in_edges[x], v, weights[e], -1);
+				}
+			}
+
+			in_current_round = new boolean[node_count];
+			priorities = new int[node_count];
+			contracted_neighbors = new int[node_count];
+			ranks = new int[node_count];
+		}
+
+		/*
+		 * Adds the edge to the list, or lowers the weight of the existing
+		 * edge to the same neighbor.
+		 */
+
+		private static void addOrDecrease(final IntList edges,
+				final int neighbor, final int weight, final int middle) {
+			for (int i = 0; i < edges.size(); i += 3) {
+				if (edges.get(i) == neighbor) {
+					if (weight < edges.get(i + 1)) {
+						edges.set(i + 1, weight);
+						edges.set(i + 2, middle);
+					}
+					return;
+				}
+			}
+
+			edges.add(neighbor);
+			edges.add(weight);
+			edges.add(middle);
+		}
+
+		private static void removeNeighbor(final IntList edges,
+				final int neighbor) {
+			for (int i = 0; i < edges.size(); i += 3) {
+				if (edges.get(i) == neighbor) {
+					int last = edges.size() - 3;
+					edges.set(i, edges.get(last));
+					edges.set(i + 1, edges.get(last + 1));
+					edges.set(i + 2, edges.get(last + 2));
+					edges.truncate(last);
+					return;
+				}
+			}
+		}
+
+		/* ---------------------------------------------------------------- */
+
+		private WitnessSearch acquireWitnessSearch() {
+			WitnessSearch search = witness_searches.poll();
+			return (null == search) ? new WitnessSearch(this) : search;
+		}
+
+		private void releaseWitnessSearch(final WitnessSearch search) {
+			witness_searches.offer(search);
+		}
+
+		/*
+		 * Simulates contracting v. Returns the number of shortcuts needed
+		 * and, if shortcuts is not null, appends them as (source, target,
+		 * weight) triples.
+		 */
+
+		int contract(final int v, final WitnessSearch search,
+				final int settle_limit, final IntList shortcuts) {
+			final IntList ins = in_edges[v];
+			final IntList outs = out_edges[v];
+
+			int count = 0;
+
+			for (int i = 0; i < ins.size(); i += 3) {
+				final int u = ins.get(i);
+				final int w1 = ins.get(i + 1);
+
+				int max_needed = -1;
+
+				for (int j = 0; j < outs.size(); j += 3)
+					if (outs.get(j) != u)
+						max_needed = Math.max(max_needed, w1 + outs.get(j + 1));
+
+				if (-1 == max_needed)
+					continue;
+
+				search.run(u, v, max_needed, settle_limit);
+
+				for (int j = 0; j < outs.size(); j += 3) {
+					int x = outs.get(j);
+
+					if (x == u)
+						continue;
+
+					int needed = w1 + outs.get(j + 1);
+
+					if (search.getDistance(x) > needed) {
+						count += 1;
+
+						if (null != shortcuts) {
+							shortcuts.add(u);
+							shortcuts.add(x);
+							shortcuts.add(needed);
+						}
+					}
+				}
+			}
+
+			return count;
+		}
+
+		int computePriority(final int v, final WitnessSearch search) {
+			int edge_difference = contract(v, search, PRIORITY_SETTLE_LIMIT, null)
+					- (in_edges[v].size() / 3) - (out_edges[v].size() / 3);
+
+			return edge_difference + contracted_neighbors[v];
+		}
+
+		/*
+		 * True if v beats every uncontracted neighbor on (priority, hash,
+		 * vertex), so that no two neighbors are picked in the same round.
+		 * The masked hash can collide; the vertex decides those ties.
+		 */
+
+		boolean isLocalMinimum(final int v) {
+			return isLocalMinimum(v, in_edges[v])
+					&& isLocalMinimum(v, out_edges[v]);
+		}
+
+		private boolean isLocalMinimum(final int v, final IntList edges) {
+			for (int i = 0; i < edges.size(); i += 3) {
+				int u = edges.get(i);
+
+				if (priorities[u] < priorities[v])
+					return false;
+
+				if (priorities[u] > priorities[v])
+					continue;
+
+				int u_hash = tieBreak(u);
+				int v_hash = tieBreak(v);
+
+				if ((u_hash < v_hash) || ((u_hash == v_hash) && (u < v)))
+					return false;
+			}
+
+			return true;
+		}
+
+		private static int tieBreak(final int v) {
+			int h = v * 0x9E3779B9;
+			return (h ^ (h >>> 16)) & Integer.MAX_VALUE;
+		}
+
+		/* ---------------------------------------------------------------- */
+
+		/*
+		 * Runs process() over [from, to) in parallel chunks, each with its
+		 * own witness search.
+		 */
+
+		private abstract class RangeTask extends RecursiveAction {
+
+			private static final long serialVersionUID = 1L;
+
+			final int from;
+			final int to;
+
+			RangeTask(final int from, final int to) {
+				this.from = from;
+				this.to = to;
+			}
+
+			abstract RangeTask create(final int from, final int to);
+
+			abstract void process(final int i, final WitnessSearch search);
+
+			@Override
+			protected void compute() {
+				if ((to - from) > CHUNK_SIZE) {
+					int mid = (from + to) >>> 1;
+					invokeAll(create(from, mid), create(mid, to));
+					return;
+				}
+
+				WitnessSearch search = acquireWitnessSearch();
+
+				try {
+					for (int i = from; i < to; i++)
+						process(i, search);
+				} finally {
+					releaseWitnessSearch(search);
+				}
+			}
+		}
+
+		private final class PriorityTask extends RangeTask {
+
+			private static final long serialVersionUID = 1L;
+
+			private final int[] nodes;
+
+			PriorityTask(final int[] nodes, final int from, final int to) {
+				super(from, to);
+				this.nodes = nodes;
+			}
+
+			@Override
+			RangeTask create(final int from, final int to) {
+				return new PriorityTask(nodes, from, to);
+			}
+
+			@Override
+			void process(final int i, final WitnessSearch search) {
+				priorities[nodes[i]] = computePriority(nodes[i], search);
+			}
+		}
+
+		private final class ShortcutTask extends RangeTask {
+
+			private static final long serialVersionUID = 1L;
+
+			private final int[] nodes;
+			private final IntList[] shortcuts;
+
+			ShortcutTask(final int[] nodes, final IntList[] shortcuts,
+					final int from, final int to) {
+				super(from, to);
+				this.nodes = nodes;
+				this.shortcuts = shortcuts;
+			}
+
+			@Override
+			RangeTask create(final int from, final int to) {
+				return new ShortcutTask(nodes, shortcuts, from, to);
+			}
+
+			@Override
+			void process(final int i, final WitnessSearch search) {
+				shortcuts[i] = new IntList();
+				contract(nodes[i], search, WITNESS_SETTLE_LIMIT,
+						shortcuts[i]);
+			}
+		}
+
+		/* ---------------------------------------------------------------- */
+
+		void contractAll() {
+			int[] remaining = new int[node_count];
+			for (int v = 0; v < node_count; v++)
+				remaining[v] = v;
+
+			int remaining_count = node_count;
+
+			fork_join_pool.invoke(new PriorityTask(remaining, 0,
+					remaining_count));
+
+			int next_rank = 0;
+
+			IntList round = new IntList();
+			IntList touched = new IntList();
+			boolean[] is_touched = new boolean[node_count];
+
+			while (0 < remaining_count) {
+
+				/* Pick this round's independent set */
+
+				round.clear();
+
+				int kept = 0;
+				for (int i = 0; i < remaining_count; i++) {
+					int v = remaining[i];
+
+					if (isLocalMinimum(v)) {
+						round.add(v);
+						in_current_round[v] = true;
+					} else {
+						remaining[kept++] = v;
+					}
+				}
+
+				remaining_count = kept;
+
+				/* Simulate the contractions in parallel */
+
+				int[] round_nodes = round.toArray();
+				IntList[] shortcuts = new IntList[round_nodes.length];
+
+				fork_join_pool.invoke(new ShortcutTask(round_nodes, shortcuts,
+						0, round_nodes.length));
+
+				/* Apply them */
+
+				touched.clear();
+
+				for (int i = 0; i < round_nodes.length; i++) {
+					int v = round_nodes[i];
+
+					ranks[v] = next_rank++;
+
+					IntList added = shortcuts[i];
+
+					for (int s = 0; s < added.size(); s += 3) {
+						int u = added.get(s);
+						int x = added.get(s + 1);
+						int weight = added.get(s + 2);
+
+						addOrDecrease(out_edges[u], x, weight, v);
+						addOrDecrease(in_edges[x], u, weight, v);
+					}
+
+					shortcut_count += added.size() / 3;
+				}
+
+				for (int v : round_nodes) {
+					IntList ins = in_edges[v];
+					for (int i = 0; i < ins.size(); i += 3) {
+						int u = ins.get(i);
+						removeNeighbor(out_edges[u], v);
+						touch(u, touched, is_touched);
+					}
+
+					IntList outs = out_edges[v];
+					for (int i = 0; i < outs.size(); i += 3) {
+						int x = outs.get(i);
+						removeNeighbor(in_edges[x], v);
+						touch(x, touched, is_touched);
+					}
+
+					in_current_round[v] = false;
+				}
+
+				/* Re-prioritize the neighbors of the contracted vertices */
+
+				int[] touched_nodes = touched.toArray();
+
+				for (int u : touched_nodes)
+					is_touched[u] = false;
+
+				fork_join_pool.invoke(new PriorityTask(touched_nodes, 0,
+						touched_nodes.length));
+			}
+		}
+
+		private void touch(final int u, final IntList touched,
+				final boolean[] is_touched) {
+			contracted_neighbors[u] += 1;
+
+			if (false == is_touched[u]) {
+				is_touched[u] = true;
+				touched.add(u);
+			}
+		}
+	}
+
+	/* -------------------------------------------------------------------- */
+
+	/*
+	 * Bounded Dijkstra over the uncontracted graph that skips the vertex
+	 * being contracted and every vertex of the current round.
+	 */
+
+	private static final class WitnessSearch {
+
+		private final Contractor contractor;
+
+		private final int[] distances;
+		private final int[] stamps;
+		private int epoch;
+
+		private final IndexedDaryHeap queue;
+
+		WitnessSearch(final Contractor contractor) {
+			this.contractor = contractor;
+
+			distances = new int[contractor.node_count];
+			stamps = new int[contractor.node_count];
+			queue = new IndexedDaryHeap(contractor.node_count);
+		}
+
+		int getDistance(final int node) {
+			return (stamps[node] == epoch) ? distances[node]
+					: Integer.MAX_VALUE;
+		}
+
+		void run(final int source, final int excluded, final int limit,
+				final int settle_limit) {
+			epoch += 1;
+			queue.clear();
+
+			stamps[source] = epoch;
+			distances[source] = 0;
+			queue.offer(source, 0);
+
+			int settled = 0;
+
+			while ((false == queue.isEmpty())
+					&& (settled < settle_limit)) {
+
+				if (queue.peekKey() > limit)
+					break;
+
+				int node = queue.poll();
+				settled += 1;
+
+				final int dist_to_node = distances[node];
+				final IntList outs = contractor.out_edges[node];
+
+				for (int i = 0; i < outs.size(); i += 3) {
+					int next = outs.get(i);
+
+					if ((next == excluded) || contractor.in_current_round[next])
+						continue;
+
+					int dist = dist_to_node + outs.get(i + 1);
+
+					if ((dist <= limit) && (getDistance(next) > dist)) {
+						stamps[next] = epoch;
+						distances[next] = dist;
+						queue.offer(next, dist);
+					}
+				}
+			}
+		}
+	}
+}
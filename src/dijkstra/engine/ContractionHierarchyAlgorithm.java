@@ -0,0 +1,319 @@
+/*
+ * Point-to-point queries on a ContractionHierarchy.
+ *
+ * Both searches only move upwards in the hierarchy: forward from the source
+ * over the upward edges, backward from the target over the downward edges
+ * in reverse. Every vertex reached from both sides is a candidate meeting
+ * point, and a side stops once its queue minimum can no longer beat the
+ * best candidate. Because the upward search spaces are tiny, a query
+ * settles a few hundred nodes even on large graphs. The shortcuts on the
+ * resulting route are then unpacked into original edges, so the returned
+ * path is the same kind of List<Vertex> that getPath() gives.
+ */
+
+package dijkstra.engine;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import dijkstra.model.Graph;
+import dijkstra.model.Vertex;
+import dijkstra.resources.IntList;
+
+public class ContractionHierarchyAlgorithm {
+
+	private final ContractionHierarchy hierarchy;
+
+	private final Graph graph;
+	private final List<Vertex> nodes;
+
+	private final int[] forward_distances;
+	private final int[] backward_distances;
+
+	/* Edge used to reach each node: an upward edge index (forward) or a
+	 * downward edge index (backward) */
+
+	private final int[] forward_edges;
+	private final int[] backward_edges;
+
+	/* Node the edge comes from (forward) or leads to (backward) */
+
+	private final int[] forward_predecessors;
+	private final int[] backward_successors;
+
+	private final IndexedDaryHeap forward_queue;
+	private final IndexedDaryHeap backward_queue;
+
+	private final IntList touched_nodes = new IntList();
+
+	private int settled_count;
+	private int distance = Integer.MAX_VALUE;
+
+	public ContractionHierarchyAlgorithm(final ContractionHierarchy hierarchy) {
+		this.hierarchy = hierarchy;
+
+		graph = hierarchy.getGraph();
+		nodes = graph.getVertexes();
+
+		final int node_count = hierarchy.getNodeCount();
+
+		forward_distances = new int[node_count];
+		backward_distances = new int[node_count];
+		forward_edges = new int[node_count];
+		backward_edges = new int[node_count];
+		forward_predecessors = new int[node_count];
+		backward_successors = new int[node_count];
+
+		Arrays.fill(forward_distances, Integer.MAX_VALUE);
+		Arrays.fill(backward_distances, Integer.MAX_VALUE);
+
+		forward_queue = new IndexedDaryHeap(node_count);
+		backward_queue = new IndexedDaryHeap(node_count);
+	}
+
+	public ContractionHierarchy getHierarchy() {
+		return hierarchy;
+	}
+
+	/* Number of nodes settled by the last query */
+
+	public int getSettledCount() {
+		return settled_count;
+	}
+
+	/* Length of the path found by the last query, or Integer.MAX_VALUE */
+
+	public int getDistance() {
+		return distance;
+	}
+
+	/*
+	 * Returns the path from the target back to the source, in the same order
+	 * as the engines' getPath(), or NULL if no path exists
+	 */
+
+	public List<Vertex> shortestPath(final Vertex source, final Vertex target) {
+		return shortestPath(indexOf(source), indexOf(target));
+	}
+
+	public List<Vertex> shortestPath(final int source, final int target) {
+		reset();
+
+		if (source == target)
+			return null;
+
+		int meeting_node = search(source, target);
+
+		if (-1 == meeting_node)
+			return null;
+
+		return unpack(source, meeting_node);
+	}
+
+	/* -------------------------------------------------------------------- */
+
+	private int search(final int source, final int target) {
+		final int[] up_offsets = hierarchy.up_offsets;
+		final int[] up_targets = hierarchy.up_targets;
+		final int[] up_weights = hierarchy.up_weights;
+
+		final int[] down_offsets = hierarchy.down_offsets;
+		final int[] down_sources = hierarchy.down_sources;
+		final int[] down_weights = hierarchy.down_weights;
+
+		touch(source);
+		touch(target);
+
+		forward_distances[source] = 0;
+		forward_predecessors[source] = -1;
+		forward_queue.offer(source, 0);
+
+		backward_distances[target] = 0;
+		backward_successors[target] = -1;
+		backward_queue.offer(target, 0);
+
+		int meeting_node = -1;
+
+		while (true) {
+			boolean forward_done = forward_queue.isEmpty()
+					|| (forward_queue.peekKey() >= distance);
+			boolean backward_done = backward_queue.isEmpty()
+					|| (backward_queue.peekKey() >= distance);
+
+			if (forward_done && backward_done)
+				break;
+
+			boolean forward = !forward_done && (backward_done
+					|| (forward_queue.peekKey() <= backward_queue.peekKey()));
+
+			if (forward) {
+				int node = forward_queue.poll();
+				settled_count += 1;
+
+				final int dist_to_node = forward_distances[node];
+
+				for (int e = up_offsets[node]; e < up_offsets[node + 1]; e++) {
+					int next = up_targets[e];
+					int dist = dist_to_node + up_weights[e];
+
+					if (forward_distances[next] > dist) {
+						touch(next);
+						forward_distances[next] = dist;
+						forward_edges[next] = e;
+						forward_predecessors[next] = node;
+						forward_queue.offer(next, dist);
+
+						if ((Integer.MAX_VALUE != backward_distances[next])
+								&& (distance > dist + backward_distances[next])) {
+							distance = dist + backward_distances[next];
+							meeting_node = next;
+						}
+					}
+				}
+			} else {
+				int node = backward_queue.poll();
+				settled_count += 1;
+
+				final int dist_from_node = backward_distances[node];
+
+				for (int e = down_offsets[node]; e < down_offsets[node + 1]; e++) {
+					int previous = down_sources[e];
+					int dist = dist_from_node + down_weights[e];
+
+					if (backward_distances[previous] > dist) {
+						touch(previous);
+						backward_distances[previous] = dist;
+						backward_edges[previous] = e;
+						backward_successors[previous] = node;
+						backward_queue.offer(previous, dist);
+
+						if ((Integer.MAX_VALUE != forward_distances[previous])
+								&& (distance > dist + forward_distances[previous])) {
+							distance = dist + forward_distances[previous];
+							meeting_node = previous;
+						}
+					}
+				}
+			}
+		}
+
+		/* The endpoints themselves can be the meeting point */
+
+		if ((Integer.MAX_VALUE != backward_distances[source])
+				&& (distance > backward_distances[source])) {
+			distance = backward_distances[source];
+			meeting_node = source;
+		}
+
+		if ((Integer.MAX_VALUE != forward_distances[target])
+				&& (distance > forward_distances[target])) {
+			distance = forward_distances[target];
+			meeting_node = target;
+		}
+
+		return meeting_node;
+	}
+
+	/* -------------------------------------------------------------------- */
+
+	private List<Vertex> unpack(final int source, final int meeting_node) {
+		IntList route = new IntList();
+		route.add(source);
+
+		/* Upward edges from the source to the meeting node */
+
+		IntList forward_route = new IntList();
+		for (int step = meeting_node; step != source;
+				step = forward_predecessors[step])
+			forward_route.add(step);
+
+		for (int i = forward_route.size() - 1; i >= 0; i--) {
+			int step = forward_route.get(i);
+			int e = forward_edges[step];
+			unpackEdge(forward_predecessors[step], step,
+					hierarchy.up_middles[e], route);
+		}
+
+		/* Downward edges from the meeting node to the target */
+
+		for (int step = meeting_node; -1 != backward_successors[step];
+				step = backward_successors[step]) {
+			int e = backward_edges[step];
+			unpackEdge(step, backward_successors[step],
+					hierarchy.down_middles[e], route);
+		}
+
+		LinkedList<Vertex> path = new LinkedList<Vertex>();
+		for (int i = 0; i < route.size(); i++)
+			path.addFirst(nodes.get(route.get(i)));
+
+		return path;
+	}
+
+	/*
+	 * Appends the vertices after 'from' on the original path of the edge
+	 * from -> to. A shortcut with middle m stands for from -> m, stored at m
+	 * as a downward edge, followed by m -> to, stored at m as an upward edge.
+	 */
+
+	private void unpackEdge(final int from, final int to, final int middle,
+			final IntList route) {
+		IntList stack = new IntList();
+
+		stack.add(from); stack.add(to); stack.add(middle);
+
+		while (false == stack.isEmpty()) {
+			int top = stack.size() - 3;
+
+			int a = stack.get(top);
+			int b = stack.get(top + 1);
+			int m = stack.get(top + 2);
+
+			stack.truncate(top);
+
+			if (-1 == m) {
+				route.add(b);
+				continue;
+			}
+
+			int right = hierarchy.findUpEdge(m, b);
+			int left = hierarchy.findDownEdge(m, a);
+
+			stack.add(m); stack.add(b); stack.add(hierarchy.up_middles[right]);
+			stack.add(a); stack.add(m); stack.add(hierarchy.down_middles[left]);
+		}
+	}
+
+	private void touch(final int node) {
+		if ((Integer.MAX_VALUE == forward_distances[node])
+				&& (Integer.MAX_VALUE == backward_distances[node]))
+			touched_nodes.add(node);
+	}
+
+	private void reset() {
+		int[] touched = touched_nodes.array();
+
+		for (int i = 0; i < touched_nodes.size(); i++) {
+			forward_distances[touched[i]] = Integer.MAX_VALUE;
+			backward_distances[touched[i]] = Integer.MAX_VALUE;
+		}
+
+		touched_nodes.clear();
+
+		forward_queue.clear();
+		backward_queue.clear();
+
+		settled_count = 0;
+		distance = Integer.MAX_VALUE;
+	}
+
+	private int indexOf(final Vertex vertex) {
+		int index = graph.indexOf(vertex);
+
+		if (0 > index)
+			throw new IllegalArgumentException("Unknown vertex: " + vertex);
+
+		return index;
+	}
+}
@@ -0,0 +1,370 @@
+/*
+ * Parallel single-source shortest paths by Delta-stepping (Meyer & Sanders,
+ * "Delta-stepping: a parallelizable shortest path algorithm", 2003).
+ *
+ * Tentative distances are kept in buckets of width delta. All vertices of the
+ * current bucket are expanded at once: their light edges (weight <= delta)
+ * are relaxed in parallel, repeatedly, until the bucket stays empty, and then
+ * the heavy edges of every vertex removed from the bucket are relaxed in one
+ * more parallel pass. Unlike ParallelDijkstraAlgorithm there is no barrier
+ * per settled vertex; the number of synchronization points is the number of
+ * light-edge phases, which is small compared to the vertex count.
+ *
+ * Each vertex's distance and predecessor are packed into one long so a
+ * single compare-and-set publishes both. Relaxation work is spread over the
+ * shared dijkstra.resources.Concurrency ForkJoinPool.
+ */
+
+package dijkstra.engine;
+
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import dijkstra.model.CompressedGraph;
+import dijkstra.model.Graph;
+import dijkstra.model.Vertex;
+import dijkstra.resources.IntList;
+
+public class DeltaSteppingAlgorithm {
+
+	/* Frontiers smaller than this are relaxed on the calling thread. */
+
+	private static final int SEQUENTIAL_THRESHOLD = 1024;
+
+	private static final long UNREACHED = pack(Integer.MAX_VALUE, -1);
+
+	private static ForkJoinPool fork_join_pool =
+			dijkstra.resources.Concurrency.getForkJoinPool();
+
+	private final Graph graph;
+	private final List<Vertex> nodes;
+
+	private final int[] offsets;
+	private final int[] targets;
+	private final int[] weights;
+
+	private final int max_weight;
+
+	private int delta;
+
+	/* Cyclic array of buckets; see setDelta() for the sizing */
+
+	private IntList[] buckets;
+
+	private final AtomicLongArray distances_and_predecessors;
+
+	/* Stamps used to de-duplicate vertices within a frontier */
+
+	private final int[] frontier_stamps;
+	private int frontier_stamp;
+
+	public DeltaSteppingAlgorithm(final Graph graph) {
+		this(graph, defaultDelta(graph.getCompressedGraph()));
+	}
+
+	public DeltaSteppingAlgorithm(final Graph graph, final int delta) {
+		this.graph = graph;
+		nodes = graph.getVertexes();
+
+		CompressedGraph compressed_graph = graph.getCompressedGraph();
+
+		offsets = compressed_graph.getOffsets();
+		targets = compressed_graph.getTargets();
+		weights = compressed_graph.getWeights();
+
+		max_weight = compressed_graph.getMaxWeight();
+
+		distances_and_predecessors = new AtomicLongArray(nodes.size());
+		frontier_stamps = new int[nodes.size()];
+
+		for (int n = 0; n < nodes.size(); n++)
+			distances_and_predecessors.set(n, UNREACHED);
+
+		setDelta(delta);
+	}
+
+	/*
+	 * Average-degree rule of thumb from the paper: roughly max weight over
+	 * average out-degree, so a light-edge phase expands a handful of
+	 * vertices per bucket.
+	 */
+
+	static int defaultDelta(final CompressedGraph compressed_graph) {
+		long vertex_count = Math.max(1, compressed_graph.getVertexCount());
+		long edge_count = Math.max(1, compressed_graph.getEdgeCount());
+
+		long delta = (compressed_graph.getMaxWeight() * vertex_count)
+				/ edge_count;
+
+		return (int) Math.max(1, delta);
+	}
+
+	public int getDelta() {
+		return delta;
+	}
+
+	public void setDelta(final int delta) {
+		if (1 > delta)
+			throw new IllegalArgumentException("Delta must be >= 1: " + delta);
+
+		this.delta = delta;
+
+		/* While bucket i is being processed every tentative distance lies
+		 * below (i + 1) * delta + max_weight, so this many buckets never
+		 * wrap onto a live one. */
+
+		int bucket_count = (max_weight / delta) + 2;
+
+		buckets = new IntList[bucket_count];
+		for (int b = 0; b < bucket_count; b++)
+			buckets[b] = new IntList();
+	}
+
+	/* -------------------------------------------------------------------- */
+
+	private static long pack(final int distance, final int predecessor) {
+		return (((long) distance) << 32) | (predecessor & 0xFFFFFFFFL);
+	}
+
+	private static int distanceOf(final long packed) {
+		return (int) (packed >>> 32);
+	}
+
+	private static int predecessorOf(final long packed) {
+		return (int) packed;
+	}
+
+	private int getShortestDistance(final int node) {
+		return distanceOf(distances_and_predecessors.get(node));
+	}
+
+	/*
+	 * Lowers the distance of the target if the new one is shorter. Returns
+	 * true if this call made the improvement.
+	 */
+
+	private boolean relax(final int target, final int dist, final int node) {
+		final long update = pack(dist, node);
+
+		while (true) {
+			long current = distances_and_predecessors.get(target);
+
+			if (distanceOf(current) <= dist)
+				return false;
+
+			if (distances_and_predecessors.compareAndSet(target, current,
+					update))
+				return true;
+		}
+	}
+
+	/*
+	 * Relaxes either the light or the heavy edges of frontier[from, to) and
+	 * returns the targets that were improved.
+	 */
+
+	private class RelaxationTask extends RecursiveTask<IntList> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int[] frontier;
+		private final int from;
+		private final int to;
+		private final boolean light;
+
+		public RelaxationTask(final int[] frontier, final int from,
+				final int to, final boolean light) {
+			this.frontier = frontier;
+			this.from = from;
+			this.to = to;
+			this.light = light;
+		}
+
+		@Override
+		protected IntList compute() {
+			if ((to - from) <= SEQUENTIAL_THRESHOLD)
+				return relaxRange(frontier, from, to, light);
+
+			int mid = (from + to) >>> 1;
+
+			RelaxationTask rt1 = new RelaxationTask(frontier, from, mid, light);
+			RelaxationTask rt2 = new RelaxationTask(frontier, mid, to, light);
+
+			rt1.fork();
+			IntList improved = rt2.compute();
+			improved.addAll(rt1.join());
+
+			return improved;
+		}
+	}
+
+	private IntList relaxRange(final int[] frontier, final int from,
+			final int to, final boolean light) {
+		IntList improved = new IntList();
+
+		for (int i = from; i < to; i++) {
+			final int node = frontier[i];
+			final int dist_to_node = getShortestDistance(node);
+
+			for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+				int weight = weights[e];
+
+				if ((weight <= delta) != light)
+					continue;
+
+				int target = targets[e];
+				if (relax(target, dist_to_node + weight, node))
+					improved.add(target);
+			}
+		}
+
+		return improved;
+	}
+
+	private IntList relaxAll(final int[] frontier, final int count,
+			final boolean light) {
+		if (count <= SEQUENTIAL_THRESHOLD)
+			return relaxRange(frontier, 0, count, light);
+
+		return fork_join_pool.invoke(
+				new RelaxationTask(frontier, 0, count, light));
+	}
+
+	/* -------------------------------------------------------------------- */
+
+	private void addToBucket(final int node) {
+		int bucket = getShortestDistance(node) / delta;
+		buckets[bucket % buckets.length].add(node);
+	}
+
+	private void addToBuckets(final IntList improved) {
+		int[] values = improved.array();
+		for (int i = 0; i < improved.size(); i++)
+			addToBucket(values[i]);
+	}
+
+	/*
+	 * Moves the live entries of the bucket into the frontier, dropping stale
+	 * entries (nodes that have since moved to a lower bucket) and duplicates.
+	 */
+
+	private int takeFrontier(final int bucket, final IntList frontier) {
+		IntList entries = buckets[bucket % buckets.length];
+
+		frontier.clear();
+		frontier_stamp += 1;
+
+		for (int i = 0; i < entries.size(); i++) {
+			int node = entries.get(i);
+
+			if ((getShortestDistance(node) / delta) != bucket)
+				continue;
+
+			if (frontier_stamps[node] == frontier_stamp)
+				continue;
+
+			frontier_stamps[node] = frontier_stamp;
+			frontier.add(node);
+		}
+
+		entries.clear();
+
+		return frontier.size();
+	}
+
+	private int findNextBucket(final int from) {
+		for (int b = from; b < from + buckets.length; b++)
+			if (false == buckets[b % buckets.length].isEmpty())
+				return b;
+
+		return -1;
+	}
+
+	public void execute(final Vertex source) {
+		execute(indexOf(source));
+	}
+
+	public void execute(final int source) {
+		for (int n = 0; n < nodes.size(); n++)
+			distances_and_predecessors.set(n, UNREACHED);
+
+		for (IntList bucket : buckets)
+			bucket.clear();
+
+		distances_and_predecessors.set(source, pack(0, -1));
+		addToBucket(source);
+
+		IntList frontier = new IntList();
+		IntList expanded = new IntList();
+
+		int bucket = findNextBucket(0);
+
+		while (-1 != bucket) {
+			expanded.clear();
+
+			/* Light edges can refill the current bucket; keep going until
+			 * it stays empty. */
+
+			while (0 < takeFrontier(bucket, frontier)) {
+				expanded.addAll(frontier);
+				addToBuckets(relaxAll(frontier.array(), frontier.size(), true));
+			}
+
+			/* Heavy edges always land in a later bucket, so one pass over
+			 * every vertex expanded in this bucket is enough. */
+
+			frontier.clear();
+			frontier_stamp += 1;
+
+			for (int i = 0; i < expanded.size(); i++) {
+				int node = expanded.get(i);
+				if (frontier_stamps[node] != frontier_stamp) {
+					frontier_stamps[node] = frontier_stamp;
+					frontier.add(node);
+				}
+			}
+
+			addToBuckets(relaxAll(frontier.array(), frontier.size(), false));
+
+			bucket = findNextBucket(bucket + 1);
+		}
+	}
+
+	private int indexOf(final Vertex vertex) {
+		int index = graph.indexOf(vertex);
+
+		if (0 > index)
+			throw new IllegalArgumentException("Unknown vertex: " + vertex);
+
+		return index;
+	}
+
+	/*
+	 * These methods return the path from the source to the selected target and
+	 * NULL if no path exists
+	 */
+
+	public List<Vertex> getPath(final Vertex target) {
+		return getPath(indexOf(target));
+	}
+
+	public List<Vertex> getPath(final int node_num) {
+		LinkedList<Vertex> path = new LinkedList<Vertex>();
+		int step = node_num;
+		int predecessor = predecessorOf(distances_and_predecessors.get(step));
+		// check if a path exists
+		if (predecessor == -1)
+			return null;
+		path.add(nodes.get(step));
+		while (predecessor != -1) {
+			step = predecessor;
+			path.add(nodes.get(step));
+			predecessor = predecessorOf(distances_and_predecessors.get(step));
+		}
+		return Collections.unmodifiableList(path);
+	}
+}
@@ -13,155 +13,412 @@
 
 package dijkstra.engine;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
-import java.util.PriorityQueue;
-import java.util.Queue;
-import java.util.Set;
 
-import dijkstra.model.Edge;
+import dijkstra.model.CompressedGraph;
 import dijkstra.model.Graph;
+import dijkstra.metrics.SearchMetrics;
 import dijkstra.model.Vertex;
+import dijkstra.resources.IntList;
 
 public class DijkstraAlgorithm {
 	
-	private class UnsettledNode implements Comparable<UnsettledNode> {
-
-		private final int distance;
-		private final Vertex node;
-		
-		public UnsettledNode(final int distance, final Vertex node) {
-			this.distance = distance; this.node = node;
-		}
-
-		@Override
-		public int compareTo(final UnsettledNode other) {
-			return (distance - other.distance);
-		}
-	}
+	/*
+	 * INDEXED_HEAP uses an IndexedDaryHeap with decrease-key. BUCKET_QUEUE
+	 * uses Dial's BucketQueue, which needs one bucket per possible edge
+	 * weight. AUTO (the default) picks the bucket queue when the largest
+	 * edge weight is at most MAX_BUCKET_QUEUE_WEIGHT and the heap otherwise.
+	 * PRIORITY_QUEUE is the original java.util.PriorityQueue that pushes a
+	 * new entry on every improvement, kept for comparison.
+	 */
+	
+	public enum QueueType { AUTO, INDEXED_HEAP, BUCKET_QUEUE, PRIORITY_QUEUE }
 	
-	private final List<Vertex> nodes;
-	private final Map<Vertex, List<Edge>> adjacencies;
+	public static final int MAX_BUCKET_QUEUE_WEIGHT = 1024;
 	
-	private Map<Vertex, Vertex> predecessors;
+	/* Search state is package-private so that AStarAlgorithm can reuse it */
+	
+	final Graph graph;
+	final List<Vertex> nodes;
+	
+	/* CSR adjacency arrays shared with the Graph; see CompressedGraph. */
+	
+	final int[] offsets;
+	final int[] targets;
+	final int[] weights;
+	
+	private final int max_weight;
+	
+	final boolean[] removed_nodes;
+	
+	final int[] predecessors;
 
-	private Queue<UnsettledNode> unsettled_nodes_queue;
-	private Map<Vertex, Integer> distances_from_source;
+	private QueueType queue_type = QueueType.AUTO;
+	private int heap_arity = IndexedDaryHeap.DEFAULT_ARITY;
+	
+	NodeQueue unsettled_nodes_queue;
+	final int[] distances_from_source;
+	
+	final boolean[] settled_nodes;
+	int settled_count;
 	
-	private Set<Vertex> settledNodes = new HashSet<Vertex>();
+	/*
+	 * Nodes whose distance the last search set, in the order reached, so
+	 * that resetSearch() only undoes those instead of refilling all three
+	 * arrays; once grown, a query allocates nothing. Code that changes the
+	 * arrays outside a search sets full_reset instead.
+	 */
+	
+	final IntList reached_nodes = new IntList();
+	boolean full_reset = true;
+	
+	/* Bumped by every change that can alter shortest paths, so cached
+	 * results can tell they are stale; see ShortestPathTreeCache. */
+	
+	int modification_count;
+	
+	SearchMetrics metrics = SearchMetrics.DISABLED;
 	
 	public DijkstraAlgorithm(final Graph graph) {
-		nodes = new ArrayList<Vertex>(graph.getVertexes());
-		adjacencies = new HashMap<Vertex, List<Edge>>(graph.getAdjacencies());	
+		this(graph, new boolean[graph.getVertexes().size()],
+				graph.getCompressedGraph().getWeights());
 	}
 	
+	/* Copies the removed nodes, weights, queue settings and metrics; the
+	 * copy starts without a search */
+	
 	public DijkstraAlgorithm(final DijkstraAlgorithm other) {
-		nodes = new ArrayList<Vertex>(other.nodes);
-		adjacencies = new HashMap<Vertex, List<Edge>>(other.adjacencies);
+		this(other.graph, other.removed_nodes.clone(), other.ownWeights());
+		
+		queue_type = other.queue_type;
+		heap_arity = other.heap_arity;
+		metrics = other.metrics;
+		
+		unsettled_nodes_queue = createQueue();
 	}
 	
-	public void removeNode(final int node_num) {
-		// System.out.println("REMOVING " + node_num);
-		Vertex node = nodes.get(node_num);
-		for(Vertex neighbor : getNeighbors(node)) {
-			List<Edge> edges = adjacencies.get(neighbor);
-			List<Edge> new_edges = new ArrayList<Edge>(edges.size());
-			for(Edge edge : edges) 
-				if(edge.getDestination() != node)
-					new_edges.add(edge);
-			adjacencies.put(neighbor, new_edges);
+	/* For engines that change edge weights: 'weights' replaces the CSR
+	 * weights of the Graph and must be laid out the same way. */
+	
+	DijkstraAlgorithm(final Graph graph, final int[] weights) {
+		this(graph, new boolean[graph.getVertexes().size()], weights);
+	}
+	
+	private DijkstraAlgorithm(final Graph graph, final boolean[] removed_nodes,
+			final int[] weights) {
+		this.graph = graph;
+		this.nodes = graph.getVertexes();
+		
+		CompressedGraph compressed_graph = graph.getCompressedGraph();
+		
+		offsets = compressed_graph.getOffsets();
+		targets = compressed_graph.getTargets();
+		this.weights = weights;
+		
+		if (weights == compressed_graph.getWeights()) {
+			max_weight = compressed_graph.getMaxWeight();
+		} else {
+			int max = 0;
+			for (int weight : weights)
+				max = Math.max(max, weight);
+			max_weight = max;
 		}
+		
+		this.removed_nodes = removed_nodes;
+		
+		final int node_count = nodes.size();
+		
+		predecessors = new int[node_count];
+		distances_from_source = new int[node_count];
+		settled_nodes = new boolean[node_count];
+		
+		unsettled_nodes_queue = createQueue();
+		
+		Arrays.fill(predecessors, -1);
 	}
 	
-	public void execute(final Vertex source) {
-		predecessors = new HashMap<Vertex, Vertex>();
+	/* The Graph's weights are shared, changed ones are copied */
+	
+	private int[] ownWeights() {
+		if (weights == graph.getCompressedGraph().getWeights())
+			return weights;
 		
-		unsettled_nodes_queue = new PriorityQueue<UnsettledNode>();
-		distances_from_source = new HashMap<Vertex, Integer>();
-
-		unsettled_nodes_queue.add(new UnsettledNode(0, source));
-		distances_from_source.put(source, 0);
+		return weights.clone();
+	}
+	
+	public QueueType getQueueType() {
+		return queue_type;
+	}
+	
+	public void setQueueType(final QueueType queue_type) {
+		this.queue_type = queue_type;
+		unsettled_nodes_queue = createQueue();
+	}
+	
+	public SearchMetrics getMetrics() {
+		return metrics;
+	}
+	
+	public void setMetrics(final SearchMetrics metrics) {
+		this.metrics = metrics;
+	}
+	
+	public int getHeapArity() {
+		return heap_arity;
+	}
+	
+	public void setHeapArity(final int heap_arity) {
+		this.heap_arity = heap_arity;
+		unsettled_nodes_queue = createQueue();
+	}
+	
+	private NodeQueue createQueue() {
+		QueueType type = queue_type;
 		
-		settledNodes.clear();
+		if (QueueType.AUTO == type)
+			type = (max_weight <= MAX_BUCKET_QUEUE_WEIGHT) ? 
+					QueueType.BUCKET_QUEUE : QueueType.INDEXED_HEAP;
 		
-		while(false == unsettled_nodes_queue.isEmpty()) {
-			UnsettledNode us_node = unsettled_nodes_queue.poll();
-			Vertex node = us_node.node;
-			settledNodes.add(node);
-			findMinimalDistances(node);
+		switch (type) {
+		case PRIORITY_QUEUE:
+			return new PriorityNodeQueue();
+		case BUCKET_QUEUE:
+			return new BucketQueue(nodes.size(), max_weight);
+		default:
+			return new IndexedDaryHeap(nodes.size(), heap_arity);
 		}
 	}
 	
-	public void execute(final int node_num) {
-		this.execute(nodes.get(node_num));
+	/*
+	 * A removed node can no longer be reached: relaxation skips every edge
+	 * leading into it.
+	 */
+	
+	public void removeNode(final int node_num) {
+		// System.out.println("REMOVING " + node_num);
+		removed_nodes[node_num] = true;
+		modification_count += 1;
+	}
+	
+	/* Undoes removeNode() */
+	
+	public void restoreNode(final int node_num) {
+		removed_nodes[node_num] = false;
+		modification_count += 1;
 	}
-
-	private void findMinimalDistances(final Vertex node) {
-		List<Vertex> adjacentNodes = getNeighbors(node);
-		for (Vertex target : adjacentNodes) {
-			int dist = getShortestDistance(node) + getDistance(node, target);
-			if (getShortestDistance(target) > dist) {
-				distances_from_source.put(target, dist);
-				predecessors.put(target, node);
-				unsettled_nodes_queue.add(new UnsettledNode(dist, target));
+	
+	public boolean isRemoved(final int node_num) {
+		return removed_nodes[node_num];
+	}
+	
+	public void execute(final Vertex source) {
+		this.execute(indexOf(source));
+	}
+	
+	void resetSearch() {
+		if (full_reset) {
+			Arrays.fill(predecessors, -1);
+			Arrays.fill(distances_from_source, Integer.MAX_VALUE);
+			Arrays.fill(settled_nodes, false);
+			full_reset = false;
+		} else {
+			final int[] reached = reached_nodes.array();
+			
+			for (int i = 0; i < reached_nodes.size(); i++) {
+				int node = reached[i];
+				predecessors[node] = -1;
+				distances_from_source[node] = Integer.MAX_VALUE;
+				settled_nodes[node] = false;
 			}
 		}
+		
+		reached_nodes.clear();
+		unsettled_nodes_queue.clear();
+		settled_count = 0;
 	}
-
-	private int getDistance(final Vertex node, final Vertex target) {
-		for(Edge edge : adjacencies.get(node))
-			if(edge.getDestination().equals(target))
-				return edge.getWeight();
+	
+	public void execute(final int source) {
+		search(source, -1, Integer.MAX_VALUE, null);
+	}
+	
+	public void execute(final Vertex source, final Vertex target) {
+		execute(indexOf(source), indexOf(target));
+	}
+	
+	/*
+	 * Stops as soon as the target is settled. getPath(target) is then the
+	 * same as after execute(source); paths to nodes that were not settled
+	 * yet are not necessarily shortest.
+	 */
+	
+	public void execute(final int source, final int target) {
+		search(source, target, Integer.MAX_VALUE, null);
+	}
+	
+	public Isochrone executeWithin(final Vertex source,
+			final int max_distance) {
+		return executeWithin(indexOf(source), max_distance);
+	}
+	
+	/*
+	 * Settles only the nodes at most max_distance away and returns them.
+	 * getPath() is valid for exactly the nodes in the Isochrone.
+	 */
+	
+	public Isochrone executeWithin(final int source, final int max_distance) {
+		IntList reached = new IntList();
+		
+		search(source, -1, max_distance, reached);
+		
+		int[] isochrone_nodes = reached.toArray();
+		int[] isochrone_distances = new int[isochrone_nodes.length];
 		
-		throw new RuntimeException("Should not happen");
+		for (int i = 0; i < isochrone_nodes.length; i++)
+			isochrone_distances[i] = distances_from_source[isochrone_nodes[i]];
+		
+		return new Isochrone(graph, source, max_distance, isochrone_nodes,
+				isochrone_distances);
 	}
+	
+	/*
+	 * Settles nodes in order of distance until the target (-1 for none) has
+	 * been settled or the next node lies beyond max_distance. Settled nodes
+	 * are appended to 'reached' unless it is null.
+	 */
+	
+	private void search(final int source, final int target,
+			final int max_distance, final IntList reached) {
+		final boolean measured = metrics.isEnabled();
+		final long start = measured ? System.nanoTime() : 0;
+		
+		int relaxations = 0, pushes = 1, polls = 0, stale_polls = 0;
+		
+		resetSearch();
 
-	private List<Vertex> getNeighbors(final Vertex node) {
-		List<Vertex> node_neighbors = new ArrayList<Vertex>();
+		unsettled_nodes_queue.offer(source, 0);
+		distances_from_source[source] = 0;
+		reached_nodes.add(source);
 		
-		for(Edge edge : adjacencies.get(node))
-			if(!settledNodes.contains(edge.getDestination()))
-				node_neighbors.add(edge.getDestination());
+		while(false == unsettled_nodes_queue.isEmpty()) {
+			int node = unsettled_nodes_queue.poll();
+			polls += 1;
+			
+			/* Stale entry left behind by a later improvement (only the
+			 * PRIORITY_QUEUE type keeps those) */
+			
+			if (settled_nodes[node]) {
+				stale_polls += 1;
+				continue;
+			}
+			
+			if (distances_from_source[node] > max_distance)
+				break;
+			
+			settled_nodes[node] = true;
+			settled_count += 1;
+			
+			if (null != reached)
+				reached.add(node);
+			
+			if (node == target)
+				break;
+			
+			relaxations += offsets[node + 1] - offsets[node];
+			pushes += findMinimalDistances(node, max_distance);
+		}
 		
-		return node_neighbors;
+		if (measured)
+			metrics.recordQuery(System.nanoTime() - start, settled_count,
+					relaxations, pushes, polls, stale_polls);
 	}
 
-	private int getShortestDistance(final Vertex destination) {
-		Integer d = distances_from_source.get(destination);
-		if (d == null) {
-			return Integer.MAX_VALUE;
-		} else {
-			return d;
+	/* Returns the number of nodes queued */
+	
+	private int findMinimalDistances(final int node, final int max_distance) {
+		final int dist_to_node = distances_from_source[node];
+		
+		int pushes = 0;
+		
+		for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+			int target = targets[e];
+			
+			if (settled_nodes[target] || removed_nodes[target])
+				continue;
+			
+			int dist = dist_to_node + weights[e];
+			if ((dist <= max_distance) && (distances_from_source[target] > dist)) {
+				if (Integer.MAX_VALUE == distances_from_source[target])
+					reached_nodes.add(target);
+				
+				distances_from_source[target] = dist;
+				predecessors[target] = node;
+				unsettled_nodes_queue.offer(target, dist);
+				pushes += 1;
+			}
 		}
+		
+		return pushes;
+	}
+	
+	/* Number of nodes settled by the last execute() */
+	
+	public int getSettledCount() {
+		return settled_count;
+	}
+	
+	int indexOf(final Vertex vertex) {
+		int index = graph.indexOf(vertex);
+		
+		if (0 > index)
+			throw new IllegalArgumentException("Unknown vertex: " + vertex);
+		
+		return index;
 	}
 
+	/*
+	 * Point-to-point query by bidirectional search. Returns the same path as
+	 * execute(source) followed by getPath(target), but only explores the
+	 * area around the two endpoints. It does not change the results of
+	 * getPath().
+	 */
+	
+	private BidirectionalSearch bidirectional_search;
+	
+	public List<Vertex> shortestPath(final int source, final int target) {
+		if (bidirectional_search == null)
+			bidirectional_search = new BidirectionalSearch(graph);
+		
+		return bidirectional_search.shortestPath(source, target, removed_nodes);
+	}
+	
+	public List<Vertex> shortestPath(final Vertex source, final Vertex target) {
+		return shortestPath(indexOf(source), indexOf(target));
+	}
+	
 	/*
 	 * These methods return the path from the source to the selected target and
 	 * NULL if no path exists
 	 */
 	
 	public List<Vertex> getPath(final Vertex target) {
+		return getPath(indexOf(target));
+	}
+	
+	public List<Vertex> getPath(final int node_num)
+	{
 		LinkedList<Vertex> path = new LinkedList<Vertex>();
-		Vertex step = target;
+		int step = node_num;
 		// check if a path exists
-		if (predecessors.get(step) == null) {
+		if (predecessors[step] == -1) {
 			return null;
 		}
-		path.add(step);
-		while (predecessors.get(step) != null) {
-			step = predecessors.get(step);
-			path.add(step);
+		path.add(nodes.get(step));
+		while (predecessors[step] != -1) {
+			step = predecessors[step];
+			path.add(nodes.get(step));
 		}
 		return path;
 	}
-	
-	public List<Vertex> getPath(final int node_num)
-	{
-		return getPath(nodes.get(node_num));
-	}
 }
-
@@ -0,0 +1,45 @@
+/*
+ * V x V table of shortest path distances, stored row-major in a single int
+ * array: the distance from source s to target t is at s * V + t.
+ * Integer.MAX_VALUE marks unreachable pairs.
+ */
+
+package dijkstra.engine;
+
+import java.util.Arrays;
+
+public final class DistanceMatrix {
+
+	private final int node_count;
+	private final int[] distances;
+
+	DistanceMatrix(final int node_count) {
+		long cell_count = (long) node_count * node_count;
+
+		if (cell_count > (Integer.MAX_VALUE - 8))
+			throw new IllegalArgumentException(node_count
+					+ " nodes are too many for an int[] distance matrix");
+
+		this.node_count = node_count;
+		this.distances = new int[(int) cell_count];
+	}
+
+	public int getNodeCount() {
+		return node_count;
+	}
+
+	public int getDistance(final int source, final int target) {
+		return distances[(source * node_count) + target];
+	}
+
+	public int[] getRow(final int source) {
+		int from = source * node_count;
+		return Arrays.copyOfRange(distances, from, from + node_count);
+	}
+
+	/* Backing array; rows are filled in place by the engine */
+
+	int[] array() {
+		return distances;
+	}
+}
@@ -0,0 +1,321 @@
+/*
+ * Dijkstra with incremental repair of the shortest path tree, in the style
+ * of Ramalingam & Reps ("An incremental algorithm for a generalization of
+ * the shortest-path problem", 1996).
+ *
+ * After execute(source) the tree is kept, and removeNode(), restoreNode()
+ * and setEdgeWeight() update it in place instead of leaving it to the next
+ * execute():
+ *
+ * - Making a path longer (removing a node, raising the weight of a tree
+ *   edge) only invalidates the subtree hanging below it. Those nodes are
+ *   reseeded from their unaffected in-neighbors and settled again by a
+ *   Dijkstra limited to the subtree.
+ *
+ * - Making a path shorter (restoring a node, lowering a weight) improves
+ *   one node, and the improvement is propagated by a Dijkstra that only
+ *   visits nodes whose distance actually drops.
+ *
+ * Either way the work is proportional to the part of the tree that
+ * changed; getSettledCount() reports it for the last update. getPath()
+ * always reflects the current state.
+ *
+ * Edge weights are copied from the Graph on construction, so changing them
+ * does not affect other engines.
+ */
+
+package dijkstra.engine;
+
+import java.util.List;
+
+import dijkstra.model.Graph;
+import dijkstra.model.Vertex;
+import dijkstra.resources.IntList;
+
+public class DynamicDijkstraAlgorithm extends DijkstraAlgorithm {
+
+	/* Source of each edge, and the edges into each node as indexes into
+	 * the CSR arrays */
+
+	private final int[] sources;
+	private final int[] in_offsets;
+	private final int[] in_edges;
+
+	private final IndexedDaryHeap repair_queue;
+
+	private final boolean[] affected_nodes;
+	private final IntList affected = new IntList();
+
+	/* Root of the current tree, -1 before the first execute() */
+
+	private int source = -1;
+
+	public DynamicDijkstraAlgorithm(final Graph graph) {
+		super(graph, graph.getCompressedGraph().getWeights().clone());
+
+		/* Weights can grow past what the bucket queue was sized for */
+
+		setQueueType(QueueType.INDEXED_HEAP);
+
+		final int node_count = nodes.size();
+		final int edge_count = targets.length;
+
+		sources = new int[edge_count];
+		in_offsets = new int[node_count + 1];
+		in_edges = new int[edge_count];
+
+		for (int v = 0; v < node_count; v++) {
+			for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+				sources[e] = v;
+				in_offsets[targets[e] + 1] += 1;
+			}
+		}
+
+		for (int v = 0; v < node_count; v++)
+			in_offsets[v + 1] += in_offsets[v];
+
+		int[] next = new int[node_count];
+		System.arraycopy(in_offsets, 0, next, 0, node_count);
+
+		for (int e = 0; e < edge_count; e++)
+			in_edges[next[targets[e]]++] = e;
+
+		repair_queue = new IndexedDaryHeap(node_count);
+		affected_nodes = new boolean[node_count];
+	}
+
+	@Override
+	public void setQueueType(final QueueType queue_type) {
+		if ((QueueType.AUTO == queue_type)
+				|| (QueueType.BUCKET_QUEUE == queue_type))
+			super.setQueueType(QueueType.INDEXED_HEAP);
+		else
+			super.setQueueType(queue_type);
+	}
+
+	@Override
+	public void execute(final int source) {
+		super.execute(source);
+		this.source = source;
+	}
+
+	/* Early-exit searches leave an incomplete tree that cannot be repaired;
+	 * updates are only tracked again after the next execute(source). */
+
+	@Override
+	public void execute(final int source, final int target) {
+		super.execute(source, target);
+		this.source = -1;
+	}
+
+	@Override
+	public Isochrone executeWithin(final int source, final int max_distance) {
+		Isochrone isochrone = super.executeWithin(source, max_distance);
+		this.source = -1;
+		return isochrone;
+	}
+
+	/* Root of the tree being repaired, -1 if there is none */
+
+	public int getSource() {
+		return source;
+	}
+
+	/* Distance of the node from the source, Integer.MAX_VALUE if unreached */
+
+	public int getDistance(final int node_num) {
+		return distances_from_source[node_num];
+	}
+
+	/*
+	 * Answers from the current tree when the source is its root, otherwise
+	 * grows a new tree from the source first. Unlike in DijkstraAlgorithm
+	 * this changes what getPath() reports.
+	 */
+
+	@Override
+	public List<Vertex> shortestPath(final int source, final int target) {
+		if (source != this.source)
+			execute(source);
+
+		return getPath(target);
+	}
+
+	/* -------------------------------------------------------------------- */
+
+	@Override
+	public void removeNode(final int node_num) {
+		super.removeNode(node_num);
+
+		settled_count = 0;
+		full_reset = true;
+
+		if ((-1 == source) || (node_num == source)
+				|| (Integer.MAX_VALUE == distances_from_source[node_num]))
+			return;
+
+		invalidate(node_num);
+	}
+
+	@Override
+	public void restoreNode(final int node_num) {
+		boolean was_removed = isRemoved(node_num);
+
+		super.restoreNode(node_num);
+
+		settled_count = 0;
+		full_reset = true;
+
+		if ((-1 == source) || (false == was_removed))
+			return;
+
+		seed(node_num);
+		propagate();
+	}
+
+	public void setEdgeWeight(final Vertex from, final Vertex to,
+			final int weight) {
+		setEdgeWeight(indexOf(from), indexOf(to), weight);
+	}
+
+	/*
+	 * Sets the weight of every edge from -> to. Throws
+	 * IllegalArgumentException if there is no such edge.
+	 */
+
+	public void setEdgeWeight(final int from, final int to, final int weight) {
+		if (0 > weight)
+			throw new IllegalArgumentException("Negative weight: " + weight);
+
+		boolean found = false;
+
+		for (int e = offsets[from]; e < offsets[from + 1]; e++) {
+			if (targets[e] == to) {
+				weights[e] = weight;
+				found = true;
+			}
+		}
+
+		if (false == found)
+			throw new IllegalArgumentException(
+					"No edge " + from + " -> " + to);
+
+		modification_count += 1;
+
+		settled_count = 0;
+		full_reset = true;
+
+		if ((-1 == source) || (to == source) || removed_nodes[to]
+				|| (Integer.MAX_VALUE == distances_from_source[from]))
+			return;
+
+		long via_edge = (long) distances_from_source[from] + weight;
+
+		if (via_edge < distances_from_source[to]) {
+			distances_from_source[to] = (int) via_edge;
+			predecessors[to] = from;
+			repair_queue.offer(to, (int) via_edge);
+			propagate();
+		} else if ((predecessors[to] == from)
+				&& (via_edge > distances_from_source[to])) {
+			invalidate(to);
+		}
+	}
+
+	/* -------------------------------------------------------------------- */
+
+	/*
+	 * Forgets the distances of the subtree below root, reseeds its nodes
+	 * from the rest of the tree and settles them again.
+	 */
+
+	private void invalidate(final int root) {
+		affected.clear();
+		affected.add(root);
+		affected_nodes[root] = true;
+
+		for (int i = 0; i < affected.size(); i++) {
+			int node = affected.get(i);
+
+			for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+				int child = targets[e];
+
+				if ((predecessors[child] == node)
+						&& (false == affected_nodes[child])) {
+					affected_nodes[child] = true;
+					affected.add(child);
+				}
+			}
+		}
+
+		int[] subtree = affected.array();
+
+		for (int i = 0; i < affected.size(); i++) {
+			distances_from_source[subtree[i]] = Integer.MAX_VALUE;
+			predecessors[subtree[i]] = -1;
+		}
+
+		for (int i = 0; i < affected.size(); i++) {
+			affected_nodes[subtree[i]] = false;
+			seed(subtree[i]);
+		}
+
+		propagate();
+	}
+
+	/* Best distance of the node over its in-edges, queued if it improves */
+
+	private void seed(final int node) {
+		if (removed_nodes[node] || (node == source))
+			return;
+
+		long best = distances_from_source[node];
+		int best_predecessor = -1;
+
+		for (int i = in_offsets[node]; i < in_offsets[node + 1]; i++) {
+			int e = in_edges[i];
+			int from = sources[e];
+
+			if (Integer.MAX_VALUE == distances_from_source[from])
+				continue;
+
+			long dist = (long) distances_from_source[from] + weights[e];
+
+			if (dist < best) {
+				best = dist;
+				best_predecessor = from;
+			}
+		}
+
+		if (-1 != best_predecessor) {
+			distances_from_source[node] = (int) best;
+			predecessors[node] = best_predecessor;
+			repair_queue.offer(node, (int) best);
+		}
+	}
+
+	/* Dijkstra over the queued nodes and whatever they improve */
+
+	private void propagate() {
+		while (false == repair_queue.isEmpty()) {
+			int node = repair_queue.poll();
+			settled_count += 1;
+
+			final int dist_to_node = distances_from_source[node];
+
+			for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+				int target = targets[e];
+
+				if (removed_nodes[target])
+					continue;
+
+				int dist = dist_to_node + weights[e];
+				if (distances_from_source[target] > dist) {
+					distances_from_source[target] = dist;
+					predecessors[target] = node;
+					repair_queue.offer(target, dist);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,73 @@
+/*
+ * ConcurrentDijkstraAlgorithm relaxing edges from an EncodedGraph instead of
+ * the CSR arrays. Only cursor() is replaced, so everything built on the
+ * search, from single queries to executeAll() batches and computeAllPairs()
+ * over the shared ForkJoinPool, walks the compressed adjacency with an
+ * EncodedGraph.Cursor per search.
+ *
+ * Distances are the same as with the CSR arrays. Paths are shortest paths
+ * too but may differ where there are ties, since the edges of a vertex are
+ * visited sorted by target. Overlays address CSR edge indexes and are not
+ * supported.
+ *
+ * DijkstraAlgorithm and its subclasses address their weights by CSR edge
+ * index, which DynamicDijkstraAlgorithm rewrites in place, and
+ * ParallelDijkstraAlgorithm splits the CSR arrays between its tasks, so
+ * neither has an encoded variant.
+ */
+
+package dijkstra.engine;
+
+import dijkstra.model.EdgeCursor;
+import dijkstra.model.EncodedGraph;
+import dijkstra.model.Graph;
+import dijkstra.model.GraphOverlay;
+
+public class EncodedDijkstraAlgorithm extends ConcurrentDijkstraAlgorithm {
+
+	private final EncodedGraph encoded_graph;
+
+	public EncodedDijkstraAlgorithm(final Graph graph) {
+		this(graph, EncodedGraph.encode(graph.getCompressedGraph()));
+	}
+
+	public EncodedDijkstraAlgorithm(final Graph graph,
+			final EncodedGraph encoded_graph) {
+		super(graph);
+
+		if (encoded_graph.getVertexCount() != graph.getVertexes().size())
+			throw new IllegalArgumentException("Encoded graph has "
+					+ encoded_graph.getVertexCount() + " vertexes, not "
+					+ graph.getVertexes().size());
+
+		this.encoded_graph = encoded_graph;
+	}
+
+	public EncodedGraph getEncodedGraph() {
+		return encoded_graph;
+	}
+
+	@Override
+	EdgeCursor cursor() {
+		return encoded_graph.cursor();
+	}
+
+	@Override
+	void search(final SearchContext context, final int source,
+			final int target, final GraphOverlay overlay) {
+		if (null != overlay)
+			throw new IllegalArgumentException(
+					"Overlays are not supported on an encoded graph");
+
+		super.search(context, source, target, overlay);
+	}
+
+	@Override
+	public DistanceMatrix computeAllPairs(final GraphOverlay overlay) {
+		if (null != overlay)
+			throw new IllegalArgumentException(
+					"Overlays are not supported on an encoded graph");
+
+		return super.computeAllPairs(overlay);
+	}
+}
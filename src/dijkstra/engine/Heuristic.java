@@ -0,0 +1,18 @@
+/*
+ * Estimate of the remaining cost from a node to the target of a
+ * point-to-point query, used by AStarAlgorithm to steer the search.
+ *
+ * The estimate must never exceed the true cost (admissible) for A* to return
+ * shortest paths, and should not drop by more than an edge's weight across
+ * that edge (consistent) so that settled nodes stay settled. See Heuristics
+ * for the built-in coordinate based estimates.
+ */
+
+package dijkstra.engine;
+
+import dijkstra.model.Vertex;
+
+public interface Heuristic {
+
+	int estimate(Vertex node, Vertex target);
+}
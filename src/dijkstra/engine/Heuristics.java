@@ -0,0 +1,99 @@
+/*
+ * Built-in Heuristic implementations based on the optional vertex
+ * coordinates. Vertices without coordinates estimate to 0, which turns A*
+ * back into plain Dijkstra for them.
+ *
+ * Costs are given per coordinate unit so the estimates match the edge
+ * weights, e.g. octile(100, 141) for grids built like GridTest.
+ */
+
+package dijkstra.engine;
+
+import dijkstra.model.Vertex;
+
+public final class Heuristics {
+
+	private Heuristics() {
+	}
+
+	/*
+	 * Always 0; A* degenerates to Dijkstra.
+	 */
+
+	public static Heuristic zero() {
+		return new Heuristic() {
+			@Override
+			public int estimate(final Vertex node, final Vertex target) {
+				return 0;
+			}
+		};
+	}
+
+	/*
+	 * Exact cost on an 8-connected grid with the given straight and diagonal
+	 * step costs, ignoring obstacles. Admissible and consistent for such
+	 * grids.
+	 */
+
+	public static Heuristic octile(final int straight_cost,
+			final int diagonal_cost) {
+		return new Heuristic() {
+			@Override
+			public int estimate(final Vertex node, final Vertex target) {
+				if (!node.hasCoordinates() || !target.hasCoordinates())
+					return 0;
+
+				double dx = Math.abs(node.getX() - target.getX());
+				double dy = Math.abs(node.getY() - target.getY());
+
+				double diagonal_steps = Math.min(dx, dy);
+				double straight_steps = Math.max(dx, dy) - diagonal_steps;
+
+				return (int) ((straight_cost * straight_steps)
+						+ (diagonal_cost * diagonal_steps));
+			}
+		};
+	}
+
+	/*
+	 * Straight-line distance times the cost per unit. Admissible only if no
+	 * edge is cheaper than cost_per_unit times its length; grids whose
+	 * diagonal cost is rounded down (141 < 100 * sqrt(2)) should use octile.
+	 */
+
+	public static Heuristic euclidean(final int cost_per_unit) {
+		return new Heuristic() {
+			@Override
+			public int estimate(final Vertex node, final Vertex target) {
+				if (!node.hasCoordinates() || !target.hasCoordinates())
+					return 0;
+
+				double dx = node.getX() - target.getX();
+				double dy = node.getY() - target.getY();
+
+				return (int) (cost_per_unit * Math.sqrt((dx * dx) + (dy * dy)));
+			}
+		};
+	}
+
+	/*
+	 * Sum of the axis distances times the cost per unit. Admissible on
+	 * 4-connected grids only; with diagonal moves it overestimates and A*
+	 * may return longer paths.
+	 */
+
+	public static Heuristic manhattan(final int cost_per_unit) {
+		return new Heuristic() {
+			@Override
+			public int estimate(final Vertex node, final Vertex target) {
+				if (!node.hasCoordinates() || !target.hasCoordinates())
+					return 0;
+
+				double dx = Math.abs(node.getX() - target.getX());
+				double dy = Math.abs(node.getY() - target.getY());
+
+				return (int) (cost_per_unit * (dx + dy));
+			}
+		};
+	}
+}
@@ -0,0 +1,228 @@
+/*
+ * Indexed d-ary min-heap of node ordinals in the range [0, capacity), keyed
+ * by int distance.
+ *
+ * Each node is held at most once; offering a queued node again lowers its key
+ * in place (decrease-key), so the heap never grows beyond the number of
+ * distinct queued nodes and no entry objects are allocated. Keys are stored
+ * next to the nodes in heap order so sifting only touches two flat arrays,
+ * and a wider arity (4 by default) gives a shallower tree with the children
+ * of a slot sharing cache lines.
+ */
+
+package dijkstra.engine;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+public final class IndexedDaryHeap implements NodeQueue {
+
+	public static final int DEFAULT_ARITY = 4;
+
+	private final int arity;
+
+	private final int[] heap_nodes;
+	private final int[] heap_keys;
+	
+	/* Heap slot of each node, -1 if the node is not queued */
+	
+	private final int[] positions;
+
+	private int size;
+
+	public IndexedDaryHeap(final int capacity) {
+		this(capacity, DEFAULT_ARITY);
+	}
+
+	public IndexedDaryHeap(final int capacity, final int arity) {
+		if (2 > arity)
+			throw new IllegalArgumentException("Heap arity must be >= 2: "
+					+ arity);
+
+		this.arity = arity;
+
+		heap_nodes = new int[capacity];
+		heap_keys = new int[capacity];
+		positions = new int[capacity];
+
+		Arrays.fill(positions, -1);
+	}
+
+	public int getArity() {
+		return arity;
+	}
+
+	/* Only the occupied slots are reset, so clearing costs O(size). */
+
+	@Override
+	public void clear() {
+		for (int i = 0; i < size; i++)
+			positions[heap_nodes[i]] = -1;
+
+		size = 0;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return (0 == size);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	public boolean contains(final int node) {
+		return (-1 != positions[node]);
+	}
+
+	public int getKey(final int node) {
+		int pos = positions[node];
+
+		if (-1 == pos)
+			throw new NoSuchElementException("Node not queued: " + node);
+
+		return heap_keys[pos];
+	}
+
+	/*
+	 * Inserts the node, or lowers its key if it is already queued. Offering a
+	 * key that is not lower than the queued one is ignored.
+	 */
+
+	@Override
+	public void offer(final int node, final int key) {
+		int pos = positions[node];
+
+		if (-1 == pos) {
+			pos = size++;
+			heap_nodes[pos] = node;
+			heap_keys[pos] = key;
+			positions[node] = pos;
+			siftUp(pos);
+		} else if (key < heap_keys[pos]) {
+			heap_keys[pos] = key;
+			siftUp(pos);
+		}
+	}
+
+	public int peek() {
+		if (0 == size)
+			throw new NoSuchElementException();
+
+		return heap_nodes[0];
+	}
+
+	public int peekKey() {
+		if (0 == size)
+			throw new NoSuchElementException();
+
+		return heap_keys[0];
+	}
+
+	@Override
+	public int poll() {
+		if (0 == size)
+			throw new NoSuchElementException();
+
+		int node = heap_nodes[0];
+		positions[node] = -1;
+
+		size -= 1;
+
+		if (0 < size) {
+			heap_nodes[0] = heap_nodes[size];
+			heap_keys[0] = heap_keys[size];
+			positions[heap_nodes[0]] = 0;
+			siftDown(0);
+		}
+
+		return node;
+	}
+
+	/* Removes the node if it is queued. */
+
+	public void remove(final int node) {
+		int pos = positions[node];
+
+		if (-1 == pos)
+			return;
+
+		positions[node] = -1;
+
+		size -= 1;
+
+		if (pos == size)
+			return;
+
+		int last_key = heap_keys[size];
+		
+		heap_nodes[pos] = heap_nodes[size];
+		heap_keys[pos] = last_key;
+		positions[heap_nodes[pos]] = pos;
+
+		if ((0 < pos) && (heap_keys[(pos - 1) / arity] > last_key))
+			siftUp(pos);
+		else
+			siftDown(pos);
+	}
+
+	private void siftUp(int pos) {
+		final int node = heap_nodes[pos];
+		final int key = heap_keys[pos];
+
+		while (0 < pos) {
+			int parent = (pos - 1) / arity;
+
+			if (heap_keys[parent] <= key)
+				break;
+
+			heap_nodes[pos] = heap_nodes[parent];
+			heap_keys[pos] = heap_keys[parent];
+			positions[heap_nodes[pos]] = pos;
+
+			pos = parent;
+		}
+
+		heap_nodes[pos] = node;
+		heap_keys[pos] = key;
+		positions[node] = pos;
+	}
+
+	private void siftDown(int pos) {
+		final int node = heap_nodes[pos];
+		final int key = heap_keys[pos];
+
+		while (true) {
+			int first_child = (pos * arity) + 1;
+
+			if (first_child >= size)
+				break;
+
+			int last_child = Math.min(first_child + arity, size);
+
+			int min_child = first_child;
+			int min_key = heap_keys[first_child];
+
+			for (int child = first_child + 1; child < last_child; child++) {
+				if (heap_keys[child] < min_key) {
+					min_child = child;
+					min_key = heap_keys[child];
+				}
+			}
+
+			if (min_key >= key)
+				break;
+
+			heap_nodes[pos] = heap_nodes[min_child];
+			heap_keys[pos] = min_key;
+			positions[heap_nodes[pos]] = pos;
+
+			pos = min_child;
+		}
+
+		heap_nodes[pos] = node;
+		heap_keys[pos] = key;
+		positions[node] = pos;
+	}
+}
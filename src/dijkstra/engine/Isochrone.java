@@ -0,0 +1,72 @@
+/*
+ * Result of a radius-bounded query (executeWithin): every node whose
+ * distance from the source is at most the limit, in the order the engine
+ * settled them, i.e. by non-decreasing distance.
+ */
+
+package dijkstra.engine;
+
+import java.util.AbstractList;
+import java.util.List;
+
+import dijkstra.model.Graph;
+import dijkstra.model.Vertex;
+
+public final class Isochrone {
+
+	private final Graph graph;
+	private final int source;
+	private final int max_distance;
+
+	private final int[] nodes;
+	private final int[] distances;
+
+	Isochrone(final Graph graph, final int source, final int max_distance,
+			final int[] nodes, final int[] distances) {
+		this.graph = graph;
+		this.source = source;
+		this.max_distance = max_distance;
+		this.nodes = nodes;
+		this.distances = distances;
+	}
+
+	public int getSource() {
+		return source;
+	}
+
+	public int getMaxDistance() {
+		return max_distance;
+	}
+
+	/* Number of reachable nodes, including the source */
+
+	public int size() {
+		return nodes.length;
+	}
+
+	public int getNode(final int i) {
+		return nodes[i];
+	}
+
+	public int getDistance(final int i) {
+		return distances[i];
+	}
+
+	/* The reachable nodes as vertices, in the same order */
+
+	public List<Vertex> getVertexes() {
+		final List<Vertex> vertexes = graph.getVertexes();
+
+		return new AbstractList<Vertex>() {
+			@Override
+			public Vertex get(final int i) {
+				return vertexes.get(nodes[i]);
+			}
+
+			@Override
+			public int size() {
+				return nodes.length;
+			}
+		};
+	}
+}
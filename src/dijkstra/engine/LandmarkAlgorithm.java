@@ -0,0 +1,92 @@
+/*
+ * ALT: A* search with landmark lower bounds instead of coordinates.
+ *
+ * Each query picks the few landmarks that give the best bound between its
+ * source and target and estimates the remaining cost of every node from
+ * those alone, which keeps the estimate cheap while losing little of its
+ * strength. The maximum of landmark bounds is consistent, so the usual A*
+ * guarantees hold; removed nodes only make true distances longer and leave
+ * the bounds admissible.
+ */
+
+package dijkstra.engine;
+
+import dijkstra.model.Vertex;
+
+public class LandmarkAlgorithm extends AStarAlgorithm {
+
+	public static final int DEFAULT_ACTIVE_LANDMARKS = 4;
+
+	private final Landmarks landmarks;
+
+	/* Landmarks used by the current query */
+
+	private final int[] active;
+	private int active_count;
+
+	public LandmarkAlgorithm(final Landmarks landmarks) {
+		this(landmarks, DEFAULT_ACTIVE_LANDMARKS);
+	}
+
+	public LandmarkAlgorithm(final Landmarks landmarks,
+			final int active_landmarks) {
+		super(landmarks.getGraph(), landmarks);
+		this.landmarks = landmarks;
+
+		if (1 > active_landmarks)
+			throw new IllegalArgumentException(
+					"Active landmark count must be >= 1: " + active_landmarks);
+
+		active = new int[Math.min(active_landmarks, landmarks.getCount())];
+	}
+
+	public Landmarks getLandmarks() {
+		return landmarks;
+	}
+
+	@Override
+	public void execute(final int source, final int target) {
+		selectActive(source, target);
+		super.execute(source, target);
+	}
+
+	/* Keeps the landmarks with the largest bounds on d(source, target) */
+
+	private void selectActive(final int source, final int target) {
+		int[] bounds = new int[active.length];
+
+		active_count = 0;
+
+		for (int l = 0; l < landmarks.getCount(); l++) {
+			int bound = landmarks.bound(l, source, target);
+
+			if (active_count < active.length) {
+				active[active_count] = l;
+				bounds[active_count] = bound;
+				active_count += 1;
+				continue;
+			}
+
+			int weakest = 0;
+			for (int a = 1; a < active_count; a++)
+				if (bounds[a] < bounds[weakest])
+					weakest = a;
+
+			if (bound > bounds[weakest]) {
+				active[weakest] = l;
+				bounds[weakest] = bound;
+			}
+		}
+	}
+
+	@Override
+	int estimate(final int node, final int target, final Vertex target_vertex) {
+		int estimate = 0;
+
+		for (int a = 0; a < active_count; a++)
+			estimate = Math.max(estimate,
+					landmarks.bound(active[a], node, target));
+
+		return estimate;
+	}
+}
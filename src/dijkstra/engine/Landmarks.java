@@ -0,0 +1,409 @@
+/*
+ * Landmark distances for ALT search (Goldberg & Harrelson, "Computing the
+ * Shortest Path: A* Search Meets Graph Theory", 2005).
+ *
+ * For every landmark L the distances d(L, v) and d(v, L) to and from all
+ * vertices are stored. By the triangle inequality both d(v, L) - d(t, L)
+ * and d(L, t) - d(L, v) are lower bounds on d(v, t), so the largest of them
+ * is an admissible and consistent estimate that needs no coordinates.
+ * LandmarkAlgorithm uses it to steer A*; the Heuristic interface is also
+ * implemented for use with a plain AStarAlgorithm.
+ *
+ * Landmarks are picked greedily:
+ *
+ * FARTHEST - the vertex farthest from all landmarks chosen so far, with
+ * unreachable vertices counting as infinitely far.
+ *
+ * AVOID - Goldberg & Werneck's strategy: grow a shortest path tree from a
+ * random root, weigh each vertex by how much the current landmarks
+ * underestimate its distance from the root, and follow the heaviest
+ * landmark-free subtree down to a leaf.
+ *
+ * FARTHEST only needs the forward pass of each landmark to pick the next
+ * one, so all backward passes run at once on the shared ForkJoinPool when
+ * the selection is done. AVOID needs both directions at every step and runs
+ * the two passes of each landmark in parallel.
+ */
+
+package dijkstra.engine;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import dijkstra.model.CompressedGraph;
+import dijkstra.model.Graph;
+import dijkstra.model.Vertex;
+import dijkstra.resources.IntList;
+
+public final class Landmarks implements Heuristic {
+
+	public enum Strategy {
+		FARTHEST, AVOID
+	}
+
+	private static ForkJoinPool fork_join_pool =
+			dijkstra.resources.Concurrency.getForkJoinPool();
+
+	private final Graph graph;
+
+	private final CompressedGraph forward_graph;
+	private final CompressedGraph backward_graph;
+
+	private final int[] landmarks;
+
+	/* from_landmark[l][v] = d(L, v), to_landmark[l][v] = d(v, L), or
+	 * Integer.MAX_VALUE if there is no path */
+
+	final int[][] from_landmark;
+	final int[][] to_landmark;
+
+	public Landmarks(final Graph graph, final int count,
+			final Strategy strategy) {
+		this.graph = graph;
+
+		forward_graph = graph.getCompressedGraph();
+		backward_graph = graph.getReverseCompressedGraph();
+
+		final int node_count = forward_graph.getVertexCount();
+
+		if ((1 > count) || (count > node_count))
+			throw new IllegalArgumentException(
+					"Landmark count must be in [1, " + node_count + "]: " + count);
+
+		landmarks = new int[count];
+		from_landmark = new int[count][];
+		to_landmark = new int[count][];
+
+		if (Strategy.AVOID == strategy)
+			selectAvoid(new Random());
+		else
+			selectFarthest(new Random());
+	}
+
+	public Graph getGraph() {
+		return graph;
+	}
+
+	public int getCount() {
+		return landmarks.length;
+	}
+
+	public int getLandmark(final int l) {
+		return landmarks[l];
+	}
+
+	/* -------------------------------------------------------------------- */
+
+	/*
+	 * Lower bound on d(node, target) from landmark l, 0 if the landmark
+	 * cannot tell
+	 */
+
+	int bound(final int l, final int node, final int target) {
+		int bound = 0;
+
+		final int[] to = to_landmark[l];
+
+		if ((Integer.MAX_VALUE != to[node]) && (Integer.MAX_VALUE != to[target]))
+			bound = to[node] - to[target];
+
+		final int[] from = from_landmark[l];
+
+		if ((Integer.MAX_VALUE != from[node])
+				&& (Integer.MAX_VALUE != from[target]))
+			bound = Math.max(bound, from[target] - from[node]);
+
+		return bound;
+	}
+
+	/* Best lower bound on d(node, target) over all landmarks */
+
+	int bound(final int node, final int target) {
+		return bestBound(node, target, landmarks.length);
+	}
+
+	/* Best lower bound over the first 'count' landmarks only */
+
+	private int bestBound(final int node, final int target, final int count) {
+		int bound = 0;
+
+		for (int l = 0; l < count; l++)
+			bound = Math.max(bound, bound(l, node, target));
+
+		return bound;
+	}
+
+	@Override
+	public int estimate(final Vertex node, final Vertex target) {
+		return bound(graph.indexOf(node), graph.indexOf(target));
+	}
+
+	/* -------------------------------------------------------------------- */
+
+	private void selectFarthest(final Random rand) {
+		final int node_count = forward_graph.getVertexCount();
+
+		/* Smallest distance from any chosen landmark; the start vertex only
+		 * serves to find the first landmark. */
+
+		int[] nearest = search(forward_graph, rand.nextInt(node_count));
+
+		boolean[] is_landmark = new boolean[node_count];
+
+		for (int l = 0; l < landmarks.length; l++) {
+			int farthest = -1;
+
+			for (int v = 0; v < node_count; v++)
+				if ((false == is_landmark[v]) && ((-1 == farthest)
+						|| (nearest[v] > nearest[farthest])))
+					farthest = v;
+
+			landmarks[l] = farthest;
+			is_landmark[farthest] = true;
+
+			from_landmark[l] = search(forward_graph, farthest);
+
+			if (0 == l)
+				Arrays.fill(nearest, Integer.MAX_VALUE);
+
+			for (int v = 0; v < node_count; v++)
+				nearest[v] = Math.min(nearest[v], from_landmark[l][v]);
+		}
+
+		fork_join_pool.invoke(new PassTask(0, landmarks.length, false));
+	}
+
+	private void selectAvoid(final Random rand) {
+		final int node_count = forward_graph.getVertexCount();
+
+		int[] distances = new int[node_count];
+		int[] predecessors = new int[node_count];
+
+		long[] sizes = new long[node_count];
+		boolean[] holds_landmark = new boolean[node_count];
+		int[] child_offsets = new int[node_count + 1];
+		int[] children = new int[node_count];
+
+		boolean[] is_landmark = new boolean[node_count];
+
+		for (int l = 0; l < landmarks.length; l++) {
+			int root = rand.nextInt(node_count);
+
+			IntList order = searchTree(root, distances, predecessors);
+
+			/* Weigh every reached vertex by how badly the current landmarks
+			 * bound its distance from the root, and sum the weights of each
+			 * subtree; subtrees holding a landmark are worth nothing. */
+
+			int[] settled = order.array();
+
+			for (int i = 0; i < order.size(); i++) {
+				int v = settled[i];
+				sizes[v] = (long) distances[v] - bestBound(root, v, l);
+				holds_landmark[v] = is_landmark[v];
+			}
+
+			for (int i = order.size() - 1; i > 0; i--) {
+				int v = settled[i];
+				int parent = predecessors[v];
+
+				sizes[parent] += sizes[v];
+				holds_landmark[parent] |= holds_landmark[v];
+			}
+
+			for (int i = 0; i < order.size(); i++)
+				if (holds_landmark[settled[i]])
+					sizes[settled[i]] = 0;
+
+			/* Children of every vertex in the tree, in CSR form */
+
+			Arrays.fill(child_offsets, 0);
+
+			for (int i = 1; i < order.size(); i++)
+				child_offsets[predecessors[settled[i]] + 1] += 1;
+
+			for (int v = 0; v < node_count; v++)
+				child_offsets[v + 1] += child_offsets[v];
+
+			int[] next = Arrays.copyOf(child_offsets, node_count);
+
+			for (int i = 1; i < order.size(); i++) {
+				int v = settled[i];
+				children[next[predecessors[v]]++] = v;
+			}
+
+			/* Descend into the heaviest subtree down to a leaf */
+
+			int landmark = root;
+
+			while (true) {
+				int heaviest = -1;
+
+				for (int c = child_offsets[landmark];
+						c < child_offsets[landmark + 1]; c++) {
+					int child = children[c];
+
+					if ((0 < sizes[child]) && ((-1 == heaviest)
+							|| (sizes[child] > sizes[heaviest])))
+						heaviest = child;
+				}
+
+				if (-1 == heaviest)
+					break;
+
+				landmark = heaviest;
+			}
+
+			/* The root can only be picked again if everything it reaches is
+			 * a landmark; fall back to an unused vertex. */
+
+			if (is_landmark[landmark]) {
+				landmark = 0;
+				while (is_landmark[landmark])
+					landmark += 1;
+			}
+
+			landmarks[l] = landmark;
+			is_landmark[landmark] = true;
+
+			fork_join_pool.invoke(new PassTask(l, l + 1, true));
+		}
+	}
+
+	/* -------------------------------------------------------------------- */
+
+	/*
+	 * Computes the backward passes, and the forward passes too if 'both' is
+	 * set, for landmarks [from, to), one task per pass.
+	 */
+
+	private class PassTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int from;
+		private final int to;
+		private final boolean both;
+
+		public PassTask(final int from, final int to, final boolean both) {
+			this.from = from;
+			this.to = to;
+			this.both = both;
+		}
+
+		@Override
+		protected void compute() {
+			if (1 < (to - from)) {
+				int mid = (from + to) >>> 1;
+
+				invokeAll(new PassTask(from, mid, both),
+						new PassTask(mid, to, both));
+				return;
+			}
+
+			if (false == both) {
+				to_landmark[from] = search(backward_graph, landmarks[from]);
+				return;
+			}
+
+			invokeAll(new RecursiveAction() {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void compute() {
+					from_landmark[from] = search(forward_graph,
+							landmarks[from]);
+				}
+			}, new RecursiveAction() {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void compute() {
+					to_landmark[from] = search(backward_graph,
+							landmarks[from]);
+				}
+			});
+		}
+	}
+
+	/* Plain Dijkstra over the CSR graph, returning the distances */
+
+	private static int[] search(final CompressedGraph compressed_graph,
+			final int source) {
+		final int[] offsets = compressed_graph.getOffsets();
+		final int[] targets = compressed_graph.getTargets();
+		final int[] weights = compressed_graph.getWeights();
+
+		final int node_count = compressed_graph.getVertexCount();
+
+		int[] distances = new int[node_count];
+		Arrays.fill(distances, Integer.MAX_VALUE);
+
+		IndexedDaryHeap queue = new IndexedDaryHeap(node_count);
+
+		distances[source] = 0;
+		queue.offer(source, 0);
+
+		while (false == queue.isEmpty()) {
+			int node = queue.poll();
+
+			final int dist_to_node = distances[node];
+
+			for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+				int next = targets[e];
+				int dist = dist_to_node + weights[e];
+
+				if (distances[next] > dist) {
+					distances[next] = dist;
+					queue.offer(next, dist);
+				}
+			}
+		}
+
+		return distances;
+	}
+
+	/*
+	 * Shortest path tree from the root: fills in distances and predecessors
+	 * and returns the reached nodes in the order they were settled, so every
+	 * node comes after its predecessor.
+	 */
+
+	private IntList searchTree(final int root, final int[] distances,
+			final int[] predecessors) {
+		final int[] offsets = forward_graph.getOffsets();
+		final int[] targets = forward_graph.getTargets();
+		final int[] weights = forward_graph.getWeights();
+
+		Arrays.fill(distances, Integer.MAX_VALUE);
+		Arrays.fill(predecessors, -1);
+
+		IntList order = new IntList();
+		IndexedDaryHeap queue = new IndexedDaryHeap(distances.length);
+
+		distances[root] = 0;
+		queue.offer(root, 0);
+
+		while (false == queue.isEmpty()) {
+			int node = queue.poll();
+			order.add(node);
+
+			final int dist_to_node = distances[node];
+
+			for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+				int next = targets[e];
+				int dist = dist_to_node + weights[e];
+
+				if (distances[next] > dist) {
+					distances[next] = dist;
+					predecessors[next] = node;
+					queue.offer(next, dist);
+				}
+			}
+		}
+
+		return order;
+	}
+}
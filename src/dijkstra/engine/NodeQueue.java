@@ -0,0 +1,26 @@
+/*
+ * Minimal priority queue of graph node ordinals keyed by tentative distance,
+ * as consumed by the sequential engines.
+ */
+
+package dijkstra.engine;
+
+interface NodeQueue {
+
+	void clear();
+
+	boolean isEmpty();
+
+	int size();
+
+	/*
+	 * Queues the node with the given distance. Implementations with
+	 * decrease-key lower the key of an already queued node; others may keep
+	 * the older entry around, in which case poll() can return a node more
+	 * than once and the caller has to skip the stale copies.
+	 */
+
+	void offer(final int node, final int distance);
+
+	int poll();
+}
@@ -24,15 +24,12 @@
 package dijkstra.engine;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 import java.util.PriorityQueue;
 import java.util.Queue;
-import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.BrokenBarrierException;
 import java.util.concurrent.CyclicBarrier;
@@ -41,25 +38,47 @@ import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.RecursiveAction;
 
-import dijkstra.model.Edge;
+import dijkstra.metrics.SearchMetrics;
+import dijkstra.model.CompressedGraph;
 import dijkstra.model.Graph;
 import dijkstra.model.Vertex;
+import dijkstra.resources.IntList;
 
 public class ParallelDijkstraAlgorithm {
 	
 	private static final int MAX_PROCESSING_SPLIT_COUNT = 2;
 	
-	private Set<Vertex> settled_nodes;
-	private Map<Vertex, Vertex> predecessors;
+	private boolean[] settled_nodes;
+	private int[] predecessors;
+	private int[] settled_distances;
+	
+	/* Stop conditions of the current execution: the round that settles
+	 * target_node, or would settle a node beyond distance_limit, publishes
+	 * a null winner, which ends the loop of every leaf at the same barrier.
+	 * Nodes are appended to reached_nodes as they are settled unless it is
+	 * null. */
+	
+	private int target_node = -1;
+	private int distance_limit = Integer.MAX_VALUE;
+	private IntList reached_nodes;
+	
+	/* Statistics of the current execution, kept by the barrier actions */
+	
+	private volatile SearchMetrics metrics = SearchMetrics.DISABLED;
+	
+	private long query_start;
+	private int round_count;
+	private int winner_count;
+	private int stale_poll_count;
 	
 	private class UnsettledNode implements Comparable<UnsettledNode> {
 
 		int distance;
-		Vertex node;
-		Vertex predecessor;
+		int node;
+		int predecessor;
 
-		public UnsettledNode(final int distance, final Vertex node,
-				final Vertex predecessor) {
+		public UnsettledNode(final int distance, final int node,
+				final int predecessor) {
 			this.distance = distance;
 			this.node = node;
 			this.predecessor = predecessor;
@@ -96,25 +115,35 @@ public class ParallelDijkstraAlgorithm {
 		ProcessingTask pt1;
 		ProcessingTask pt2;
 		
-		Map<Vertex, List<Edge>> adjacencies;
+		int[] offsets;
+		int[] targets;
+		int[] weights;
 		
-		Map<Vertex, Integer> distances_from_source;
+		int[] distances_from_source;
 		Queue<UnsettledNode> unsettled_nodes_queue;
 		List<UnsettledNode> new_unsettled_nodes;
 		
 		boolean leaf_task = true;
 		
-		public ProcessingTask(final Map<Vertex, List<Edge>> adjacencies) {
+		/* Per-leaf statistics, summed up by signal_leaves_done. The wait
+		 * on leaves_done_barrier is still running when that action fires,
+		 * so the leaf only notes when it arrived there (0 if unmeasured). */
+		
+		int relaxation_count;
+		int push_count;
+		long barrier_wait_nanos;
+		long leaves_done_arrival;
+		
+		public ProcessingTask(final CompressedGraph adjacencies) {
 			this(adjacencies, 0);
 		}
 		
-		public ProcessingTask(final Map<Vertex, List<Edge>> adjacencies,
+		public ProcessingTask(final CompressedGraph adjacencies,
 				final int level) {
 
 			if(level < MAX_PROCESSING_SPLIT_COUNT) {
 								
-				List<Map<Vertex, List<Edge>>> split_adjacencies =
-						Graph.splitAdjacencies(adjacencies);
+				List<CompressedGraph> split_adjacencies = adjacencies.split();
 				
 				pt1 = new ProcessingTask(split_adjacencies.get(0), level + 1);
 				pt2 = new ProcessingTask(split_adjacencies.get(1), level + 1);
@@ -122,10 +151,14 @@ public class ParallelDijkstraAlgorithm {
 				leaf_task = false;
 				
 			} else {
-				this.adjacencies = adjacencies;				
+				offsets = adjacencies.getOffsets();
+				targets = adjacencies.getTargets();
+				weights = adjacencies.getWeights();
+				
+				distances_from_source = 
+						new int[adjacencies.getVertexCount()];
 			}
 			
-			distances_from_source = new HashMap<Vertex, Integer>();
 			unsettled_nodes_queue = new PriorityQueue<UnsettledNode>();
 			new_unsettled_nodes = new ArrayList<UnsettledNode>();
 			
@@ -149,17 +182,21 @@ public class ParallelDijkstraAlgorithm {
 		
 		/* ---------------------------------------------------------------- */
 
-		public void setSource(final Vertex source) {
+		public void setSource(final int source) {
 			
 			/* This method is called *once* in the root processing node. The
 			 * routine sets the first winner (the source) and adds the
 			 * node to the settled list.
 			 */
 			
-			UnsettledNode us_node = new UnsettledNode(0, source, null);
+			UnsettledNode us_node = new UnsettledNode(0, source, -1);
 			winner = us_node;
 			
-			settled_nodes.add(source);
+			settled_nodes[source] = true;
+			settled_distances[source] = 0;
+			
+			if (null != reached_nodes)
+				reached_nodes.add(source);
 		}
 		
 		private void findWinner() {
@@ -169,6 +206,9 @@ public class ParallelDijkstraAlgorithm {
 			 * barrier, the query_tasks_for_winner Runnable executes once.
 			 */
 			
+			final boolean measured = metrics.isEnabled();
+			final long start = measured ? System.nanoTime() : 0;
+			
 			try {
 				processing_task_barrier.await();
 			} catch (InterruptedException ex) {
@@ -176,6 +216,9 @@ public class ParallelDijkstraAlgorithm {
 			} catch (BrokenBarrierException ex) {
 				return;
 			}
+			
+			if (measured)
+				barrier_wait_nanos += System.nanoTime() - start;
 
 			processWinnerAndUnsettledNodes();
 		}
@@ -193,10 +236,25 @@ public class ParallelDijkstraAlgorithm {
 		private void queryTasksForWinner() {
 			UnsettledNode potential_winner = null;
 			
+			round_count += 1;
+			
 			global_new_unsettled_nodes.clear();
 			
 			for (ProcessingTask pt : processing_tasks) {				
+				global_new_unsettled_nodes.addAll(pt.new_unsettled_nodes);
+
+				/* Entries for nodes another task has already settled are
+				 * stale; drop them so they can never win a later round.
+				 * All leaves are parked on the barrier while this runs.
+				 */
+				
 				UnsettledNode us_node = pt.unsettled_nodes_queue.peek();
+				
+				while ((null != us_node) && settled_nodes[us_node.node]) {
+					pt.unsettled_nodes_queue.poll();
+					us_node = pt.unsettled_nodes_queue.peek();
+					stale_poll_count += 1;
+				}
 								
 				if (null == us_node)
 					continue;
@@ -204,36 +262,53 @@ public class ParallelDijkstraAlgorithm {
 				if ((null == potential_winner)
 						|| potential_winner.isFartherAwayThan(us_node))
 					potential_winner = us_node;
-								
-				global_new_unsettled_nodes.addAll(pt.new_unsettled_nodes);
 			}
 
+			if ((null != potential_winner)
+					&& (potential_winner.distance > distance_limit))
+				potential_winner = null;
+			
 			winner = potential_winner;
 			
 			if (null != winner) {
 				
-//				System.out.println("Winner:" + winner.node.getId() + ","
+//				System.out.println("Winner:" + winner.node + ","
 //						+ winner.distance + "," + System.currentTimeMillis());
 				
-				settled_nodes.add(winner.node);
-				predecessors.put(winner.node, winner.predecessor);
+				settled_nodes[winner.node] = true;
+				predecessors[winner.node] = winner.predecessor;
+				settled_distances[winner.node] = winner.distance;
+				winner_count += 1;
+				
+				if (null != reached_nodes)
+					reached_nodes.add(winner.node);
+				
+				/* Nothing left to do once the target is settled */
+				
+				if (winner.node == target_node)
+					winner = null;
 			}
 		}
 		
 		private void processWinnerAndUnsettledNodes() {
-			if ((null != winner) && (0 == winner.distance)) 
+			if ((null != winner) && (-1 == winner.predecessor)) 
 				reset(winner.node);
 			else if (winner == unsettled_nodes_queue.peek())
 				unsettled_nodes_queue.poll();
 			
 			for(UnsettledNode us_node : global_new_unsettled_nodes)
-				distances_from_source.put(us_node.node, us_node.distance);
+				if (distances_from_source[us_node.node] > us_node.distance)
+					distances_from_source[us_node.node] = us_node.distance;
 		}
 		
-		private void reset(final Vertex node) {
+		private void reset(final int node) {
+			relaxation_count = 0;
+			push_count = 0;
+			barrier_wait_nanos = 0;
+			
 			unsettled_nodes_queue.clear();
-			distances_from_source.clear();
-			distances_from_source.put(node, 0);
+			Arrays.fill(distances_from_source, Integer.MAX_VALUE);
+			distances_from_source[node] = 0;
 		}
 		
 		/* ---------------------------------------------------------------- */
@@ -287,6 +362,10 @@ public class ParallelDijkstraAlgorithm {
 				 * will signal the completion of processing.
 				 */
 				
+				if (false == reexecuting)
+					leaves_done_arrival = metrics.isEnabled() 
+							? System.nanoTime() : 0;
+				
 				try {
 					if(false == reexecuting)
 						leaves_done_barrier.await();
@@ -321,6 +400,8 @@ public class ParallelDijkstraAlgorithm {
 			 * leaves_done_barrier. */
 			
 			public void run() {
+				recordQuery();
+				
 				try {
 					notify_queue.put(1);
 				} catch (Exception e) {
@@ -329,47 +410,72 @@ public class ParallelDijkstraAlgorithm {
 			}
 		};
 
-		private void relax(final Vertex node, int dist_to_node) {
+		private void relax(final int node, int dist_to_node) {
 			new_unsettled_nodes.clear();
 			
-			for (Vertex target : getNeighbors(node)) {
-				int dist = dist_to_node + getDistance(node, target);
-				if (getShortestDistance(target) > dist) {
+			relaxation_count += offsets[node + 1] - offsets[node];
+			
+			for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+				int target = targets[e];
+				
+				if (settled_nodes[target])
+					continue;
+				
+				int dist = dist_to_node + weights[e];
+				if ((dist <= distance_limit)
+						&& (distances_from_source[target] > dist)) {
 					
-//					System.out.println(getShortestDistance(target) + ">" + dist
-//							+ " => " + target + "->" + node);
+//					System.out.println(distances_from_source[target] + ">"
+//							+ dist + " => " + target + "->" + node);
 					
-					distances_from_source.put(target, dist);
+					distances_from_source[target] = dist;
 					new_unsettled_nodes.add(new UnsettledNode(dist, target,	node));
 				}
 			}
 			
 			unsettled_nodes_queue.addAll(new_unsettled_nodes);
+			push_count += new_unsettled_nodes.size();
 		}
+	}
+	
+	/*
+	 * Reports the finished execution. Runs in the leaves_done_barrier
+	 * action, when every leaf has stopped updating its statistics and
+	 * before the caller is released, so the metrics are complete once
+	 * execute() returns. The reported barrier wait combines both barriers:
+	 * the per-round waits on processing_task_barrier and the final wait on
+	 * leaves_done_barrier, which for each leaf lasts from its arrival until
+	 * now, when the last leaf has arrived.
+	 */
+	
+	private void recordQuery() {
+		final SearchMetrics metrics = this.metrics;
 		
-		private int getShortestDistance(final Vertex destination) {
-			Integer d = distances_from_source.get(destination);
-			return (d == null) ? Integer.MAX_VALUE : d;
-		}
-
-		private int getDistance(final Vertex node, final Vertex target) {
-			for (Edge edge : adjacencies.get(node))
-				if (edge.getDestination().equals(target))
-					return edge.getWeight();
-
-			throw new RuntimeException("Should not happen");
-		}
-
-		private List<Vertex> getNeighbors(final Vertex node) {
-			List<Vertex> node_neighbors = new ArrayList<Vertex>();
-			for (Edge edge : adjacencies.get(node)) {
-				Vertex destination = edge.getDestination();
-				if (!settled_nodes.contains(destination))
-					node_neighbors.add(destination);
-			}
-
-			return Collections.unmodifiableList(node_neighbors);
+		if (false == metrics.isEnabled())
+			return;
+		
+		final long now = System.nanoTime();
+		
+		int relaxations = 0, pushes = 0;
+		long barrier_wait_nanos = 0;
+		
+		for (ProcessingTask pt : processing_tasks) {
+			if (false == pt.leaf_task)
+				continue;
+			
+			relaxations += pt.relaxation_count;
+			pushes += pt.push_count;
+			barrier_wait_nanos += pt.barrier_wait_nanos;
+			
+			if (0 != pt.leaves_done_arrival)
+				barrier_wait_nanos += now - pt.leaves_done_arrival;
 		}
+		
+		metrics.recordQuery(now - query_start,
+				winner_count + 1, relaxations, pushes, winner_count,
+				stale_poll_count);
+		metrics.recordRounds(round_count);
+		metrics.recordBarrierWait(barrier_wait_nanos);
 	}
 	
 	/* -------------------------------------------------------------------- */
@@ -377,27 +483,95 @@ public class ParallelDijkstraAlgorithm {
 	private static ForkJoinPool fork_join_pool = 
 			dijkstra.resources.Concurrency.getForkJoinPool();
 	
+	private final Graph graph;
 	private final List<Vertex> nodes;
 	
 	private ProcessingTask root_processing_task;
 
 	public ParallelDijkstraAlgorithm(final Graph graph) {
+		this.graph = graph;
 		nodes = graph.getVertexes();
 		
-		settled_nodes = new HashSet<Vertex>();
-		predecessors = new HashMap<Vertex, Vertex>();
+		settled_nodes = new boolean[nodes.size()];
+		predecessors = new int[nodes.size()];
+		settled_distances = new int[nodes.size()];
 		global_new_unsettled_nodes = new ArrayList<UnsettledNode>();
 		
+		Arrays.fill(predecessors, -1);
+		
 		processing_tasks = new ArrayList<ProcessingTask>();
-		root_processing_task = new ProcessingTask(graph.getAdjacencies());
+		root_processing_task = 
+				new ProcessingTask(graph.getCompressedGraph());
 		
 		notify_queue = new LinkedBlockingQueue<Integer>();
 	}
 
 	public void execute(final Vertex source) {
+		execute(indexOf(source));
+	}
+	
+	public void execute(final int source) {
+		run(source, -1, Integer.MAX_VALUE, null);
+	}
+	
+	public void execute(final Vertex source, final Vertex target) {
+		execute(indexOf(source), indexOf(target));
+	}
+	
+	/*
+	 * Stops as soon as the target is settled. getPath(target) is then the
+	 * same as after execute(source).
+	 */
+	
+	public void execute(final int source, final int target) {
+		run(source, target, Integer.MAX_VALUE, null);
+	}
+	
+	public Isochrone executeWithin(final Vertex source,
+			final int max_distance) {
+		return executeWithin(indexOf(source), max_distance);
+	}
+	
+	/*
+	 * Settles only the nodes at most max_distance away and returns them.
+	 * getPath() is valid for exactly the nodes in the Isochrone.
+	 */
+	
+	public Isochrone executeWithin(final int source, final int max_distance) {
+		IntList reached = new IntList();
+		
+		run(source, -1, max_distance, reached);
+		
+		int[] reached_array = reached.toArray();
+		int[] reached_distances = new int[reached_array.length];
+		
+		for (int i = 0; i < reached_array.length; i++)
+			reached_distances[i] = settled_distances[reached_array[i]];
+		
+		return new Isochrone(graph, source, max_distance, reached_array,
+				reached_distances);
+	}
+	
+	private void run(final int source, final int target,
+			final int max_distance, final IntList reached) {
 	
-		settled_nodes.clear();
-		predecessors.clear();
+		Arrays.fill(settled_nodes, false);
+		Arrays.fill(predecessors, -1);
+		global_new_unsettled_nodes.clear();
+		
+		target_node = target;
+		distance_limit = max_distance;
+		reached_nodes = reached;
+		
+		query_start = metrics.isEnabled() ? System.nanoTime() : 0;
+		round_count = 0;
+		winner_count = 0;
+		stale_poll_count = 0;
+		
+		/* Nothing to search for */
+		
+		if ((source == target) || (0 > max_distance))
+			return;
 				
 		if (null != root_processing_task) {
 			root_processing_task.setSource(source);
@@ -415,8 +589,41 @@ public class ParallelDijkstraAlgorithm {
 		}
 	}
 	
-	public void execute(final int node_num) {
-		execute(nodes.get(node_num));
+	public SearchMetrics getMetrics() {
+		return metrics;
+	}
+	
+	public void setMetrics(final SearchMetrics metrics) {
+		this.metrics = metrics;
+	}
+	
+	private int indexOf(final Vertex vertex) {
+		int index = graph.indexOf(vertex);
+		
+		if (0 > index)
+			throw new IllegalArgumentException("Unknown vertex: " + vertex);
+		
+		return index;
+	}
+	
+	/*
+	 * Point-to-point query by bidirectional search. Returns the same path as
+	 * execute(source) followed by getPath(target), but only explores the
+	 * area around the two endpoints. It does not change the results of
+	 * getPath().
+	 */
+	
+	private BidirectionalSearch bidirectional_search;
+	
+	public List<Vertex> shortestPath(final int source, final int target) {
+		if (bidirectional_search == null)
+			bidirectional_search = new BidirectionalSearch(graph);
+		
+		return bidirectional_search.shortestPath(source, target, null);
+	}
+	
+	public List<Vertex> shortestPath(final Vertex source, final Vertex target) {
+		return shortestPath(indexOf(source), indexOf(target));
 	}
 	
 	/*
@@ -425,23 +632,23 @@ public class ParallelDijkstraAlgorithm {
 	 */
 	
 	public List<Vertex> getPath(final Vertex target) {
+		return getPath(indexOf(target));
+	}
+	
+	public List<Vertex> getPath(final int node_num) {
 		LinkedList<Vertex> path = new LinkedList<Vertex>();
-		Vertex step = target;
+		int step = node_num;
 		// check if a path exists
-		if (predecessors.get(step) == null)
+		if (predecessors[step] == -1)
 			return null;
-		path.add(step);
-		while (predecessors.get(step) != null) {
-			step = predecessors.get(step);
-			path.add(step);
+		path.add(nodes.get(step));
+		while (predecessors[step] != -1) {
+			step = predecessors[step];
+			path.add(nodes.get(step));
 		}
 		return Collections.unmodifiableList(path);
 	}
 	
-	public List<Vertex> getPath(final int node_num) {
-		return getPath(nodes.get(node_num));
-	}
-	
 	public void terminate() {
 		winner = null;
 		root_processing_task = null;
@@ -0,0 +1,430 @@
+/*
+ * Parallel Dijkstra over a vertex partition of the graph.
+ *
+ * GraphPartitioner splits the vertices into compact regions, one per
+ * partition task. Each task owns the distances, predecessors and queue of
+ * its own vertices and a copy of their out-edges with in-region targets
+ * renumbered locally, so no vertex state is shared between tasks. Edges
+ * that leave the region are not relaxed directly but posted as (target,
+ * distance, predecessor) messages to the owning task's inbox.
+ *
+ * The search runs in rounds separated by a join of all tasks. In a round
+ * each task first applies the messages posted to it in the previous round
+ * and then settles every vertex whose distance is at most the global
+ * minimum plus the smallest edge weight: no path through a vertex that is
+ * not yet settled can be shorter than that, so those distances are final.
+ * The minimum over all queues and messages in flight is taken by the
+ * calling thread between rounds. Inboxes are double-buffered by round, so
+ * a task can post new messages while others still read the old ones.
+ *
+ * Unlike ParallelDijkstraAlgorithm, which splits the edges of every vertex
+ * at random and synchronizes once per settled vertex, traffic between tasks
+ * is limited to the edges cut by the partition, and the number of rounds
+ * is bounded by the largest distance over the smallest weight.
+ */
+
+package dijkstra.engine;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import dijkstra.metrics.SearchMetrics;
+import dijkstra.model.CompressedGraph;
+import dijkstra.model.Graph;
+import dijkstra.model.GraphPartitioner;
+import dijkstra.model.Vertex;
+import dijkstra.resources.IntList;
+
+public class PartitionedDijkstraAlgorithm {
+
+	private static ForkJoinPool fork_join_pool =
+			dijkstra.resources.Concurrency.getForkJoinPool();
+
+	private final Graph graph;
+	private final List<Vertex> nodes;
+
+	/* Owning partition of each vertex and its index within it */
+
+	private final int[] partition_of;
+	private final int[] local_index;
+
+	private final Partition[] partitions;
+
+	private final int min_weight;
+
+	private int round_count;
+
+	private volatile SearchMetrics metrics = SearchMetrics.DISABLED;
+
+	/* -------------------------------------------------------------------- */
+
+	private class Partition extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		final int index;
+
+		/* Global vertex number of each local vertex */
+
+		final int[] members;
+
+		/* Out-edges of the members. Targets >= 0 are local vertexes, those
+		 * < 0 are ~global vertex numbers owned by another partition. */
+
+		final int[] offsets;
+		final int[] targets;
+		final int[] weights;
+
+		final int[] distances;
+		final int[] predecessors;
+		final boolean[] settled;
+
+		final IndexedDaryHeap queue;
+
+		/* Messages (target, distance, predecessor) to every partition,
+		 * one set per round parity */
+
+		final IntList[][] outboxes;
+
+		/* Settling bound of the current round, set before each invoke */
+
+		int threshold;
+		int parity;
+
+		/* Smallest key left in the queue and posted in the last round */
+
+		int queue_min;
+		int sent_min;
+
+		int settled_count;
+		int relaxation_count;
+		int push_count;
+
+		Partition(final int index, final int[] members,
+				final CompressedGraph compressed_graph,
+				final int partition_count) {
+			this.index = index;
+			this.members = members;
+
+			final int[] graph_offsets = compressed_graph.getOffsets();
+			final int[] graph_targets = compressed_graph.getTargets();
+			final int[] graph_weights = compressed_graph.getWeights();
+
+			final int member_count = members.length;
+
+			offsets = new int[member_count + 1];
+
+			for (int i = 0; i < member_count; i++)
+				offsets[i + 1] = offsets[i]
+						+ compressed_graph.getOutDegree(members[i]);
+
+			targets = new int[offsets[member_count]];
+			weights = new int[offsets[member_count]];
+
+			for (int i = 0; i < member_count; i++) {
+				int v = members[i];
+				int local_e = offsets[i];
+
+				for (int e = graph_offsets[v]; e < graph_offsets[v + 1]; e++) {
+					int target = graph_targets[e];
+
+					targets[local_e] = (index == partition_of[target])
+							? local_index[target] : ~target;
+					weights[local_e] = graph_weights[e];
+					local_e += 1;
+				}
+			}
+
+			distances = new int[member_count];
+			predecessors = new int[member_count];
+			settled = new boolean[member_count];
+
+			queue = new IndexedDaryHeap(member_count);
+
+			outboxes = new IntList[2][partition_count];
+
+			for (IntList[] boxes : outboxes)
+				for (int p = 0; p < partition_count; p++)
+					boxes[p] = new IntList();
+		}
+
+		void reset() {
+			Arrays.fill(distances, Integer.MAX_VALUE);
+			Arrays.fill(predecessors, -1);
+			Arrays.fill(settled, false);
+
+			queue.clear();
+
+			for (IntList[] boxes : outboxes)
+				for (IntList box : boxes)
+					box.clear();
+
+			settled_count = 0;
+			relaxation_count = 0;
+			push_count = 0;
+		}
+
+		@Override
+		protected void compute() {
+			/* Messages posted to this partition in the previous round */
+
+			for (Partition sender : partitions) {
+				IntList box = sender.outboxes[parity ^ 1][index];
+				int[] values = box.array();
+
+				for (int i = 0; i < box.size(); i += 3)
+					offer(local_index[values[i]], values[i + 1], values[i + 2]);
+
+				box.clear();
+			}
+
+			sent_min = Integer.MAX_VALUE;
+
+			while ((false == queue.isEmpty())
+					&& (queue.peekKey() <= threshold)) {
+				int node = queue.poll();
+
+				settled[node] = true;
+				settled_count += 1;
+
+				relax(node);
+			}
+
+			queue_min = queue.isEmpty() ? Integer.MAX_VALUE : queue.peekKey();
+		}
+
+		private void relax(final int node) {
+			final int dist_to_node = distances[node];
+			final int global_node = members[node];
+
+			relaxation_count += offsets[node + 1] - offsets[node];
+
+			for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+				int target = targets[e];
+				int dist = dist_to_node + weights[e];
+
+				if (0 <= target) {
+					offer(target, dist, global_node);
+					continue;
+				}
+
+				int global_target = ~target;
+				IntList box = outboxes[parity][partition_of[global_target]];
+
+				box.add(global_target);
+				box.add(dist);
+				box.add(global_node);
+
+				if (dist < sent_min)
+					sent_min = dist;
+			}
+		}
+
+		private void offer(final int node, final int dist,
+				final int predecessor) {
+			if (settled[node] || (distances[node] <= dist))
+				return;
+
+			distances[node] = dist;
+			predecessors[node] = predecessor;
+			queue.offer(node, dist);
+			push_count += 1;
+		}
+	}
+
+	/* Runs one round of every partition */
+
+	private class RoundTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected void compute() {
+			invokeAll(partitions);
+		}
+	}
+
+	/* -------------------------------------------------------------------- */
+
+	public PartitionedDijkstraAlgorithm(final Graph graph) {
+		this(graph, fork_join_pool.getParallelism());
+	}
+
+	/*
+	 * The partition count is capped at the parallelism of the shared pool,
+	 * since more partitions than threads only add messages and rounds, and
+	 * at the vertex count; getPartitionCount() tells the count in use.
+	 */
+
+	public PartitionedDijkstraAlgorithm(final Graph graph,
+			final int partition_count) {
+		if (1 > partition_count)
+			throw new IllegalArgumentException(
+					"Partition count must be >= 1: " + partition_count);
+
+		this.graph = graph;
+		nodes = graph.getVertexes();
+
+		CompressedGraph compressed_graph = graph.getCompressedGraph();
+
+		int count = Math.min(partition_count, fork_join_pool.getParallelism());
+		count = Math.max(1, Math.min(count, nodes.size()));
+
+		partition_of = GraphPartitioner.partition(compressed_graph, count);
+		local_index = new int[nodes.size()];
+
+		int[] sizes = new int[count];
+
+		for (int v = 0; v < nodes.size(); v++)
+			local_index[v] = sizes[partition_of[v]]++;
+
+		int[][] members = new int[count][];
+
+		for (int p = 0; p < count; p++)
+			members[p] = new int[sizes[p]];
+
+		for (int v = 0; v < nodes.size(); v++)
+			members[partition_of[v]][local_index[v]] = v;
+
+		partitions = new Partition[count];
+
+		for (int p = 0; p < count; p++)
+			partitions[p] = new Partition(p, members[p], compressed_graph,
+					count);
+
+		int min = Integer.MAX_VALUE;
+
+		for (int weight : compressed_graph.getWeights())
+			min = Math.min(min, weight);
+
+		min_weight = (Integer.MAX_VALUE == min) ? 0 : min;
+	}
+
+	public int getPartitionCount() {
+		return partitions.length;
+	}
+
+	public int getPartition(final int node_num) {
+		return partition_of[node_num];
+	}
+
+	/* Number of rounds the last execute() took */
+
+	public int getRoundCount() {
+		return round_count;
+	}
+
+	public SearchMetrics getMetrics() {
+		return metrics;
+	}
+
+	public void setMetrics(final SearchMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	public void execute(final Vertex source) {
+		execute(indexOf(source));
+	}
+
+	public void execute(final int source) {
+		final SearchMetrics metrics = this.metrics;
+		final long start = metrics.isEnabled() ? System.nanoTime() : 0;
+
+		for (Partition partition : partitions)
+			partition.reset();
+
+		partitions[partition_of[source]].offer(local_index[source], 0, -1);
+
+		round_count = 0;
+
+		int global_min = 0;
+
+		while (Integer.MAX_VALUE != global_min) {
+			int threshold = (int) Math.min(Integer.MAX_VALUE,
+					(long) global_min + min_weight);
+
+			for (Partition partition : partitions) {
+				partition.threshold = threshold;
+				partition.parity = round_count & 1;
+				partition.reinitialize();
+			}
+
+			fork_join_pool.invoke(new RoundTask());
+			round_count += 1;
+
+			global_min = Integer.MAX_VALUE;
+
+			for (Partition partition : partitions)
+				global_min = Math.min(global_min,
+						Math.min(partition.queue_min, partition.sent_min));
+		}
+
+		if (metrics.isEnabled())
+			recordQuery(metrics, System.nanoTime() - start);
+	}
+
+	private void recordQuery(final SearchMetrics metrics,
+			final long elapsed_nanos) {
+		int settled = 0, relaxations = 0, pushes = 0;
+
+		for (Partition partition : partitions) {
+			settled += partition.settled_count;
+			relaxations += partition.relaxation_count;
+			pushes += partition.push_count;
+		}
+
+		metrics.recordQuery(elapsed_nanos, settled, relaxations, pushes,
+				settled, 0);
+		metrics.recordRounds(round_count);
+	}
+
+	/* Distance of the node from the source, Integer.MAX_VALUE if unreached */
+
+	public int getDistance(final int node_num) {
+		return partitions[partition_of[node_num]]
+				.distances[local_index[node_num]];
+	}
+
+	private int predecessorOf(final int node_num) {
+		return partitions[partition_of[node_num]]
+				.predecessors[local_index[node_num]];
+	}
+
+	private int indexOf(final Vertex vertex) {
+		int index = graph.indexOf(vertex);
+
+		if (0 > index)
+			throw new IllegalArgumentException("Unknown vertex: " + vertex);
+
+		return index;
+	}
+
+	/*
+	 * These methods return the path from the source to the selected target and
+	 * NULL if no path exists
+	 */
+
+	public List<Vertex> getPath(final Vertex target) {
+		return getPath(indexOf(target));
+	}
+
+	public List<Vertex> getPath(final int node_num) {
+		LinkedList<Vertex> path = new LinkedList<Vertex>();
+		int step = node_num;
+		int predecessor = predecessorOf(step);
+		// check if a path exists
+		if (predecessor == -1)
+			return null;
+		path.add(nodes.get(step));
+		while (predecessor != -1) {
+			step = predecessor;
+			path.add(nodes.get(step));
+			predecessor = predecessorOf(step);
+		}
+		return Collections.unmodifiableList(path);
+	}
+}
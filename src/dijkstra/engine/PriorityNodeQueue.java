@@ -0,0 +1,57 @@
+/*
+ * NodeQueue backed by java.util.PriorityQueue. This is the queue the
+ * sequential engine originally used: every improvement pushes a new entry
+ * and stale entries are left in place. Kept for comparison with
+ * IndexedDaryHeap.
+ */
+
+package dijkstra.engine;
+
+import java.util.PriorityQueue;
+import java.util.Queue;
+
+class PriorityNodeQueue implements NodeQueue {
+
+	private class UnsettledNode implements Comparable<UnsettledNode> {
+
+		private final int distance;
+		private final int node;
+		
+		public UnsettledNode(final int distance, final int node) {
+			this.distance = distance; this.node = node;
+		}
+
+		@Override
+		public int compareTo(final UnsettledNode other) {
+			return (distance - other.distance);
+		}
+	}
+	
+	private final Queue<UnsettledNode> unsettled_nodes_queue = 
+			new PriorityQueue<UnsettledNode>();
+
+	@Override
+	public void clear() {
+		unsettled_nodes_queue.clear();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return unsettled_nodes_queue.isEmpty();
+	}
+
+	@Override
+	public int size() {
+		return unsettled_nodes_queue.size();
+	}
+
+	@Override
+	public void offer(final int node, final int distance) {
+		unsettled_nodes_queue.add(new UnsettledNode(distance, node));
+	}
+
+	@Override
+	public int poll() {
+		return unsettled_nodes_queue.poll().node;
+	}
+}
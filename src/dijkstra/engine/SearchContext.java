@@ -0,0 +1,72 @@
+/*
+ * Per-query search state for the shareable engines: tentative distances,
+ * predecessors, settled flags and the queue, sized for one graph.
+ *
+ * Entries are only valid when their stamp equals the current epoch, so
+ * starting a new query costs O(1) instead of refilling the arrays. A context
+ * is used by one thread at a time; engines hand them out from a pool.
+ */
+
+package dijkstra.engine;
+
+import java.util.Arrays;
+
+final class SearchContext {
+
+	private final int[] distances;
+	private final int[] predecessors;
+
+	private final int[] reached_stamps;
+	private final int[] settled_stamps;
+
+	final IndexedDaryHeap queue;
+
+	private int epoch;
+
+	SearchContext(final int node_count) {
+		distances = new int[node_count];
+		predecessors = new int[node_count];
+		reached_stamps = new int[node_count];
+		settled_stamps = new int[node_count];
+
+		queue = new IndexedDaryHeap(node_count);
+	}
+
+	/* Invalidates the results of the previous query. */
+
+	void begin() {
+		epoch += 1;
+
+		if (0 == epoch) {
+			Arrays.fill(reached_stamps, 0);
+			Arrays.fill(settled_stamps, 0);
+			epoch = 1;
+		}
+
+		queue.clear();
+	}
+
+	int getDistance(final int node) {
+		return (reached_stamps[node] == epoch) ? distances[node]
+				: Integer.MAX_VALUE;
+	}
+
+	int getPredecessor(final int node) {
+		return (reached_stamps[node] == epoch) ? predecessors[node] : -1;
+	}
+
+	void setDistance(final int node, final int distance,
+			final int predecessor) {
+		reached_stamps[node] = epoch;
+		distances[node] = distance;
+		predecessors[node] = predecessor;
+	}
+
+	boolean isSettled(final int node) {
+		return (settled_stamps[node] == epoch);
+	}
+
+	void settle(final int node) {
+		settled_stamps[node] = epoch;
+	}
+}
@@ -0,0 +1,78 @@
+/*
+ * Immutable result of a single-source query: the distance and predecessor of
+ * every node, stored as flat int arrays indexed by vertex ordinal.
+ */
+
+package dijkstra.engine;
+
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+
+import dijkstra.model.Graph;
+import dijkstra.model.Vertex;
+
+public final class ShortestPathTree {
+
+	private final Graph graph;
+	private final int source;
+
+	private final int[] distances;
+	private final int[] predecessors;
+
+	ShortestPathTree(final Graph graph, final int source,
+			final int[] distances, final int[] predecessors) {
+		this.graph = graph;
+		this.source = source;
+		this.distances = distances;
+		this.predecessors = predecessors;
+	}
+
+	public int getSource() {
+		return source;
+	}
+
+	public int getNodeCount() {
+		return distances.length;
+	}
+
+	/* Integer.MAX_VALUE if the node cannot be reached */
+
+	public int getDistance(final int node_num) {
+		return distances[node_num];
+	}
+
+	public int getPredecessor(final int node_num) {
+		return predecessors[node_num];
+	}
+
+	/*
+	 * These methods return the path from the source to the selected target and
+	 * NULL if no path exists
+	 */
+
+	public List<Vertex> getPath(final Vertex target) {
+		int index = graph.indexOf(target);
+
+		if (0 > index)
+			throw new IllegalArgumentException("Unknown vertex: " + target);
+
+		return getPath(index);
+	}
+
+	public List<Vertex> getPath(final int node_num) {
+		final List<Vertex> nodes = graph.getVertexes();
+
+		LinkedList<Vertex> path = new LinkedList<Vertex>();
+		int step = node_num;
+		// check if a path exists
+		if (predecessors[step] == -1)
+			return null;
+		path.add(nodes.get(step));
+		while (predecessors[step] != -1) {
+			step = predecessors[step];
+			path.add(nodes.get(step));
+		}
+		return Collections.unmodifiableList(path);
+	}
+}
@@ -0,0 +1,165 @@
+/*
+ * Bounded cache of shortest path trees in front of a DijkstraAlgorithm.
+ *
+ * Trees are keyed by source and kept as ShortestPathTrees, i.e. one int[]
+ * of distances and one of predecessors each. Once more than 'capacity'
+ * trees are cached, the least recently used one is evicted. A path from a
+ * cached source costs only the walk along its predecessors.
+ *
+ * Misses run on a private copy of the engine, so the cache leaves the
+ * engine's own getPath() results alone. Any change to the engine that can
+ * alter shortest paths (removeNode(), restoreNode(),
+ * DynamicDijkstraAlgorithm.setEdgeWeight()) empties the cache and
+ * retires the copy on the next lookup. Like the engine itself, the cache
+ * is not thread-safe; use ConcurrentDijkstraAlgorithm for shared access.
+ */
+
+package dijkstra.engine;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import dijkstra.model.Vertex;
+
+public class ShortestPathTreeCache {
+
+	private final DijkstraAlgorithm engine;
+	private final int capacity;
+
+	private final Map<Integer, ShortestPathTree> trees;
+
+	/* Copy of the engine at modification_count, made on the first miss */
+
+	private DijkstraAlgorithm searcher;
+
+	/* Engine modification count the cached trees were computed at */
+
+	private int modification_count;
+
+	private long hits;
+	private long misses;
+	private long evictions;
+	private long invalidations;
+
+	public ShortestPathTreeCache(final DijkstraAlgorithm engine,
+			final int capacity) {
+		if (1 > capacity)
+			throw new IllegalArgumentException(
+					"Capacity must be >= 1: " + capacity);
+
+		this.engine = engine;
+		this.capacity = capacity;
+
+		modification_count = engine.modification_count;
+
+		trees = new LinkedHashMap<Integer, ShortestPathTree>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(
+					final Map.Entry<Integer, ShortestPathTree> eldest) {
+				if (size() <= ShortestPathTreeCache.this.capacity)
+					return false;
+
+				evictions += 1;
+				return true;
+			}
+		};
+	}
+
+	public DijkstraAlgorithm getEngine() {
+		return engine;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public int size() {
+		checkModifications();
+		return trees.size();
+	}
+
+	/* Returns the cached tree for the source, running the engine on a miss */
+
+	public ShortestPathTree getTree(final int source) {
+		checkModifications();
+
+		ShortestPathTree tree = trees.get(source);
+
+		if (null != tree) {
+			hits += 1;
+			return tree;
+		}
+
+		misses += 1;
+
+		if (null == searcher)
+			searcher = new DijkstraAlgorithm(engine);
+
+		searcher.execute(source);
+
+		tree = new ShortestPathTree(engine.graph, source,
+				searcher.distances_from_source.clone(),
+				searcher.predecessors.clone());
+
+		trees.put(source, tree);
+
+		return tree;
+	}
+
+	public ShortestPathTree getTree(final Vertex source) {
+		return getTree(engine.indexOf(source));
+	}
+
+	/*
+	 * These methods return the path from the source to the selected target and
+	 * NULL if no path exists
+	 */
+
+	public List<Vertex> getPath(final int source, final int target) {
+		return getTree(source).getPath(target);
+	}
+
+	public List<Vertex> getPath(final Vertex source, final Vertex target) {
+		return getTree(source).getPath(target);
+	}
+
+	public void clear() {
+		trees.clear();
+	}
+
+	private void checkModifications() {
+		if (modification_count == engine.modification_count)
+			return;
+
+		modification_count = engine.modification_count;
+		searcher = null;
+
+		if (false == trees.isEmpty()) {
+			invalidations += 1;
+			trees.clear();
+		}
+	}
+
+	/* -------------------------------------------------------------------- */
+
+	public long getHitCount() {
+		return hits;
+	}
+
+	public long getMissCount() {
+		return misses;
+	}
+
+	public long getEvictionCount() {
+		return evictions;
+	}
+
+	/* Number of times a change to the engine emptied the cache */
+
+	public long getInvalidationCount() {
+		return invalidations;
+	}
+}
@@ -0,0 +1,104 @@
+/*
+ * SearchMetrics that adds everything up. Counters are LongAdders, so
+ * engines on many threads can share one instance without contending; each
+ * engine usually gets its own to keep its latency histogram separate. See
+ * JmxSearchMetrics to publish the totals.
+ */
+
+package dijkstra.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class CountingSearchMetrics implements SearchMetrics {
+
+	private final LongAdder queries = new LongAdder();
+	private final LongAdder settled = new LongAdder();
+	private final LongAdder relaxations = new LongAdder();
+	private final LongAdder pushes = new LongAdder();
+	private final LongAdder polls = new LongAdder();
+	private final LongAdder stale_polls = new LongAdder();
+	private final LongAdder rounds = new LongAdder();
+	private final LongAdder barrier_wait_nanos = new LongAdder();
+
+	private final LatencyHistogram latencies = new LatencyHistogram();
+
+	@Override
+	public boolean isEnabled() {
+		return true;
+	}
+
+	@Override
+	public void recordQuery(final long elapsed_nanos, final int settled,
+			final int relaxations, final int pushes, final int polls,
+			final int stale_polls) {
+		queries.increment();
+		this.settled.add(settled);
+		this.relaxations.add(relaxations);
+		this.pushes.add(pushes);
+		this.polls.add(polls);
+		this.stale_polls.add(stale_polls);
+
+		latencies.record(elapsed_nanos);
+	}
+
+	@Override
+	public void recordRounds(final int rounds) {
+		this.rounds.add(rounds);
+	}
+
+	@Override
+	public void recordBarrierWait(final long wait_nanos) {
+		barrier_wait_nanos.add(wait_nanos);
+	}
+
+	/* -------------------------------------------------------------------- */
+
+	public long getQueryCount() {
+		return queries.sum();
+	}
+
+	public long getSettledCount() {
+		return settled.sum();
+	}
+
+	public long getRelaxationCount() {
+		return relaxations.sum();
+	}
+
+	public long getPushCount() {
+		return pushes.sum();
+	}
+
+	public long getPollCount() {
+		return polls.sum();
+	}
+
+	public long getStalePollCount() {
+		return stale_polls.sum();
+	}
+
+	public long getRoundCount() {
+		return rounds.sum();
+	}
+
+	public long getBarrierWaitNanos() {
+		return barrier_wait_nanos.sum();
+	}
+
+	public LatencyHistogram getLatencyHistogram() {
+		return latencies;
+	}
+
+	public void reset() {
+		queries.reset();
+		settled.reset();
+		relaxations.reset();
+		pushes.reset();
+		polls.reset();
+		stale_polls.reset();
+		rounds.reset();
+		barrier_wait_nanos.reset();
+
+		latencies.reset();
+	}
+}
@@ -0,0 +1,131 @@
+/*
+ * Publishes a CountingSearchMetrics on the platform MBeanServer under
+ * dijkstra:type=SearchMetrics,name=<name>, e.g. for jconsole.
+ */
+
+package dijkstra.metrics;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+public class JmxSearchMetrics implements SearchMetricsMXBean {
+
+	private final CountingSearchMetrics metrics;
+
+	private ObjectName object_name;
+
+	public JmxSearchMetrics(final CountingSearchMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	public synchronized ObjectName register(final String name) {
+		if (null != object_name)
+			throw new IllegalStateException("Already registered as "
+					+ object_name);
+
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+		try {
+			ObjectName object_name = new ObjectName(
+					"dijkstra:type=SearchMetrics,name=" + ObjectName.quote(name));
+
+			server.registerMBean(this, object_name);
+			this.object_name = object_name;
+		} catch (JMException ex) {
+			throw new IllegalStateException(
+					"Cannot register search metrics " + name, ex);
+		}
+
+		return object_name;
+	}
+
+	public synchronized void unregister() {
+		if (null == object_name)
+			return;
+
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(
+					object_name);
+		} catch (JMException ex) {
+			throw new IllegalStateException(
+					"Cannot unregister " + object_name, ex);
+		} finally {
+			object_name = null;
+		}
+	}
+
+	/* -------------------------------------------------------------------- */
+
+	@Override
+	public long getQueryCount() {
+		return metrics.getQueryCount();
+	}
+
+	@Override
+	public long getSettledCount() {
+		return metrics.getSettledCount();
+	}
+
+	@Override
+	public long getRelaxationCount() {
+		return metrics.getRelaxationCount();
+	}
+
+	@Override
+	public long getPushCount() {
+		return metrics.getPushCount();
+	}
+
+	@Override
+	public long getPollCount() {
+		return metrics.getPollCount();
+	}
+
+	@Override
+	public long getStalePollCount() {
+		return metrics.getStalePollCount();
+	}
+
+	@Override
+	public long getRoundCount() {
+		return metrics.getRoundCount();
+	}
+
+	@Override
+	public long getBarrierWaitNanos() {
+		return metrics.getBarrierWaitNanos();
+	}
+
+	@Override
+	public double getMeanLatencyNanos() {
+		return metrics.getLatencyHistogram().getMean();
+	}
+
+	@Override
+	public long getMedianLatencyNanos() {
+		return metrics.getLatencyHistogram().getValueAtPercentile(50.0);
+	}
+
+	@Override
+	public long getP99LatencyNanos() {
+		return metrics.getLatencyHistogram().getValueAtPercentile(99.0);
+	}
+
+	@Override
+	public long getP999LatencyNanos() {
+		return metrics.getLatencyHistogram().getValueAtPercentile(99.9);
+	}
+
+	@Override
+	public long getMaxLatencyNanos() {
+		return metrics.getLatencyHistogram().getMax();
+	}
+
+	@Override
+	public void reset() {
+		metrics.reset();
+	}
+}
@@ -0,0 +1,118 @@
+/*
+ * Thread-safe histogram of non-negative long values (latencies in
+ * nanoseconds) with HDR-style log-linear buckets.
+ *
+ * Every power of two is divided into SUB_BUCKET_COUNT equal buckets, so a
+ * recorded value is known to within 1 / SUB_BUCKET_COUNT (about 3%) of
+ * itself across the whole long range, in a fixed 15 KB of counters.
+ * Recording is a few shifts and one atomic increment.
+ */
+
+package dijkstra.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+	/* Values below SUB_BUCKET_COUNT get a bucket each, then one group of
+	 * buckets per power of two up to 2^62 */
+
+	private static final int BUCKET_COUNT =
+			SUB_BUCKET_COUNT + ((63 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT);
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sum = new LongAdder();
+	private final AtomicLong max = new AtomicLong();
+
+	static int bucketOf(final long value) {
+		if (value < SUB_BUCKET_COUNT)
+			return (int) value;
+
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int shift = exponent - SUB_BUCKET_BITS;
+
+		return SUB_BUCKET_COUNT + (shift * SUB_BUCKET_COUNT)
+				+ (int) ((value >>> shift) - SUB_BUCKET_COUNT);
+	}
+
+	/* Largest value that falls into the bucket */
+
+	static long highestValueOf(final int bucket) {
+		if (bucket < SUB_BUCKET_COUNT)
+			return bucket;
+
+		int shift = (bucket - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT;
+		long mantissa = SUB_BUCKET_COUNT
+				+ ((bucket - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT);
+
+		return ((mantissa + 1) << shift) - 1;
+	}
+
+	public void record(final long value) {
+		if (0 > value)
+			throw new IllegalArgumentException("Negative value: " + value);
+
+		counts.incrementAndGet(bucketOf(value));
+		count.increment();
+		sum.add(value);
+
+		long current = max.get();
+		while ((value > current) && (false == max.compareAndSet(current, value)))
+			current = max.get();
+	}
+
+	public long getCount() {
+		return count.sum();
+	}
+
+	public long getMax() {
+		return max.get();
+	}
+
+	public double getMean() {
+		long n = count.sum();
+		return (0 == n) ? 0.0 : ((double) sum.sum() / n);
+	}
+
+	/*
+	 * Smallest bucket bound that at least the given percentage (0 - 100) of
+	 * the recorded values do not exceed; 0 if nothing was recorded.
+	 */
+
+	public long getValueAtPercentile(final double percentile) {
+		long total = 0;
+		for (int b = 0; b < BUCKET_COUNT; b++)
+			total += counts.get(b);
+
+		if (0 == total)
+			return 0;
+
+		double fraction = Math.min(100.0, Math.max(0.0, percentile)) / 100.0;
+		long wanted = Math.max(1, (long) Math.ceil(fraction * total));
+
+		long seen = 0;
+		for (int b = 0; b < BUCKET_COUNT; b++) {
+			seen += counts.get(b);
+			if (seen >= wanted)
+				return Math.min(highestValueOf(b), max.get());
+		}
+
+		return max.get();
+	}
+
+	public void reset() {
+		for (int b = 0; b < BUCKET_COUNT; b++)
+			counts.set(b, 0);
+
+		count.reset();
+		sum.reset();
+		max.set(0);
+	}
+}
@@ -0,0 +1,58 @@
+/*
+ * Receiver of per-query statistics from the engines.
+ *
+ * Engines count into local variables while they search and report once per
+ * query, so an implementation is called a handful of times per query, never
+ * per node. When isEnabled() is false the engines also skip the clock
+ * reads, which makes DISABLED (the default everywhere) close to free.
+ * Implementations must be thread-safe: the parallel and concurrent engines
+ * report from pool threads.
+ */
+
+package dijkstra.metrics;
+
+public interface SearchMetrics {
+
+	SearchMetrics DISABLED = new SearchMetrics() {
+		@Override
+		public boolean isEnabled() {
+			return false;
+		}
+
+		@Override
+		public void recordQuery(final long elapsed_nanos, final int settled,
+				final int relaxations, final int pushes, final int polls,
+				final int stale_polls) {
+		}
+
+		@Override
+		public void recordRounds(final int rounds) {
+		}
+
+		@Override
+		public void recordBarrierWait(final long wait_nanos) {
+		}
+	};
+
+	boolean isEnabled();
+
+	/*
+	 * One finished query: its wall-clock time, the nodes it settled, the
+	 * edges it scanned, the queue insertions and removals, and how many of
+	 * the removals were stale entries for already settled nodes.
+	 */
+
+	void recordQuery(long elapsed_nanos, int settled, int relaxations,
+			int pushes, int polls, int stale_polls);
+
+	/* Synchronization rounds of a ParallelDijkstraAlgorithm query */
+
+	void recordRounds(int rounds);
+
+	/*
+	 * Time the threads of a ParallelDijkstraAlgorithm query spent blocked,
+	 * summed over its per-round barrier and the barrier ending the query
+	 */
+
+	void recordBarrierWait(long wait_nanos);
+}
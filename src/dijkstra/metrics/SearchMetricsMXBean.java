@@ -0,0 +1,36 @@
+/*
+ * JMX view of a CountingSearchMetrics; see JmxSearchMetrics.
+ */
+
+package dijkstra.metrics;
+
+public interface SearchMetricsMXBean {
+
+	long getQueryCount();
+
+	long getSettledCount();
+
+	long getRelaxationCount();
+
+	long getPushCount();
+
+	long getPollCount();
+
+	long getStalePollCount();
+
+	long getRoundCount();
+
+	long getBarrierWaitNanos();
+
+	double getMeanLatencyNanos();
+
+	long getMedianLatencyNanos();
+
+	long getP99LatencyNanos();
+
+	long getP999LatencyNanos();
+
+	long getMaxLatencyNanos();
+
+	void reset();
+}
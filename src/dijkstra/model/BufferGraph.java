@@ -0,0 +1,169 @@
+/*
+ * CSR graph whose arrays live in IntBuffers instead of int[]s, so they can
+ * be backed by a memory-mapped file (GraphFile.map()) rather than the heap.
+ *
+ * The layout is that of CompressedGraph: the outgoing edges of vertex v
+ * occupy [offsets[v], offsets[v + 1]) of targets and weights. Vertex names
+ * are kept as UTF-8 in a byte buffer and only decoded on request, so
+ * nothing proportional to the graph size is allocated on the heap unless
+ * indexOf(String) is used.
+ *
+ * Instances are immutable and can be shared between engines and threads;
+ * only absolute gets are used on the buffers.
+ *
+ * Besides mapping a file, a BufferGraph can be copied off the heap with
+ * allocateDirect(), after which the Graph it came from can be dropped.
+ */
+
+package dijkstra.model;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import dijkstra.resources.DirectBuffers;
+
+public final class BufferGraph {
+
+	private final int vertex_count;
+	private final int edge_count;
+
+	private final IntBuffer offsets;
+	private final IntBuffer targets;
+	private final IntBuffer weights;
+
+	/* Name of vertex v: bytes [name_offsets[v], name_offsets[v + 1]) */
+
+	private final IntBuffer name_offsets;
+	private final ByteBuffer names;
+
+	private volatile SymbolTable symbol_table;
+
+	BufferGraph(final int vertex_count, final int edge_count,
+			final IntBuffer offsets, final IntBuffer targets,
+			final IntBuffer weights, final IntBuffer name_offsets,
+			final ByteBuffer names) {
+		this.vertex_count = vertex_count;
+		this.edge_count = edge_count;
+		this.offsets = offsets;
+		this.targets = targets;
+		this.weights = weights;
+		this.name_offsets = name_offsets;
+		this.names = names;
+	}
+
+	/*
+	 * Copies the CSR arrays and vertex names of the graph into direct
+	 * buffers. The names are encoded twice, to size the buffer and to fill
+	 * it, rather than kept on the heap in between.
+	 */
+
+	public static BufferGraph allocateDirect(final Graph graph) {
+		CompressedGraph compressed_graph = graph.getCompressedGraph();
+		List<Vertex> vertexes = graph.getVertexes();
+
+		final int vertex_count = vertexes.size();
+
+		IntBuffer name_offsets = DirectBuffers.allocateInts(vertex_count + 1);
+		long names_length = 0;
+
+		for (int v = 0; v < vertex_count; v++) {
+			name_offsets.put(v, (int) names_length);
+			names_length += encode(vertexes.get(v)).length;
+
+			if (names_length > Integer.MAX_VALUE)
+				throw new IllegalArgumentException("Vertex names exceed 2 GB");
+		}
+
+		name_offsets.put(vertex_count, (int) names_length);
+
+		ByteBuffer names = DirectBuffers.allocateBytes(names_length);
+
+		for (Vertex vertex : vertexes)
+			names.put(encode(vertex));
+
+		names.clear();
+
+		return new BufferGraph(vertex_count, compressed_graph.getEdgeCount(),
+				DirectBuffers.copyOf(compressed_graph.getOffsets()),
+				DirectBuffers.copyOf(compressed_graph.getTargets()),
+				DirectBuffers.copyOf(compressed_graph.getWeights()),
+				name_offsets, names);
+	}
+
+	private static byte[] encode(final Vertex vertex) {
+		String id = vertex.getId();
+		return (id == null) ? new byte[0] : id.getBytes(StandardCharsets.UTF_8);
+	}
+
+	public int getVertexCount() {
+		return vertex_count;
+	}
+
+	public int getEdgeCount() {
+		return edge_count;
+	}
+
+	/* The buffers are the internal ones and must not be modified */
+
+	public IntBuffer getOffsets() {
+		return offsets;
+	}
+
+	public IntBuffer getTargets() {
+		return targets;
+	}
+
+	public IntBuffer getWeights() {
+		return weights;
+	}
+
+	public int getOutDegree(final int vertex) {
+		return offsets.get(vertex + 1) - offsets.get(vertex);
+	}
+
+	public String getName(final int vertex) {
+		int start = name_offsets.get(vertex);
+		byte[] bytes = new byte[name_offsets.get(vertex + 1) - start];
+
+		ByteBuffer name = names.duplicate();
+		name.position(start);
+		name.get(bytes);
+
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/* A new Vertex named like the vertex; equal to the original one */
+
+	public Vertex getVertex(final int vertex) {
+		return new Vertex(getName(vertex));
+	}
+
+	/*
+	 * Ordinal of the vertex with the given name, -1 if there is none. The
+	 * first call builds a SymbolTable of all names on the heap.
+	 */
+
+	public int indexOf(final String name) {
+		SymbolTable symbols = symbol_table;
+
+		if (symbols == null)
+			symbols = buildSymbolTable();
+
+		return symbols.indexOf(name);
+	}
+
+	private synchronized SymbolTable buildSymbolTable() {
+		if (symbol_table == null) {
+			SymbolTable symbols = new SymbolTable(vertex_count);
+
+			for (int v = 0; v < vertex_count; v++)
+				symbols.intern(getName(v));
+
+			symbol_table = symbols;
+		}
+
+		return symbol_table;
+	}
+}
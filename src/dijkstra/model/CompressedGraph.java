@@ -0,0 +1,249 @@
+/*
+ * Compressed sparse row (CSR) form of a Graph.
+ *
+ * Vertices are identified by their dense ordinal, i.e. their position in
+ * Graph.getVertexes(). The outgoing edges of vertex v occupy the index range
+ * [offsets[v], offsets[v + 1]) of the targets and weights arrays.
+ *
+ * Instances are immutable and can be shared freely between engines and
+ * threads. The arrays handed out by the getters are the internal ones and
+ * must not be modified.
+ */
+
+package dijkstra.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public final class CompressedGraph {
+
+	private final int[] offsets;
+	private final int[] targets;
+	private final int[] weights;
+
+	private final int max_weight;
+
+	CompressedGraph(final int[] offsets, final int[] targets,
+			final int[] weights) {
+		this.offsets = offsets;
+		this.targets = targets;
+		this.weights = weights;
+
+		int max = 0;
+		for (int weight : weights)
+			if (weight > max)
+				max = weight;
+
+		this.max_weight = max;
+	}
+
+	/*
+	 * Groups the edges by source vertex with a counting sort, so the cost is
+	 * O(V + E) regardless of the vertex degrees. Large edge lists are sorted
+	 * in parallel; see GraphBuilder.groupBySource().
+	 */
+
+	static CompressedGraph build(final int vertex_count,
+			final List<Edge> edges, final Graph graph) {
+		final int edge_count = edges.size();
+
+		int[] sources = new int[edge_count];
+		int[] destinations = new int[edge_count];
+		int[] edge_weights = new int[edge_count];
+
+		int e = 0;
+
+		for (Edge edge : edges) {
+			sources[e] = graph.indexOf(edge.getSource());
+			destinations[e] = graph.indexOf(edge.getDestination());
+			edge_weights[e] = edge.getWeight();
+
+			if ((0 > sources[e]) || (0 > destinations[e]))
+				throw new IllegalArgumentException(
+						"Edge endpoint is not a vertex of the graph: " + edge);
+
+			e += 1;
+		}
+
+		int[] offsets = new int[vertex_count + 1];
+		int[] targets = new int[edge_count];
+		int[] weights = new int[edge_count];
+
+		GraphBuilder.groupBySource(vertex_count, sources, edge_count, offsets,
+				destinations, edge_weights, targets, weights);
+
+		return new CompressedGraph(offsets, targets, weights);
+	}
+
+	public int getVertexCount() {
+		return offsets.length - 1;
+	}
+
+	public int getEdgeCount() {
+		return targets.length;
+	}
+
+	public int getMaxWeight() {
+		return max_weight;
+	}
+
+	public int getOutDegree(final int vertex) {
+		return offsets[vertex + 1] - offsets[vertex];
+	}
+
+	public int[] getOffsets() {
+		return offsets;
+	}
+
+	public int[] getTargets() {
+		return targets;
+	}
+
+	public int[] getWeights() {
+		return weights;
+	}
+
+	/*
+	 * Returns the transposed graph, in which the edges of vertex v are the
+	 * incoming edges of v in this graph: targets hold the edge sources.
+	 */
+
+	public CompressedGraph reverse() {
+		final int vertex_count = getVertexCount();
+		final int edge_count = getEdgeCount();
+
+		int[] reverse_offsets = new int[vertex_count + 1];
+
+		for (int e = 0; e < edge_count; e++)
+			reverse_offsets[targets[e] + 1] += 1;
+
+		for (int v = 0; v < vertex_count; v++)
+			reverse_offsets[v + 1] += reverse_offsets[v];
+
+		int[] sources = new int[edge_count];
+		int[] reverse_weights = new int[edge_count];
+
+		int[] next = new int[vertex_count];
+		System.arraycopy(reverse_offsets, 0, next, 0, vertex_count);
+
+		for (int v = 0; v < vertex_count; v++) {
+			for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+				int slot = next[targets[e]]++;
+				sources[slot] = v;
+				reverse_weights[slot] = weights[e];
+			}
+		}
+
+		return new CompressedGraph(reverse_offsets, sources, reverse_weights);
+	}
+
+	/*
+	 * Equivalent of Graph.splitAdjacencies(): every vertex keeps its place in
+	 * both halves, but its edges are shuffled and divided between them.
+	 */
+
+	public List<CompressedGraph> split() {
+		final int vertex_count = getVertexCount();
+
+		Random rand = new Random();
+
+		int[] offsets1 = new int[vertex_count + 1];
+		int[] offsets2 = new int[vertex_count + 1];
+
+		for (int v = 0; v < vertex_count; v++) {
+			int degree = getOutDegree(v);
+			offsets1[v + 1] = offsets1[v] + (degree / 2);
+			offsets2[v + 1] = offsets2[v] + (degree - (degree / 2));
+		}
+
+		int[] targets1 = new int[offsets1[vertex_count]];
+		int[] weights1 = new int[offsets1[vertex_count]];
+		int[] targets2 = new int[offsets2[vertex_count]];
+		int[] weights2 = new int[offsets2[vertex_count]];
+
+		int[] order = new int[0];
+
+		for (int v = 0; v < vertex_count; v++) {
+			int first = offsets[v];
+			int degree = getOutDegree(v);
+
+			if (order.length < degree)
+				order = new int[degree];
+
+			for (int i = 0; i < degree; i++)
+				order[i] = first + i;
+
+			for (int i = degree - 1; i > 0; i--) {
+				int j = rand.nextInt(i + 1);
+				int swap = order[i]; order[i] = order[j]; order[j] = swap;
+			}
+
+			int half = degree / 2;
+
+			for (int i = 0; i < half; i++) {
+				targets1[offsets1[v] + i] = targets[order[i]];
+				weights1[offsets1[v] + i] = weights[order[i]];
+			}
+
+			for (int i = half; i < degree; i++) {
+				targets2[offsets2[v] + i - half] = targets[order[i]];
+				weights2[offsets2[v] + i - half] = weights[order[i]];
+			}
+		}
+
+		List<CompressedGraph> split_graphs = new ArrayList<CompressedGraph>(2);
+
+		split_graphs.add(new CompressedGraph(offsets1, targets1, weights1));
+		split_graphs.add(new CompressedGraph(offsets2, targets2, weights2));
+
+		return Collections.unmodifiableList(split_graphs);
+	}
+
+	public Cursor cursor() {
+		return new Cursor();
+	}
+
+	/* EdgeCursor over the CSR arrays; edge() is the CSR edge index */
+
+	public final class Cursor implements EdgeCursor {
+
+		private int edge;
+		private int last_edge;
+
+		private Cursor() {
+		}
+
+		@Override
+		public Cursor reset(final int vertex) {
+			edge = offsets[vertex] - 1;
+			last_edge = offsets[vertex + 1] - 1;
+			return this;
+		}
+
+		@Override
+		public boolean next() {
+			if (edge == last_edge)
+				return false;
+
+			edge += 1;
+			return true;
+		}
+
+		@Override
+		public int edge() {
+			return edge;
+		}
+
+		@Override
+		public int target() {
+			return targets[edge];
+		}
+
+		@Override
+		public int weight() {
+			return weights[edge];
+		}
+	}
+}
@@ -10,21 +10,93 @@
 
 package dijkstra.model;
 
+import java.util.List;
+
 public class Edge {
+	
+	/* Null for edges created without an id; see getId() */
+	
 	private final String id;
 	private final Vertex source;
 	private final Vertex destination;
 	private final int weight;
+	
+	/* Vertex list positions of a lane made by Graph.addLane(), -1 for other
+	 * edges */
+	
+	private final int source_index;
+	private final int destination_index;
+	
+	/* Id built by getId() when none was given, kept for later calls */
+	
+	private String made_up_id;
 
 	public Edge(String id, Vertex source, Vertex destination, int weight) {
+		this(id, source, destination, weight, -1, -1);
+	}
+	
+	private Edge(String id, Vertex source, Vertex destination, int weight,
+			int source_index, int destination_index) {
 		this.id = id;
 		this.source = source;
 		this.destination = destination;
 		this.weight = weight;
+		this.source_index = source_index;
+		this.destination_index = destination_index;
+	}
+	
+	/*
+	 * Edge without an id. Two such edges are equal if they have the same
+	 * endpoints and weight; no String is built unless getId() is called.
+	 */
+	
+	public Edge(Vertex source, Vertex destination, int weight) {
+		this(null, source, destination, weight);
+	}
+	
+	/*
+	 * Lane from Graph.addLane(). Its id is "Lane_<source>_<destination>"
+	 * of the list positions, as it always was, and it is equal to any edge
+	 * with that id, but the String is only built when first needed.
+	 */
+	
+	static Edge lane(List<Vertex> nodes, int source, int destination,
+			int weight) {
+		return new Edge(null, nodes.get(source), nodes.get(destination),
+				weight, source, destination);
 	}
 
+	/*
+	 * The id given on construction, the lane id, or for other edges without
+	 * an id one made up from the endpoints
+	 */
+	
 	public String getId() {
-		return id;
+		if (id != null)
+			return id;
+		
+		String made_up_id = this.made_up_id;
+		
+		if (made_up_id == null) {
+			if (isLane())
+				made_up_id = "Lane_" + source_index + "_" + destination_index;
+			else
+				made_up_id = "Lane_" + source + "_" + destination;
+			
+			/* Racing threads build equal Strings; either one will do */
+			
+			this.made_up_id = made_up_id;
+		}
+		
+		return made_up_id;
+	}
+	
+	public boolean hasId() {
+		return (id != null) || isLane();
+	}
+	
+	private boolean isLane() {
+		return (0 <= source_index);
 	}
 
 	public Vertex getDestination() {
@@ -48,7 +120,13 @@ public class Edge {
 	public int hashCode() {
 		final int prime = 31;
 		int result = 1;
-		result = prime * result + ((id == null) ? 0 : id.hashCode());
+		if (hasId()) {
+			result = prime * result + getId().hashCode();
+		} else {
+			result = prime * result + source.hashCode();
+			result = prime * result + destination.hashCode();
+			result = prime * result + weight;
+		}
 		return result;
 	}
 
@@ -61,11 +139,13 @@ public class Edge {
 		if (getClass() != obj.getClass())
 			return false;
 		Edge other = (Edge) obj;
-		if (id == null) {
-			if (other.id != null)
-				return false;
-		} else if (!id.equals(other.id))
-			return false;
-		return true;
+		if (isLane() && other.isLane())
+			return (source_index == other.source_index)
+					&& (destination_index == other.destination_index);
+		if (hasId() || other.hasId())
+			return hasId() && other.hasId() && getId().equals(other.getId());
+		return source.equals(other.source)
+				&& destination.equals(other.destination)
+				&& (weight == other.weight);
 	}
 }
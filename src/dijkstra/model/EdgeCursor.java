@@ -0,0 +1,25 @@
+/*
+ * Walks the outgoing edges of one vertex at a time, whatever the layout of
+ * the adjacency: reset(v) moves to the edges of v and every next() that
+ * returns true makes the following edge current.
+ *
+ * edge() is the index of the current edge in the graph the cursor belongs
+ * to, which is the CSR edge index for CompressedGraph cursors. A cursor
+ * holds the position of one walk and is not thread-safe; every search uses
+ * its own.
+ */
+
+package dijkstra.model;
+
+public interface EdgeCursor {
+
+	EdgeCursor reset(int vertex);
+
+	boolean next();
+
+	int edge();
+
+	int target();
+
+	int weight();
+}
@@ -0,0 +1,289 @@
+/*
+ * Compressed form of a CompressedGraph for graphs whose searches are bound
+ * by memory traffic rather than by computation.
+ *
+ * The outgoing edges of every vertex are sorted by target. The first target
+ * is stored as its zigzag-encoded difference from the vertex itself and the
+ * others as the gap to the previous target, all as LEB128 varints, so the
+ * neighbours of a vertex in a graph with locality take one or two bytes
+ * each instead of four. Weights are stored as their difference from the
+ * smallest weight, bit-packed with just enough bits for the largest one;
+ * if every weight is the same no bits are stored at all.
+ *
+ * Edges are walked with a Cursor, which decodes in place and allocates
+ * nothing. Since the edges of a vertex are reordered, edge indexes are not
+ * those of the CompressedGraph.
+ *
+ * Instances are immutable and can be shared between engines and threads;
+ * each thread walks the edges with a cursor of its own.
+ */
+
+package dijkstra.model;
+
+import java.util.Arrays;
+
+public final class EncodedGraph {
+
+	private final int vertex_count;
+	private final int edge_count;
+
+	/* Edges of vertex v: edges [edge_offsets[v], edge_offsets[v + 1]),
+	 * target bytes [byte_offsets[v], byte_offsets[v + 1]) */
+
+	private final int[] edge_offsets;
+	private final int[] byte_offsets;
+	private final byte[] target_bytes;
+
+	private final int min_weight;
+	private final int weight_bits;
+	private final long[] packed_weights;
+
+	private EncodedGraph(final int[] edge_offsets, final int[] byte_offsets,
+			final byte[] target_bytes, final int min_weight,
+			final int weight_bits, final long[] packed_weights) {
+		this.vertex_count = edge_offsets.length - 1;
+		this.edge_count = edge_offsets[vertex_count];
+		this.edge_offsets = edge_offsets;
+		this.byte_offsets = byte_offsets;
+		this.target_bytes = target_bytes;
+		this.min_weight = min_weight;
+		this.weight_bits = weight_bits;
+		this.packed_weights = packed_weights;
+	}
+
+	public static EncodedGraph encode(final CompressedGraph compressed_graph) {
+		final int vertex_count = compressed_graph.getVertexCount();
+		final int edge_count = compressed_graph.getEdgeCount();
+
+		final int[] offsets = compressed_graph.getOffsets();
+		final int[] targets = compressed_graph.getTargets();
+		final int[] weights = compressed_graph.getWeights();
+
+		int min = (0 == edge_count) ? 0 : Integer.MAX_VALUE;
+		int max = 0;
+
+		for (int e = 0; e < edge_count; e++) {
+			min = Math.min(min, weights[e]);
+			max = Math.max(max, weights[e]);
+		}
+
+		final int weight_bits = 32 - Integer.numberOfLeadingZeros(max - min);
+
+		long[] packed_weights = new long[(int) (((long) edge_count
+				* weight_bits + 63) >>> 6)];
+
+		/* Sort each vertex's edges by target, then by weight, packed into
+		 * longs; sizes are taken first so the bytes are allocated once */
+
+		long[] edges = new long[edge_count];
+
+		for (int v = 0; v < vertex_count; v++) {
+			for (int e = offsets[v]; e < offsets[v + 1]; e++)
+				edges[e] = ((long) targets[e] << 32) | weights[e];
+
+			Arrays.sort(edges, offsets[v], offsets[v + 1]);
+		}
+
+		int[] byte_offsets = new int[vertex_count + 1];
+
+		for (int v = 0; v < vertex_count; v++) {
+			long end = byte_offsets[v];
+			int previous = v;
+
+			for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+				int target = (int) (edges[e] >>> 32);
+				end += varintLength(gap(v, e == offsets[v], previous, target));
+				previous = target;
+			}
+
+			if (end > Integer.MAX_VALUE)
+				throw new IllegalArgumentException(
+						"Encoded targets exceed 2 GB");
+
+			byte_offsets[v + 1] = (int) end;
+		}
+
+		byte[] target_bytes = new byte[byte_offsets[vertex_count]];
+
+		int position = 0;
+
+		for (int v = 0; v < vertex_count; v++) {
+			int previous = v;
+
+			for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+				int target = (int) (edges[e] >>> 32);
+
+				int value = gap(v, e == offsets[v], previous, target);
+
+				while (0 != (value & ~0x7F)) {
+					target_bytes[position++] = (byte) ((value & 0x7F) | 0x80);
+					value >>>= 7;
+				}
+
+				target_bytes[position++] = (byte) value;
+
+				if (0 < weight_bits)
+					pack(packed_weights, weight_bits, e, (int) edges[e] - min);
+
+				previous = target;
+			}
+		}
+
+		return new EncodedGraph(offsets.clone(), byte_offsets, target_bytes,
+				min, weight_bits, packed_weights);
+	}
+
+	/* Zigzag difference from the vertex for the first target, else the gap */
+
+	private static int gap(final int vertex, final boolean first,
+			final int previous, final int target) {
+		if (false == first)
+			return target - previous;
+
+		int difference = target - vertex;
+		return (difference << 1) ^ (difference >> 31);
+	}
+
+	private static int varintLength(final int value) {
+		int length = 1;
+
+		for (int rest = value >>> 7; 0 != rest; rest >>>= 7)
+			length += 1;
+
+		return length;
+	}
+
+	private static void pack(final long[] words, final int bits,
+			final int index, final int value) {
+		long bit = (long) index * bits;
+		int word = (int) (bit >>> 6);
+		int shift = (int) (bit & 63);
+
+		words[word] |= ((long) value) << shift;
+
+		if (64 < (shift + bits))
+			words[word + 1] |= ((long) value) >>> (64 - shift);
+	}
+
+	/* -------------------------------------------------------------------- */
+
+	public int getVertexCount() {
+		return vertex_count;
+	}
+
+	public int getEdgeCount() {
+		return edge_count;
+	}
+
+	public int getOutDegree(final int vertex) {
+		return edge_offsets[vertex + 1] - edge_offsets[vertex];
+	}
+
+	/* Bits per packed weight, 0 if all weights are the same */
+
+	public int getWeightBits() {
+		return weight_bits;
+	}
+
+	/* Bytes taken by the arrays, to compare with 4 * (V + 1 + 2E) for CSR */
+
+	public long getByteSize() {
+		return 4L * (edge_offsets.length + byte_offsets.length)
+				+ target_bytes.length + 8L * packed_weights.length;
+	}
+
+	public Cursor cursor() {
+		return new Cursor();
+	}
+
+	/*
+	 * Walks the outgoing edges of one vertex at a time:
+	 *
+	 *   cursor.reset(v);
+	 *   while (cursor.next())
+	 *       ... cursor.target(), cursor.weight() ...
+	 *
+	 * A cursor is not thread-safe but can be reset any number of times.
+	 * edge() is the index of the edge in this encoding, in which the edges
+	 * of a vertex are sorted by target, not the CSR edge index.
+	 */
+
+	public final class Cursor implements EdgeCursor {
+
+		private int vertex;
+		private int first_edge;
+		private int edge;
+		private int last_edge;
+		private int position;
+
+		private int target;
+		private int weight;
+
+		private Cursor() {
+		}
+
+		@Override
+		public Cursor reset(final int vertex) {
+			this.vertex = vertex;
+			first_edge = edge_offsets[vertex];
+			edge = first_edge;
+			last_edge = edge_offsets[vertex + 1];
+			position = byte_offsets[vertex];
+			return this;
+		}
+
+		@Override
+		public boolean next() {
+			if (edge == last_edge)
+				return false;
+
+			final byte[] bytes = target_bytes;
+
+			int b = bytes[position++];
+			int value = b & 0x7F;
+
+			for (int shift = 7; 0 > b; shift += 7) {
+				b = bytes[position++];
+				value |= (b & 0x7F) << shift;
+			}
+
+			if (edge == first_edge)
+				target = vertex + ((value >>> 1) ^ -(value & 1));
+			else
+				target += value;
+
+			if (0 == weight_bits) {
+				weight = min_weight;
+			} else {
+				long bit = (long) edge * weight_bits;
+				int word = (int) (bit >>> 6);
+				int shift = (int) (bit & 63);
+
+				long bits = packed_weights[word] >>> shift;
+
+				if (64 < (shift + weight_bits))
+					bits |= packed_weights[word + 1] << (64 - shift);
+
+				weight = min_weight + (int) (bits & ((1L << weight_bits) - 1));
+			}
+
+			edge += 1;
+			return true;
+		}
+
+		@Override
+		public int edge() {
+			return edge - 1;
+		}
+
+		@Override
+		public int target() {
+			return target;
+		}
+
+		@Override
+		public int weight() {
+			return weight;
+		}
+	}
+}
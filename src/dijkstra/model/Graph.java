@@ -17,27 +17,51 @@
 package dijkstra.model;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import java.util.concurrent.ForkJoinPool;
-import java.util.concurrent.RecursiveTask;
-
 public class Graph {
 	
 	private final List<Vertex> vertexes;
 	private final List<Edge> edges;
 
+	/*
+	 * Vertexes that no graph has numbered yet are given their position in
+	 * this one as their ordinal, which stays with the Vertex object for
+	 * good: later graphs over the same objects find them by id instead,
+	 * see indexOf(Vertex).
+	 */
+
 	public Graph(List<Vertex> vertexes, List<Edge> edges) {
 		this.vertexes = vertexes;
 		this.edges = edges;		
+		
+		assignOrdinals();
+	}
+	
+	/* Used by GraphBuilder, which computes the CSR form up front */
+	
+	Graph(List<Vertex> vertexes, List<Edge> edges,
+			CompressedGraph compressed_graph) {
+		this(vertexes, edges);
+		this.compressed_graph = compressed_graph;
 	}
 	
 	public Graph(Graph other) {
 		this.vertexes = new ArrayList<Vertex>(other.vertexes);
 		this.edges = new ArrayList<Edge>(other.edges);
+		
+		assignOrdinals();
+	}
+	
+	/* Vertexes already numbered by another graph keep their ordinal */
+	
+	private void assignOrdinals() {
+		for (int n = 0; n < vertexes.size(); n++)
+			vertexes.get(n).assignOrdinal(n);
 	}
 
 	public List<Vertex> getVertexes() {
@@ -50,102 +74,204 @@ public class Graph {
 	
 	public static final void addLane(List<Edge> edges, final List<Vertex> nodes, 
 			final int source, final int dest, final int cost) {
-		String laneId = String.format("Lane_%d_%d", source, dest);
-		Edge lane = new Edge(laneId, nodes.get(source), nodes.get(dest), cost);
-		edges.add(lane);
-
-		laneId = String.format("Lane_%d_%d", dest, source);
-		lane = new Edge(laneId, nodes.get(dest), nodes.get(source), cost);
-		edges.add(lane);
+		edges.add(Edge.lane(nodes, source, dest, cost));
+		edges.add(Edge.lane(nodes, dest, source, cost));
 	}
 	
 	/* -------------------------------------------------------------------- */
 	
-	/* Tasking this was interesting but didn't save a significant amount of 
-	 * time when testing against the map node count for the SmashTV game.
-	 * Saved for future use (Project 2?)
-	 */
+	private Map<Vertex, List<Edge>> adjacencies;
 	
-	static ForkJoinPool fork_join_pool = 
-			dijkstra.resources.Concurrency.getForkJoinPool();
+	/*
+	 * Maps each vertex to its outgoing edges, in the order of getEdges().
+	 * The edges are grouped with the same counting sort as the CSR form,
+	 * so the cost is O(V + E).
+	 */
 	
-	private class VertexAdjacenciesTask extends
-			RecursiveTask<Map<Vertex, List<Edge>>> {
-
-		private final List<Vertex> vertices;
-		
-		private VertexAdjacenciesTask va1;
-		private VertexAdjacenciesTask va2;
+	public synchronized Map<Vertex, List<Edge>> getAdjacencies() {
 
-		public VertexAdjacenciesTask(final List<Vertex> vertices) {
-			this.vertices = vertices;
+		if (adjacencies == null) {
+			final int vertex_count = vertexes.size();
+			final int edge_count = edges.size();
+			
+			/* Edges leaving vertexes outside the graph go to an extra
+			 * bucket at the end, which is dropped */
 			
-			int mid = vertices.size() / 2;
+			int[] sources = new int[edge_count];
+			Edge[] edge_array = edges.toArray(new Edge[edge_count]);
 			
-			if(vertices.size() > 8) {
-				va1 = new VertexAdjacenciesTask(vertices
-						.subList(0, mid));
-				va2 = new VertexAdjacenciesTask(vertices
-						.subList(mid, vertices.size()));
+			for (int e = 0; e < edge_count; e++) {
+				int source = indexOf(edge_array[e].getSource());
+				sources[e] = (0 > source) ? vertex_count : source;
 			}
+			
+			int[] offsets = new int[vertex_count + 2];
+			int[] order = GraphBuilder.groupBySource(vertex_count + 1,
+					sources, edge_count, offsets);
+			
+			Edge[] sorted_edges = new Edge[edge_count];
+			
+			for (int slot = 0; slot < edge_count; slot++)
+				sorted_edges[slot] = edge_array[order[slot]];
+			
+			List<Edge> sorted_list = Arrays.asList(sorted_edges);
+			
+			adjacencies = new HashMap<Vertex, List<Edge>>(vertex_count * 2);
+			
+			for (int v = 0; v < vertex_count; v++)
+				adjacencies.put(vertexes.get(v), Collections.unmodifiableList(
+						sorted_list.subList(offsets[v], offsets[v + 1])));
 		}
 
-		@Override
-		public Map<Vertex, List<Edge>> compute() {
-			Map<Vertex, List<Edge>> adjacencies = 
-					new HashMap<Vertex, List<Edge>>();
-
-			if ((null != va1) && (null != va2)) {
-				va1.fork();
-				adjacencies.putAll(va2.compute());
-				adjacencies.putAll(va1.join());
-			} else {
-				for (Vertex vertex : vertices)
-					adjacencies.put(vertex, getVertexAdjacencies(vertex));
+		return Collections.unmodifiableMap(adjacencies);
+	}
+	
+	private Map<Vertex, List<Edge>> incoming_adjacencies;
+	
+	/*
+	 * Incoming-edge index: maps each vertex to the edges whose destination it
+	 * is. Built with a single pass over the edges.
+	 */
+	
+	public synchronized Map<Vertex, List<Edge>> getIncomingAdjacencies() {
+		
+		if (incoming_adjacencies == null) {
+			Map<Vertex, List<Edge>> incoming = 
+					new HashMap<Vertex, List<Edge>>(vertexes.size() * 2);
+			
+			for (Vertex vertex : vertexes)
+				incoming.put(vertex, new ArrayList<Edge>());
+			
+			for (Edge edge : edges) {
+				List<Edge> vertex_incoming = incoming.get(edge.getDestination());
+				if (vertex_incoming != null)
+					vertex_incoming.add(edge);
 			}
-
-			return Collections.unmodifiableMap(adjacencies);
+			
+			for (Map.Entry<Vertex, List<Edge>> entry : incoming.entrySet())
+				entry.setValue(Collections.unmodifiableList(entry.getValue()));
+			
+			incoming_adjacencies = incoming;
 		}
+		
+		return Collections.unmodifiableMap(incoming_adjacencies);
 	}
 	
 	/* -------------------------------------------------------------------- */
 	
-	private List<Edge> getVertexAdjacencies(final Vertex vertex) {
-		List<Edge> vertex_adjacencies = new ArrayList<Edge>();
+	private volatile SymbolTable symbol_table;
+	
+	/*
+	 * Returns the dense ordinal of the vertex, i.e. its position in
+	 * getVertexes(), or -1 if the vertex is not part of this graph. Safe to
+	 * call from concurrent queries.
+	 * 
+	 * The vertex's own ordinal answers without hashing whenever it was
+	 * assigned by this graph; other vertexes, e.g. equal copies or ones
+	 * shared with an earlier graph, are looked up by id, which finds the
+	 * first vertex with that id.
+	 */
+	
+	public int indexOf(final Vertex vertex) {
+		int ordinal = vertex.getOrdinal();
 		
-		for(Edge edge : edges) 
-			if(edge.getSource().equals(vertex))
-				vertex_adjacencies.add(edge);			
+		if ((0 <= ordinal) && (ordinal < vertexes.size())
+				&& (vertexes.get(ordinal) == vertex))
+			return ordinal;
 		
-		return Collections.unmodifiableList(vertex_adjacencies);
+		return indexOf(vertex.getId());
 	}
 	
-	private Map<Vertex, List<Edge>> adjacencies;
+	/* Ordinal of the first vertex with the given id, -1 if there is none */
 	
-	public Map<Vertex, List<Edge>> getAdjacencies() {
-
-		if (adjacencies == null) {
-			adjacencies = new HashMap<Vertex, List<Edge>>();
-
-			// long start_time = System.nanoTime();
-
-			// No tasking
-
-			for (Vertex vertex : vertexes)
-				adjacencies.put(vertex, getVertexAdjacencies(vertex));
-
-			// Fork/Join
-
-//			adjacencies = fork_join_pool
-//					.invoke(new VertexAdjacenciesTask(vertexes));
-
-			// System.out.println("getAdjacencies() time: "
-			// + (System.nanoTime() - start_time));
+	public int indexOf(final String id) {
+		int ordinal = getSymbolTable().indexOf(id);
+		
+		if ((0 > ordinal) || (null == symbol_positions))
+			return ordinal;
+		
+		return symbol_positions[ordinal];
+	}
+	
+	/*
+	 * Positions in getVertexes() by symbol table ordinal, null as long as
+	 * the ids are unique and the two are the same. Written before
+	 * symbol_table is published.
+	 */
+	
+	private int[] symbol_positions;
+	
+	/*
+	 * Vertex ids and their ordinals. Built once, on first use. An id that
+	 * repeats is in the table once, so the ordinals of later ids no longer
+	 * match positions; indexOf(String) maps them back, to the first vertex
+	 * with the id.
+	 */
+	
+	public SymbolTable getSymbolTable() {
+		SymbolTable symbols = symbol_table;
+		
+		if (symbols == null)
+			symbols = buildSymbolTable();
+		
+		return symbols;
+	}
+	
+	private synchronized SymbolTable buildSymbolTable() {
+		if (symbol_table == null) {
+			final int vertex_count = vertexes.size();
+			
+			SymbolTable symbols = new SymbolTable(vertex_count);
+			int[] positions = null;
+			
+			for (int n = 0; n < vertex_count; n++) {
+				int size = symbols.size();
+				int ordinal = symbols.intern(vertexes.get(n).getId());
+				
+				/* A repeated id stays with the first vertex; from here on
+				 * positions run ahead of ordinals */
+				
+				if (ordinal < size) {
+					if (null == positions) {
+						positions = new int[vertex_count];
+						
+						for (int k = 0; k < size; k++)
+							positions[k] = k;
+					}
+				} else if (null != positions) {
+					positions[ordinal] = n;
+				}
+			}
+			
+			symbol_positions = positions;
+			symbol_table = symbols;
 		}
-
-		return Collections.unmodifiableMap(adjacencies);
+		
+		return symbol_table;
+	}
+	
+	private CompressedGraph compressed_graph;
+	
+	public synchronized CompressedGraph getCompressedGraph() {
+		if (compressed_graph == null)
+			compressed_graph = CompressedGraph.build(vertexes.size(), edges, this);
+		
+		return compressed_graph;
+	}
+	
+	private CompressedGraph reverse_compressed_graph;
+	
+	/* CSR form of getIncomingAdjacencies(); see CompressedGraph.reverse(). */
+	
+	public synchronized CompressedGraph getReverseCompressedGraph() {
+		if (reverse_compressed_graph == null)
+			reverse_compressed_graph = getCompressedGraph().reverse();
+		
+		return reverse_compressed_graph;
 	}
 	
+	/* -------------------------------------------------------------------- */
+	
 	public static List<Map<Vertex, List<Edge>>> 
 			splitAdjacencies(Map<Vertex, List<Edge>> adjacencies) {
 
@@ -0,0 +1,408 @@
+/*
+ * Builds a Graph from edges given as vertex ordinals, going straight to the
+ * CSR form without a per-edge lookup.
+ *
+ * Edges are grouped by source with a counting sort over the shared
+ * ForkJoinPool: every chunk of the edges counts its sources into its own
+ * histogram, one prefix sum over all histograms gives each chunk its slots,
+ * and the chunks then scatter their edges in parallel. The sort is stable,
+ * so the result is the same for any number of threads.
+ *
+ * Duplicate edges, i.e. several edges with the same source and
+ * destination, are merged into the lightest one unless deduplication is
+ * turned off. That takes the place of checking edges.contains() for every
+ * edge while generating a graph.
+ *
+ * The Edge objects of the built graph are created on demand by
+ * getEdges(); engines only use the CSR arrays.
+ *
+ * build() moves the edges straight into the CSR arrays and then drops its
+ * own lists, so it needs room for the 3E ints of the lists plus the 2E of
+ * the result while it runs, and the builder is empty afterwards.
+ */
+
+package dijkstra.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import dijkstra.resources.IntList;
+
+public final class GraphBuilder {
+
+	/* Edges per chunk below which the sort runs on the calling thread */
+
+	private static final int SEQUENTIAL_THRESHOLD = 1 << 16;
+
+	private static ForkJoinPool fork_join_pool =
+			dijkstra.resources.Concurrency.getForkJoinPool();
+
+	private final List<Vertex> vertexes;
+
+	private IntList sources = new IntList();
+	private IntList destinations = new IntList();
+	private IntList weights = new IntList();
+
+	private boolean deduplicate = true;
+
+	public GraphBuilder(final List<Vertex> vertexes) {
+		this.vertexes = vertexes;
+	}
+
+	public boolean isDeduplicate() {
+		return deduplicate;
+	}
+
+	public GraphBuilder setDeduplicate(final boolean deduplicate) {
+		this.deduplicate = deduplicate;
+		return this;
+	}
+
+	public List<Vertex> getVertexes() {
+		return vertexes;
+	}
+
+	public int getEdgeCount() {
+		return sources.size();
+	}
+
+	/* Makes room for edge_count edges, e.g. when the count is known upfront */
+
+	public GraphBuilder ensureCapacity(final int edge_count) {
+		sources.ensureCapacity(edge_count);
+		destinations.ensureCapacity(edge_count);
+		weights.ensureCapacity(edge_count);
+		return this;
+	}
+
+	public GraphBuilder addEdge(final int source, final int destination,
+			final int weight) {
+		checkVertex(source);
+		checkVertex(destination);
+
+		if (0 > weight)
+			throw new IllegalArgumentException("Negative weight: " + weight);
+
+		sources.add(source);
+		destinations.add(destination);
+		weights.add(weight);
+
+		return this;
+	}
+
+	/* Edges in both directions, like Graph.addLane() */
+
+	public GraphBuilder addLane(final int source, final int destination,
+			final int weight) {
+		addEdge(source, destination, weight);
+		return addEdge(destination, source, weight);
+	}
+
+	private void checkVertex(final int vertex) {
+		if ((0 > vertex) || (vertex >= vertexes.size()))
+			throw new IllegalArgumentException("Unknown vertex: " + vertex);
+	}
+
+	public Graph build() {
+		final int vertex_count = vertexes.size();
+		final int edge_count = sources.size();
+
+		int[] offsets = new int[vertex_count + 1];
+		int[] csr_targets = new int[edge_count];
+		int[] csr_weights = new int[edge_count];
+
+		groupBySource(vertex_count, sources.array(), edge_count, offsets,
+				destinations.array(), weights.array(), csr_targets,
+				csr_weights);
+
+		sources = new IntList();
+		destinations = new IntList();
+		weights = new IntList();
+
+		return build(vertexes, offsets, csr_targets, csr_weights,
+				deduplicate);
+	}
+
+	/* Graph over CSR arrays filled elsewhere, e.g. by GraphImporter */
+
+	static Graph build(final List<Vertex> vertexes, final int[] offsets,
+			final int[] targets, final int[] weights,
+			final boolean deduplicate) {
+		CompressedGraph compressed_graph = deduplicate
+				? deduplicate(offsets, targets, weights)
+				: new CompressedGraph(offsets, targets, weights);
+
+		return new Graph(vertexes, new EdgeList(vertexes, compressed_graph),
+				compressed_graph);
+	}
+
+	/* -------------------------------------------------------------------- */
+
+	/*
+	 * Stable counting sort of the edges [0, edge_count) by source. Fills
+	 * offsets (bucket_count + 1 entries) with the start of every bucket and
+	 * returns the edges in sorted order.
+	 */
+
+	static int[] groupBySource(final int bucket_count, final int[] sources,
+			final int edge_count, final int[] offsets) {
+		int[] order = new int[edge_count];
+
+		groupBySource(bucket_count, sources, edge_count, offsets,
+				new Scatter(order, null, null, null, null));
+
+		return order;
+	}
+
+	/*
+	 * The same sort, moving the destination and weight of every edge
+	 * straight to its slot in targets and weights instead of returning the
+	 * order, which saves the E ints of the order array.
+	 */
+
+	static void groupBySource(final int bucket_count, final int[] sources,
+			final int edge_count, final int[] offsets,
+			final int[] destinations, final int[] edge_weights,
+			final int[] targets, final int[] weights) {
+		groupBySource(bucket_count, sources, edge_count, offsets,
+				new Scatter(null, destinations, edge_weights, targets,
+						weights));
+	}
+
+	private static void groupBySource(final int bucket_count,
+			final int[] sources, final int edge_count, final int[] offsets,
+			final Scatter scatter) {
+		int chunk_count = Math.min(fork_join_pool.getParallelism(),
+				(edge_count + SEQUENTIAL_THRESHOLD - 1) / SEQUENTIAL_THRESHOLD);
+		chunk_count = Math.max(1, chunk_count);
+
+		int[][] histograms = new int[chunk_count][bucket_count];
+
+		SortTask count_task = new SortTask(sources, edge_count, histograms,
+				null, 0, chunk_count);
+
+		if (1 == chunk_count)
+			count_task.compute();
+		else
+			fork_join_pool.invoke(count_task);
+
+		/* Turn the counts into the first slot of every chunk in every
+		 * bucket; chunks of the same bucket follow each other in order. */
+
+		int next = 0;
+
+		for (int b = 0; b < bucket_count; b++) {
+			offsets[b] = next;
+
+			for (int c = 0; c < chunk_count; c++) {
+				int count = histograms[c][b];
+				histograms[c][b] = next;
+				next += count;
+			}
+		}
+
+		offsets[bucket_count] = next;
+
+		SortTask scatter_task = new SortTask(sources, edge_count, histograms,
+				scatter, 0, chunk_count);
+
+		if (1 == chunk_count)
+			scatter_task.compute();
+		else
+			fork_join_pool.invoke(scatter_task);
+	}
+
+	/*
+	 * Where the scatter pass puts an edge: its index into order, or its
+	 * destination and weight into targets and weights.
+	 */
+
+	private static final class Scatter {
+
+		final int[] order;
+
+		final int[] destinations;
+		final int[] edge_weights;
+		final int[] targets;
+		final int[] weights;
+
+		Scatter(final int[] order, final int[] destinations,
+				final int[] edge_weights, final int[] targets,
+				final int[] weights) {
+			this.order = order;
+			this.destinations = destinations;
+			this.edge_weights = edge_weights;
+			this.targets = targets;
+			this.weights = weights;
+		}
+	}
+
+	/*
+	 * Counts (scatter == null) or scatters the edges of chunks [from, to).
+	 * Chunk c covers the edges [c * n / chunks, (c + 1) * n / chunks).
+	 */
+
+	private static class SortTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int[] sources;
+		private final int edge_count;
+		private final int[][] histograms;
+		private final Scatter scatter;
+		private final int from;
+		private final int to;
+
+		SortTask(final int[] sources, final int edge_count,
+				final int[][] histograms, final Scatter scatter,
+				final int from, final int to) {
+			this.sources = sources;
+			this.edge_count = edge_count;
+			this.histograms = histograms;
+			this.scatter = scatter;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (1 < (to - from)) {
+				int mid = (from + to) >>> 1;
+
+				invokeAll(new SortTask(sources, edge_count, histograms,
+						scatter, from, mid), new SortTask(sources, edge_count,
+						histograms, scatter, mid, to));
+				return;
+			}
+
+			final int chunk_count = histograms.length;
+			final int first = (int) (((long) from * edge_count) / chunk_count);
+			final int last = (int) (((long) to * edge_count) / chunk_count);
+
+			final int[] histogram = histograms[from];
+
+			if (null == scatter) {
+				for (int e = first; e < last; e++)
+					histogram[sources[e]] += 1;
+			} else if (null != scatter.order) {
+				final int[] order = scatter.order;
+
+				for (int e = first; e < last; e++)
+					order[histogram[sources[e]]++] = e;
+			} else {
+				final int[] destinations = scatter.destinations;
+				final int[] edge_weights = scatter.edge_weights;
+				final int[] targets = scatter.targets;
+				final int[] weights = scatter.weights;
+
+				for (int e = first; e < last; e++) {
+					int slot = histogram[sources[e]]++;
+
+					targets[slot] = destinations[e];
+					weights[slot] = edge_weights[e];
+				}
+			}
+		}
+	}
+
+	/*
+	 * Keeps the lightest of the edges from every source to the same
+	 * destination. Edges of a vertex end up sorted by destination.
+	 */
+
+	private static CompressedGraph deduplicate(final int[] offsets,
+			final int[] targets, final int[] weights) {
+		final int vertex_count = offsets.length - 1;
+
+		int[] new_offsets = new int[vertex_count + 1];
+		long[] keys = new long[0];
+
+		int kept = 0;
+
+		for (int v = 0; v < vertex_count; v++) {
+			int first = offsets[v];
+			int degree = offsets[v + 1] - first;
+
+			new_offsets[v] = kept;
+
+			if (keys.length < degree)
+				keys = new long[Math.max(degree, 2 * keys.length)];
+
+			for (int i = 0; i < degree; i++)
+				keys[i] = (((long) targets[first + i]) << 32)
+						| weights[first + i];
+
+			Arrays.sort(keys, 0, degree);
+
+			for (int i = 0; i < degree; i++) {
+				int target = (int) (keys[i] >>> 32);
+
+				if ((0 < i) && (target == (int) (keys[i - 1] >>> 32)))
+					continue;
+
+				/* Writing never overtakes reading: kept <= first + i */
+
+				targets[kept] = target;
+				weights[kept] = (int) keys[i];
+				kept += 1;
+			}
+		}
+
+		new_offsets[vertex_count] = kept;
+
+		if (kept == targets.length)
+			return new CompressedGraph(new_offsets, targets, weights);
+
+		return new CompressedGraph(new_offsets, Arrays.copyOf(targets, kept),
+				Arrays.copyOf(weights, kept));
+	}
+
+	/* -------------------------------------------------------------------- */
+
+	/* Edge objects of the built graph, in CSR order, created on access */
+
+	private static class EdgeList extends AbstractList<Edge> {
+
+		private final List<Vertex> vertexes;
+		private final CompressedGraph compressed_graph;
+
+		EdgeList(final List<Vertex> vertexes,
+				final CompressedGraph compressed_graph) {
+			this.vertexes = vertexes;
+			this.compressed_graph = compressed_graph;
+		}
+
+		@Override
+		public Edge get(final int index) {
+			if ((0 > index) || (index >= size()))
+				throw new IndexOutOfBoundsException(index + " >= " + size());
+
+			final int[] offsets = compressed_graph.getOffsets();
+
+			/* Last vertex whose edges start at or before the index */
+
+			int low = 0, high = compressed_graph.getVertexCount() - 1;
+
+			while (low < high) {
+				int mid = (low + high + 1) >>> 1;
+
+				if (offsets[mid] <= index)
+					low = mid;
+				else
+					high = mid - 1;
+			}
+
+			return new Edge(vertexes.get(low),
+					vertexes.get(compressed_graph.getTargets()[index]),
+					compressed_graph.getWeights()[index]);
+		}
+
+		@Override
+		public int size() {
+			return compressed_graph.getEdgeCount();
+		}
+	}
+}
@@ -0,0 +1,211 @@
+/*
+ * Binary file format for graphs, loaded by memory-mapping instead of
+ * parsing.
+ *
+ * All values are little-endian. The file starts with a 32 byte header:
+ *
+ *   0  magic "DJKG"
+ *   4  format version (VERSION)
+ *   8  vertex count V
+ *  12  edge count E
+ *  16  length of the name bytes (long)
+ *  24  flags, currently 0
+ *  28  reserved, 0
+ *
+ * followed by the sections, back to back: CSR offsets (V + 1 ints), targets
+ * (E ints), weights (E ints), name offsets (V + 1 ints) and the UTF-8
+ * vertex names. map() maps every section on its own, so the file may be
+ * larger than 2 GB as long as each section fits in one mapping, and returns
+ * a BufferGraph over the mapped buffers: loading costs a few system calls
+ * whatever the size, and pages are read in as the engines touch them.
+ */
+
+package dijkstra.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+public final class GraphFile {
+
+	/* "DJKG" read as a little-endian int */
+
+	private static final int MAGIC = 0x474B4A44;
+
+	public static final int VERSION = 1;
+
+	private static final int HEADER_SIZE = 32;
+
+	/* Size of the buffer the writer fills before each write() */
+
+	private static final int WRITE_BUFFER_SIZE = 1 << 20;
+
+	private GraphFile() {
+	}
+
+	/* -------------------------------------------------------------------- */
+
+	public static void write(final Graph graph, final File file)
+			throws IOException {
+		CompressedGraph compressed_graph = graph.getCompressedGraph();
+		List<Vertex> vertexes = graph.getVertexes();
+
+		final int vertex_count = vertexes.size();
+
+		/* Names are encoded twice, to size the section and to write it,
+		 * rather than kept in memory */
+
+		int[] name_offsets = new int[vertex_count + 1];
+
+		for (int v = 0; v < vertex_count; v++) {
+			long end = (long) name_offsets[v] + encode(vertexes.get(v)).length;
+
+			if (end > Integer.MAX_VALUE)
+				throw new IOException("Vertex names exceed 2 GB");
+
+			name_offsets[v + 1] = (int) end;
+		}
+
+		FileChannel channel = FileChannel.open(file.toPath(),
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+
+		try {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE)
+					.order(ByteOrder.LITTLE_ENDIAN);
+
+			buffer.putInt(MAGIC);
+			buffer.putInt(VERSION);
+			buffer.putInt(vertex_count);
+			buffer.putInt(compressed_graph.getEdgeCount());
+			buffer.putLong(name_offsets[vertex_count]);
+			buffer.putInt(0);
+			buffer.putInt(0);
+
+			writeInts(channel, buffer, compressed_graph.getOffsets());
+			writeInts(channel, buffer, compressed_graph.getTargets());
+			writeInts(channel, buffer, compressed_graph.getWeights());
+			writeInts(channel, buffer, name_offsets);
+
+			for (Vertex vertex : vertexes) {
+				byte[] name = encode(vertex);
+
+				for (int i = 0; i < name.length; ) {
+					if (false == buffer.hasRemaining())
+						flush(channel, buffer);
+
+					int count = Math.min(name.length - i, buffer.remaining());
+					buffer.put(name, i, count);
+					i += count;
+				}
+			}
+
+			flush(channel, buffer);
+		} finally {
+			channel.close();
+		}
+	}
+
+	private static byte[] encode(final Vertex vertex) {
+		String id = vertex.getId();
+		return (id == null) ? new byte[0] : id.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static void writeInts(final FileChannel channel,
+			final ByteBuffer buffer, final int[] values) throws IOException {
+		for (int i = 0; i < values.length; ) {
+			if (4 > buffer.remaining())
+				flush(channel, buffer);
+
+			int count = Math.min(values.length - i, buffer.remaining() / 4);
+
+			buffer.asIntBuffer().put(values, i, count);
+			buffer.position(buffer.position() + (4 * count));
+			i += count;
+		}
+	}
+
+	private static void flush(final FileChannel channel,
+			final ByteBuffer buffer) throws IOException {
+		buffer.flip();
+
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+
+		buffer.clear();
+	}
+
+	/* -------------------------------------------------------------------- */
+
+	/*
+	 * Maps the file read-only. The mappings stay valid after the channel is
+	 * closed and are released when the BufferGraph is garbage collected.
+	 */
+
+	public static BufferGraph map(final File file) throws IOException {
+		FileChannel channel = FileChannel.open(file.toPath(),
+				StandardOpenOption.READ);
+
+		try {
+			if (HEADER_SIZE > channel.size())
+				throw new IOException("Not a graph file: " + file);
+
+			ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+					HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+			if (MAGIC != header.getInt(0))
+				throw new IOException("Not a graph file: " + file);
+
+			int version = header.getInt(4);
+
+			if (VERSION != version)
+				throw new IOException("Unsupported graph file version "
+						+ version + ": " + file);
+
+			final int vertex_count = header.getInt(8);
+			final int edge_count = header.getInt(12);
+			final long names_length = header.getLong(16);
+
+			long position = HEADER_SIZE;
+
+			long expected_size = position + (4L * (vertex_count + 1)) * 2
+					+ (4L * edge_count) * 2 + names_length;
+
+			if (channel.size() < expected_size)
+				throw new IOException("Truncated graph file: " + file);
+
+			IntBuffer offsets = mapInts(channel, position, vertex_count + 1);
+			position += 4L * (vertex_count + 1);
+
+			IntBuffer targets = mapInts(channel, position, edge_count);
+			position += 4L * edge_count;
+
+			IntBuffer weights = mapInts(channel, position, edge_count);
+			position += 4L * edge_count;
+
+			IntBuffer name_offsets = mapInts(channel, position,
+					vertex_count + 1);
+			position += 4L * (vertex_count + 1);
+
+			ByteBuffer names = channel.map(FileChannel.MapMode.READ_ONLY,
+					position, names_length);
+
+			return new BufferGraph(vertex_count, edge_count, offsets, targets,
+					weights, name_offsets, names);
+		} finally {
+			channel.close();
+		}
+	}
+
+	private static IntBuffer mapInts(final FileChannel channel,
+			final long position, final int count) throws IOException {
+		return channel.map(FileChannel.MapMode.READ_ONLY, position, 4L * count)
+				.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+	}
+}
@@ -0,0 +1,740 @@
+/*
+ * Streaming reader for road networks in the DIMACS shortest path format
+ * (.gr arcs and optional .co coordinates) and for plain CSV edge lists.
+ *
+ * Files are read through a FileChannel in fixed-size chunks and parsed
+ * byte by byte: numbers are converted in place and no String or Edge is
+ * created per line (CSV names excepted, each of which is interned once).
+ * A .gr file is read twice, once to count the arcs of every vertex and
+ * once to put each arc straight into CSR arrays of their final size, so
+ * the importer holds little beyond the finished graph. CSV edges go into a
+ * GraphBuilder.
+ *
+ * DIMACS vertexes 1 .. n become ordinals 0 .. n - 1, named by their number.
+ * With setParallel(true) a .gr file of more than two chunks is split into
+ * regions, one per chunk up to four per worker of the shared ForkJoinPool;
+ * each region starts at the first line that begins inside it, and the
+ * regions' arcs are moved in file order, so the result does not depend on
+ * the split. CSV files are always read sequentially, since names are
+ * numbered in order of first appearance.
+ */
+
+package dijkstra.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import dijkstra.resources.IntList;
+
+public final class GraphImporter {
+
+	private static final int CHUNK_SIZE = 1 << 20;
+
+	private static ForkJoinPool fork_join_pool =
+			dijkstra.resources.Concurrency.getForkJoinPool();
+
+	private boolean parallel;
+	private boolean deduplicate = true;
+
+	public boolean isParallel() {
+		return parallel;
+	}
+
+	public GraphImporter setParallel(final boolean parallel) {
+		this.parallel = parallel;
+		return this;
+	}
+
+	public boolean isDeduplicate() {
+		return deduplicate;
+	}
+
+	/* See GraphBuilder.setDeduplicate() */
+
+	public GraphImporter setDeduplicate(final boolean deduplicate) {
+		this.deduplicate = deduplicate;
+		return this;
+	}
+
+	/* -------------------------------------------------------------------- */
+
+	/*
+	 * Receives the lines of a file region, without the line terminator.
+	 * The bytes are only valid during the call.
+	 */
+
+	private interface LineHandler {
+		void line(byte[] bytes, int from, int to) throws IOException;
+	}
+
+	/*
+	 * Feeds the lines that start in [start, end) of the file to the handler,
+	 * reading the channel in chunks. The last line may extend beyond end.
+	 */
+
+	private static void readLines(final FileChannel channel, final long start,
+			final long end, final LineHandler handler) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+
+		long position = start;
+
+		/* A region starting mid-line leaves that line to the previous one */
+
+		boolean skipping = false;
+
+		if (0 < start) {
+			ByteBuffer previous = ByteBuffer.allocate(1);
+			channel.read(previous, start - 1);
+			skipping = ('\n' != previous.get(0));
+		}
+
+		long line_start = start;
+
+		while (true) {
+			int read = channel.read(buffer, position);
+
+			if (0 < read)
+				position += read;
+
+			byte[] bytes = buffer.array();
+			int limit = buffer.position();
+			int from = 0;
+
+			for (int i = 0; i < limit; i++) {
+				if ('\n' != bytes[i])
+					continue;
+
+				if (skipping)
+					skipping = false;
+				else if (line_start >= end)
+					return;
+				else
+					handleLine(handler, bytes, from, i);
+
+				line_start += (i + 1) - from;
+				from = i + 1;
+			}
+
+			if (0 >= read) {
+				if ((from < limit) && (false == skipping)
+						&& (line_start < end))
+					handleLine(handler, bytes, from, limit);
+				return;
+			}
+
+			/* Keep the incomplete line, growing the buffer if it is full */
+
+			if (0 == from) {
+				if (limit == buffer.capacity()) {
+					ByteBuffer larger = ByteBuffer.allocate(2 * limit);
+					larger.put(bytes, 0, limit);
+					buffer = larger;
+				}
+			} else {
+				System.arraycopy(bytes, from, bytes, 0, limit - from);
+				buffer.position(limit - from);
+			}
+		}
+	}
+
+	private static void handleLine(final LineHandler handler,
+			final byte[] bytes, final int from, int to) throws IOException {
+		if ((from < to) && ('\r' == bytes[to - 1]))
+			to -= 1;
+
+		handler.line(bytes, from, to);
+	}
+
+	/* -------------------------------------------------------------------- */
+
+	/*
+	 * Cursor over the fields of one line, separated by blanks or by the
+	 * given delimiter.
+	 */
+
+	private static final class Fields {
+
+		private final byte delimiter;
+
+		byte[] bytes;
+		int from;
+		int position;
+		int end;
+
+		Fields(final byte delimiter) {
+			this.delimiter = delimiter;
+		}
+
+		void reset(final byte[] bytes, final int from, final int to) {
+			this.bytes = bytes;
+			this.from = from;
+			this.position = from;
+			this.end = to;
+		}
+
+		private boolean isSeparator(final byte b) {
+			return (' ' == b) || ('\t' == b) || (delimiter == b);
+		}
+
+		/* Start of the next field, -1 if there is none */
+
+		int next() {
+			while ((position < end) && isSeparator(bytes[position]))
+				position += 1;
+
+			if (position >= end)
+				return -1;
+
+			int start = position;
+
+			while ((position < end) && (false == isSeparator(bytes[position])))
+				position += 1;
+
+			return start;
+		}
+
+		long nextLong() throws IOException {
+			int start = next();
+
+			if (-1 == start)
+				throw malformed();
+
+			boolean negative = ('-' == bytes[start]);
+			int i = negative ? start + 1 : start;
+
+			if (i == position)
+				throw malformed();
+
+			long value = 0;
+
+			for (; i < position; i++) {
+				int digit = bytes[i] - '0';
+
+				if ((0 > digit) || (9 < digit)
+						|| (value > ((Long.MAX_VALUE - digit) / 10)))
+					throw malformed();
+
+				value = (10 * value) + digit;
+			}
+
+			return negative ? -value : value;
+		}
+
+		int nextInt() throws IOException {
+			long value = nextLong();
+
+			if ((Integer.MIN_VALUE > value) || (Integer.MAX_VALUE < value))
+				throw malformed();
+
+			return (int) value;
+		}
+
+		String nextString() throws IOException {
+			int start = next();
+
+			if (-1 == start)
+				throw malformed();
+
+			return new String(bytes, start, position - start,
+					StandardCharsets.UTF_8);
+		}
+
+		IOException malformed() {
+			return new IOException("Malformed line: "
+					+ new String(bytes, from, end - from, StandardCharsets.UTF_8));
+		}
+	}
+
+	/* -------------------------------------------------------------------- */
+
+	public Graph readDimacs(final File gr_file) throws IOException {
+		return readDimacs(gr_file, null);
+	}
+
+	/*
+	 * Reads the arcs of gr_file and, unless co_file is null, the vertex
+	 * coordinates from co_file.
+	 */
+
+	public Graph readDimacs(final File gr_file, final File co_file)
+			throws IOException {
+		FileChannel channel = FileChannel.open(gr_file.toPath(),
+				StandardOpenOption.READ);
+
+		DimacsArcs arcs;
+
+		try {
+			int region_count = parallel ? regionCount(channel.size()) : 1;
+
+			if (1 == region_count)
+				arcs = readDimacsSequential(gr_file, channel);
+			else
+				arcs = readDimacsRegions(gr_file, channel, region_count);
+		} finally {
+			channel.close();
+		}
+
+		if (null != co_file)
+			readCoordinates(co_file, arcs.vertexes);
+
+		return GraphBuilder.build(arcs.vertexes, arcs.offsets, arcs.targets,
+				arcs.weights, deduplicate);
+	}
+
+	/*
+	 * One region per chunk, but no more than four per worker. The count
+	 * follows the file size, so large files are split even on one core.
+	 */
+
+	private static int regionCount(final long size) {
+		return (int) Math.max(1, Math.min(size / CHUNK_SIZE,
+				4L * fork_join_pool.getParallelism()));
+	}
+
+	/* CSR arrays of the arcs read, over the numbered vertexes */
+
+	private static final class DimacsArcs {
+
+		final List<Vertex> vertexes;
+		final int[] offsets;
+		final int[] targets;
+		final int[] weights;
+
+		DimacsArcs(final List<Vertex> vertexes, final int[] offsets,
+				final int[] targets, final int[] weights) {
+			this.vertexes = vertexes;
+			this.offsets = offsets;
+			this.targets = targets;
+			this.weights = weights;
+		}
+	}
+
+	/*
+	 * Reads the file twice: first for the problem line and the out-degree
+	 * of every vertex, then to move every arc to its slot in CSR arrays of
+	 * their final size. Apart from the chunk buffer nothing is held but the
+	 * 2E + V ints of the result.
+	 */
+
+	private DimacsArcs readDimacsSequential(final File gr_file,
+			final FileChannel channel) throws IOException {
+		final long size = channel.size();
+
+		DimacsRegion region = new DimacsRegion(channel, 0, size, true);
+		region.read();
+
+		checkRegions(gr_file, new DimacsRegion[] { region });
+
+		final int[] offsets = region.degrees;
+		startOffsets(offsets);
+
+		final int[] targets = new int[region.arc_count];
+		final int[] weights = new int[region.arc_count];
+
+		final Fields fields = new Fields((byte) ' ');
+
+		readLines(channel, 0, size, new LineHandler() {
+			@Override
+			public void line(final byte[] bytes, final int from,
+					final int to) throws IOException {
+				if ((from == to) || ('a' != bytes[from]))
+					return;
+
+				fields.reset(bytes, from, to);
+				fields.next();
+
+				int slot = offsets[fields.nextInt()]++;
+
+				targets[slot] = fields.nextInt() - 1;
+				weights[slot] = fields.nextInt();
+			}
+		});
+
+		return new DimacsArcs(region.vertexes, offsets, targets, weights);
+	}
+
+	/*
+	 * Parses the regions in parallel, each collecting its arcs as (source,
+	 * destination, weight) triples, since the problem line may be in
+	 * another region. The triples are then counted and moved to their CSR
+	 * slots region by region in file order, and every region's list is
+	 * dropped once moved, so the peak is the 3E ints of triples plus the
+	 * 2E of the result.
+	 */
+
+	private DimacsArcs readDimacsRegions(final File gr_file,
+			final FileChannel channel, final int region_count)
+			throws IOException {
+		final long size = channel.size();
+
+		DimacsRegion[] regions = new DimacsRegion[region_count];
+
+		for (int r = 0; r < region_count; r++)
+			regions[r] = new DimacsRegion(channel, (r * size) / region_count,
+					((r + 1) * size) / region_count, false);
+
+		fork_join_pool.invoke(new RegionTask(regions, 0, region_count));
+
+		DimacsRegion problem = checkRegions(gr_file, regions);
+
+		final int vertex_count = problem.vertexes.size();
+
+		int[] offsets = new int[vertex_count + 1];
+		int arc_count = 0;
+
+		for (DimacsRegion region : regions) {
+			final int[] arcs = region.arcs.array();
+
+			for (int i = 0; i < 3 * region.arc_count; i += 3) {
+				checkArc(vertex_count, arcs[i], arcs[i + 1], arcs[i + 2]);
+				offsets[arcs[i]] += 1;
+			}
+
+			arc_count += region.arc_count;
+		}
+
+		startOffsets(offsets);
+
+		int[] targets = new int[arc_count];
+		int[] weights = new int[arc_count];
+
+		for (int r = 0; r < region_count; r++) {
+			final int[] arcs = regions[r].arcs.array();
+			final int end = 3 * regions[r].arc_count;
+
+			regions[r] = null;
+
+			for (int i = 0; i < end; i += 3) {
+				int slot = offsets[arcs[i]]++;
+
+				targets[slot] = arcs[i + 1] - 1;
+				weights[slot] = arcs[i + 2];
+			}
+		}
+
+		return new DimacsArcs(problem.vertexes, offsets, targets, weights);
+	}
+
+	/*
+	 * Returns the region with the problem line, which must come before any
+	 * arc, in sequential and parallel reads alike.
+	 */
+
+	private static DimacsRegion checkRegions(final File gr_file,
+			final DimacsRegion[] regions) throws IOException {
+		DimacsRegion problem = null;
+
+		for (DimacsRegion region : regions) {
+			if (null != region.error)
+				throw region.error;
+
+			if (null != region.vertexes) {
+				if (null != problem)
+					throw new IOException("Second problem line");
+
+				problem = region;
+			}
+
+			if (region.arc_before_problem
+					|| ((null == problem) && (0 < region.arc_count)))
+				throw new IOException("Arc before the problem line");
+		}
+
+		if (null == problem)
+			throw new IOException("Missing problem line in " + gr_file);
+
+		return problem;
+	}
+
+	/* Arc between the 1-based DIMACS vertexes */
+
+	private static void checkArc(final int vertex_count, final int source,
+			final int destination, final int weight) throws IOException {
+		if ((1 > source) || (vertex_count < source) || (1 > destination)
+				|| (vertex_count < destination))
+			throw new IOException("Arc " + source + " -> " + destination
+					+ " is out of range");
+
+		if (0 > weight)
+			throw new IOException("Arc " + source + " -> " + destination
+					+ " has negative weight " + weight);
+	}
+
+	/*
+	 * Turns the out-degree of every vertex v, kept at offsets[v + 1], into
+	 * the first slot of v at the same place. Moving each arc of v to slot
+	 * offsets[v + 1]++ then leaves the end of v there, which makes offsets
+	 * the CSR offsets. DIMACS vertex v + 1 indexes offsets[v + 1] directly.
+	 */
+
+	private static void startOffsets(final int[] offsets) {
+		int next = 0;
+
+		for (int v = 1; v < offsets.length; v++) {
+			int degree = offsets[v];
+			offsets[v] = next;
+			next += degree;
+		}
+	}
+
+	/*
+	 * One region of a .gr file. The single region of a sequential read
+	 * counts the out-degree of every vertex; the regions of a parallel read
+	 * collect their arcs as (source, destination, weight) triples instead.
+	 */
+
+	private final class DimacsRegion implements LineHandler {
+
+		private final FileChannel channel;
+		private final long start;
+		private final long end;
+
+		private final Fields fields = new Fields((byte) ' ');
+
+		/* Out-degree of DIMACS vertex v at degrees[v], counting only */
+
+		int[] degrees;
+
+		final IntList arcs;
+		int arc_count;
+
+		/* Set by the problem line; arcs of this region came before it */
+
+		List<Vertex> vertexes;
+		boolean arc_before_problem;
+
+		IOException error;
+
+		DimacsRegion(final FileChannel channel, final long start,
+				final long end, final boolean counting) {
+			this.channel = channel;
+			this.start = start;
+			this.end = end;
+
+			arcs = counting ? null : new IntList();
+		}
+
+		void read() {
+			try {
+				readLines(channel, start, end, this);
+			} catch (IOException ex) {
+				error = ex;
+			}
+		}
+
+		@Override
+		public void line(final byte[] bytes, final int from, final int to)
+				throws IOException {
+			if (from == to)
+				return;
+
+			fields.reset(bytes, from, to);
+
+			switch (bytes[from]) {
+			case 'a':
+				fields.next();
+
+				int source = fields.nextInt();
+				int destination = fields.nextInt();
+				int weight = fields.nextInt();
+
+				arc_count += 1;
+
+				if (null != arcs) {
+					arcs.add(source);
+					arcs.add(destination);
+					arcs.add(weight);
+				} else if (null != vertexes) {
+					checkArc(vertexes.size(), source, destination, weight);
+					degrees[source] += 1;
+				}
+				break;
+			case 'p':
+				/* p sp <vertexes> <arcs> */
+				if (null != vertexes)
+					throw new IOException("Second problem line");
+
+				fields.next();
+				fields.next();
+
+				int vertex_count = fields.nextInt();
+				int declared_arc_count = fields.nextInt();
+
+				if ((0 > vertex_count) || (0 > declared_arc_count))
+					throw fields.malformed();
+
+				vertexes = numberedVertexes(vertex_count);
+
+				if (null == arcs)
+					degrees = new int[vertex_count + 1];
+
+				arc_before_problem = (0 < arc_count);
+				break;
+			default:
+				/* Comments and anything else */
+				break;
+			}
+		}
+	}
+
+	private static List<Vertex> numberedVertexes(final int vertex_count) {
+		List<Vertex> vertexes = new ArrayList<Vertex>(vertex_count);
+
+		for (int v = 1; v <= vertex_count; v++)
+			vertexes.add(new Vertex(Integer.toString(v)));
+
+		return vertexes;
+	}
+
+	private static final class RegionTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final DimacsRegion[] regions;
+		private final int from;
+		private final int to;
+
+		RegionTask(final DimacsRegion[] regions, final int from, final int to) {
+			this.regions = regions;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (1 == (to - from)) {
+				regions[from].read();
+				return;
+			}
+
+			int mid = (from + to) >>> 1;
+
+			invokeAll(new RegionTask(regions, from, mid),
+					new RegionTask(regions, mid, to));
+		}
+	}
+
+	/*
+	 * Replaces the vertexes given by "v <id> <x> <y>" lines of a .co file
+	 * with ones that have coordinates.
+	 */
+
+	private static void readCoordinates(final File co_file,
+			final List<Vertex> vertexes) throws IOException {
+		final Fields fields = new Fields((byte) ' ');
+
+		FileChannel channel = FileChannel.open(co_file.toPath(),
+				StandardOpenOption.READ);
+
+		try {
+			readLines(channel, 0, channel.size(), new LineHandler() {
+				@Override
+				public void line(final byte[] bytes, final int from,
+						final int to) throws IOException {
+					if ((from == to) || ('v' != bytes[from]))
+						return;
+
+					fields.reset(bytes, from, to);
+					fields.next();
+
+					int v = fields.nextInt();
+
+					if ((1 > v) || (vertexes.size() < v))
+						throw new IOException("Vertex " + v
+								+ " is out of range");
+
+					double x = fields.nextLong();
+					double y = fields.nextLong();
+
+					vertexes.set(v - 1, new Vertex(Integer.toString(v), x, y));
+				}
+			});
+		} finally {
+			channel.close();
+		}
+	}
+
+	/* -------------------------------------------------------------------- */
+
+	/*
+	 * Reads "source,destination,weight" lines. Vertex names are numbered in
+	 * order of first appearance. Blank lines and lines starting with '#'
+	 * are skipped, and so is a first line whose weight is not a number,
+	 * taken to be a header.
+	 */
+
+	public Graph readCsv(final File csv_file) throws IOException {
+		final List<Vertex> vertexes = new ArrayList<Vertex>();
+		final SymbolTable symbols = new SymbolTable();
+
+		final GraphBuilder builder = new GraphBuilder(vertexes)
+				.setDeduplicate(deduplicate);
+
+		final Fields fields = new Fields((byte) ',');
+
+		FileChannel channel = FileChannel.open(csv_file.toPath(),
+				StandardOpenOption.READ);
+
+		try {
+			readLines(channel, 0, channel.size(), new LineHandler() {
+
+				private boolean first_line = true;
+
+				@Override
+				public void line(final byte[] bytes, final int from,
+						final int to) throws IOException {
+					fields.reset(bytes, from, to);
+
+					int start = fields.next();
+
+					if ((-1 == start) || ('#' == bytes[start]))
+						return;
+
+					fields.reset(bytes, from, to);
+
+					String source = fields.nextString();
+					String destination = fields.nextString();
+
+					int weight;
+
+					try {
+						weight = fields.nextInt();
+					} catch (IOException ex) {
+						if (first_line) {
+							first_line = false;
+							return;
+						}
+
+						throw ex;
+					}
+
+					first_line = false;
+
+					builder.addEdge(vertex(source), vertex(destination),
+							weight);
+				}
+
+				private int vertex(final String name) {
+					int ordinal = symbols.intern(name);
+
+					if (ordinal == vertexes.size())
+						vertexes.add(new Vertex(name));
+
+					return ordinal;
+				}
+			});
+		} finally {
+			channel.close();
+		}
+
+		return builder.build();
+	}
+}
@@ -0,0 +1,194 @@
+/*
+ * What-if changes layered over a Graph without touching it: blocked
+ * vertexes, blocked edges and overridden edge weights.
+ *
+ * The base graph's CSR arrays stay shared; an overlay only holds bitsets
+ * over the vertex and edge ordinals and the overridden weights, i.e. at
+ * most one bit per vertex and two per edge plus the overrides, and any
+ * number of overlays can exist for one graph. Engines that accept an
+ * overlay (see ConcurrentDijkstraAlgorithm) treat a blocked vertex like a
+ * removed node, skip blocked edges and read weights through weight().
+ *
+ * An overlay may be queried from several threads at once, but must not be
+ * changed while queries on it are running.
+ */
+
+package dijkstra.model;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+public final class GraphOverlay {
+
+	private final Graph graph;
+
+	private final int[] offsets;
+	private final int[] targets;
+	private final int[] weights;
+
+	private final BitSet blocked_vertexes = new BitSet();
+	private final BitSet blocked_edges = new BitSet();
+
+	/* Weight overrides by edge ordinal; overridden_edges marks the keys so
+	 * most edges are answered without touching the map */
+
+	private final BitSet overridden_edges = new BitSet();
+	private final Map<Integer, Integer> overridden_weights =
+			new HashMap<Integer, Integer>();
+
+	public GraphOverlay(final Graph graph) {
+		this.graph = graph;
+
+		CompressedGraph compressed_graph = graph.getCompressedGraph();
+
+		offsets = compressed_graph.getOffsets();
+		targets = compressed_graph.getTargets();
+		weights = compressed_graph.getWeights();
+	}
+
+	public Graph getGraph() {
+		return graph;
+	}
+
+	/* True if the overlay changes nothing */
+
+	public boolean isEmpty() {
+		return blocked_vertexes.isEmpty() && blocked_edges.isEmpty()
+				&& overridden_edges.isEmpty();
+	}
+
+	/* Removes every change */
+
+	public void clear() {
+		blocked_vertexes.clear();
+		blocked_edges.clear();
+		overridden_edges.clear();
+		overridden_weights.clear();
+	}
+
+	/* -------------------------------------------------------------------- */
+
+	public void blockVertex(final Vertex vertex) {
+		blockVertex(indexOf(vertex));
+	}
+
+	public void blockVertex(final int vertex) {
+		blocked_vertexes.set(checkVertex(vertex));
+	}
+
+	public void unblockVertex(final Vertex vertex) {
+		unblockVertex(indexOf(vertex));
+	}
+
+	public void unblockVertex(final int vertex) {
+		blocked_vertexes.clear(checkVertex(vertex));
+	}
+
+	public boolean isVertexBlocked(final int vertex) {
+		return blocked_vertexes.get(vertex);
+	}
+
+	/* -------------------------------------------------------------------- */
+
+	/*
+	 * The edge methods below apply to every edge from -> to and throw
+	 * IllegalArgumentException if there is none.
+	 */
+
+	public void blockEdge(final int from, final int to) {
+		for (int e = firstEdge(from, to); e < offsets[from + 1]; e++)
+			if (targets[e] == to)
+				blocked_edges.set(e);
+	}
+
+	public void unblockEdge(final int from, final int to) {
+		for (int e = firstEdge(from, to); e < offsets[from + 1]; e++)
+			if (targets[e] == to)
+				blocked_edges.clear(e);
+	}
+
+	public void setEdgeWeight(final int from, final int to, final int weight) {
+		if (0 > weight)
+			throw new IllegalArgumentException("Negative weight: " + weight);
+
+		for (int e = firstEdge(from, to); e < offsets[from + 1]; e++) {
+			if (targets[e] == to) {
+				overridden_edges.set(e);
+				overridden_weights.put(e, weight);
+			}
+		}
+	}
+
+	/* Falls back to the weight of the base graph */
+
+	public void clearEdgeWeight(final int from, final int to) {
+		for (int e = firstEdge(from, to); e < offsets[from + 1]; e++) {
+			if (targets[e] == to) {
+				overridden_edges.clear(e);
+				overridden_weights.remove(e);
+			}
+		}
+	}
+
+	public void blockEdge(final Vertex from, final Vertex to) {
+		blockEdge(indexOf(from), indexOf(to));
+	}
+
+	public void unblockEdge(final Vertex from, final Vertex to) {
+		unblockEdge(indexOf(from), indexOf(to));
+	}
+
+	public void setEdgeWeight(final Vertex from, final Vertex to,
+			final int weight) {
+		setEdgeWeight(indexOf(from), indexOf(to), weight);
+	}
+
+	public void clearEdgeWeight(final Vertex from, final Vertex to) {
+		clearEdgeWeight(indexOf(from), indexOf(to));
+	}
+
+	/* -------------------------------------------------------------------- */
+
+	/* Lookups by CSR edge ordinal, for the engines' relaxation loops */
+
+	public boolean isEdgeBlocked(final int edge) {
+		return blocked_edges.get(edge);
+	}
+
+	public int weight(final int edge) {
+		if (overridden_edges.get(edge))
+			return overridden_weights.get(edge);
+
+		return weights[edge];
+	}
+
+	/* -------------------------------------------------------------------- */
+
+	private int firstEdge(final int from, final int to) {
+		checkVertex(from);
+		checkVertex(to);
+
+		for (int e = offsets[from]; e < offsets[from + 1]; e++)
+			if (targets[e] == to)
+				return e;
+
+		throw new IllegalArgumentException("No edge " + from + " -> " + to);
+	}
+
+	private int checkVertex(final int vertex) {
+		if ((0 > vertex) || (vertex >= offsets.length - 1))
+			throw new IllegalArgumentException("Unknown vertex: " + vertex);
+
+		return vertex;
+	}
+
+	private int indexOf(final Vertex vertex) {
+		int index = graph.indexOf(vertex);
+
+		if (0 > index)
+			throw new IllegalArgumentException("Unknown vertex: " + vertex);
+
+		return index;
+	}
+}
@@ -0,0 +1,187 @@
+/*
+ * Splits the vertices of a CompressedGraph into balanced parts that keep
+ * neighbors together, for engines that give each part to its own thread.
+ *
+ * Edges are treated as undirected. The vertices are first cut into
+ * consecutive runs of a breadth-first order, which already yields compact
+ * regions on road- and grid-like graphs. A few rounds of label propagation
+ * then move every vertex to the part most of its neighbors belong to, as
+ * long as that part stays within MAX_IMBALANCE of the average size, which
+ * smooths the ragged borders the BFS cut leaves behind.
+ */
+
+package dijkstra.model;
+
+import java.util.Arrays;
+
+public final class GraphPartitioner {
+
+	private static final int REFINEMENT_ROUNDS = 8;
+
+	/* Parts may grow this much beyond the average size while refining */
+
+	private static final double MAX_IMBALANCE = 0.03;
+
+	private GraphPartitioner() {
+	}
+
+	/*
+	 * Returns the part, in [0, part_count), of every vertex. Every part is
+	 * non-empty if there are at least part_count vertices.
+	 */
+
+	public static int[] partition(final CompressedGraph graph,
+			final int part_count) {
+		if (1 > part_count)
+			throw new IllegalArgumentException(
+					"Part count must be >= 1: " + part_count);
+
+		final int vertex_count = graph.getVertexCount();
+
+		int[] parts = new int[vertex_count];
+
+		if ((1 == part_count) || (0 == vertex_count))
+			return parts;
+
+		CompressedGraph reverse = graph.reverse();
+
+		int[] order = breadthFirstOrder(graph, reverse);
+
+		/* Consecutive runs of the BFS order, sizes differing by at most 1 */
+
+		int[] sizes = new int[part_count];
+
+		for (int i = 0; i < vertex_count; i++) {
+			int part = (int) (((long) i * part_count) / vertex_count);
+			parts[order[i]] = part;
+			sizes[part] += 1;
+		}
+
+		refine(graph, reverse, parts, sizes);
+
+		return parts;
+	}
+
+	/* Number of edges whose endpoints lie in different parts */
+
+	public static int countCutEdges(final CompressedGraph graph,
+			final int[] parts) {
+		final int[] offsets = graph.getOffsets();
+		final int[] targets = graph.getTargets();
+
+		int cut = 0;
+
+		for (int v = 0; v < graph.getVertexCount(); v++)
+			for (int e = offsets[v]; e < offsets[v + 1]; e++)
+				if (parts[targets[e]] != parts[v])
+					cut += 1;
+
+		return cut;
+	}
+
+	/* -------------------------------------------------------------------- */
+
+	/*
+	 * BFS over both edge directions, restarted at the next unvisited vertex
+	 * for every component.
+	 */
+
+	private static int[] breadthFirstOrder(final CompressedGraph graph,
+			final CompressedGraph reverse) {
+		final int vertex_count = graph.getVertexCount();
+
+		int[] order = new int[vertex_count];
+		boolean[] visited = new boolean[vertex_count];
+
+		int tail = 0;
+
+		for (int start = 0; start < vertex_count; start++) {
+			if (visited[start])
+				continue;
+
+			visited[start] = true;
+			order[tail++] = start;
+
+			for (int head = tail - 1; head < tail; head++) {
+				int v = order[head];
+
+				tail = visit(graph, v, visited, order, tail);
+				tail = visit(reverse, v, visited, order, tail);
+			}
+		}
+
+		return order;
+	}
+
+	private static int visit(final CompressedGraph graph, final int v,
+			final boolean[] visited, final int[] order, int tail) {
+		final int[] offsets = graph.getOffsets();
+		final int[] targets = graph.getTargets();
+
+		for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+			int next = targets[e];
+
+			if (false == visited[next]) {
+				visited[next] = true;
+				order[tail++] = next;
+			}
+		}
+
+		return tail;
+	}
+
+	private static void refine(final CompressedGraph graph,
+			final CompressedGraph reverse, final int[] parts,
+			final int[] sizes) {
+		final int vertex_count = graph.getVertexCount();
+		final int part_count = sizes.length;
+
+		final int max_size = (int) Math.ceil(
+				((double) vertex_count / part_count) * (1.0 + MAX_IMBALANCE));
+
+		int[] neighbor_counts = new int[part_count];
+
+		for (int round = 0; round < REFINEMENT_ROUNDS; round++) {
+			int moved = 0;
+
+			for (int v = 0; v < vertex_count; v++) {
+				int current = parts[v];
+
+				/* Keep every part alive */
+
+				if (1 == sizes[current])
+					continue;
+
+				Arrays.fill(neighbor_counts, 0);
+				countNeighbors(graph, v, parts, neighbor_counts);
+				countNeighbors(reverse, v, parts, neighbor_counts);
+
+				int best = current;
+
+				for (int part = 0; part < part_count; part++)
+					if ((neighbor_counts[part] > neighbor_counts[best])
+							&& (sizes[part] < max_size))
+						best = part;
+
+				if (best != current) {
+					parts[v] = best;
+					sizes[current] -= 1;
+					sizes[best] += 1;
+					moved += 1;
+				}
+			}
+
+			if (0 == moved)
+				break;
+		}
+	}
+
+	private static void countNeighbors(final CompressedGraph graph,
+			final int v, final int[] parts, final int[] neighbor_counts) {
+		final int[] offsets = graph.getOffsets();
+		final int[] targets = graph.getTargets();
+
+		for (int e = offsets[v]; e < offsets[v + 1]; e++)
+			neighbor_counts[parts[targets[e]]] += 1;
+	}
+}
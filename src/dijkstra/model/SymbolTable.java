@@ -0,0 +1,62 @@
+/*
+ * Two-way mapping between external vertex names and dense ordinals
+ * 0 .. size() - 1, assigned in order of first appearance.
+ *
+ * Importers intern names as they read them and keep only ordinals; a
+ * Graph exposes the table of its vertex ids through getSymbolTable().
+ * Lookups are safe from any number of threads once the table is no longer
+ * being filled.
+ */
+
+package dijkstra.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class SymbolTable {
+
+	private final Map<String, Integer> ordinals;
+	private final List<String> names;
+
+	public SymbolTable() {
+		this(16);
+	}
+
+	public SymbolTable(final int capacity) {
+		ordinals = new HashMap<String, Integer>(capacity * 2);
+		names = new ArrayList<String>(capacity);
+	}
+
+	public int size() {
+		return names.size();
+	}
+
+	/* Ordinal of the name, adding it if it is new */
+
+	public int intern(final String name) {
+		Integer ordinal = ordinals.get(name);
+
+		if (ordinal != null)
+			return ordinal;
+
+		int next = names.size();
+
+		ordinals.put(name, next);
+		names.add(name);
+
+		return next;
+	}
+
+	/* Ordinal of the name, or -1 if it has not been interned */
+
+	public int indexOf(final String name) {
+		Integer ordinal = ordinals.get(name);
+		return (ordinal == null) ? -1 : ordinal;
+	}
+
+	public String nameOf(final int ordinal) {
+		return names.get(ordinal);
+	}
+}
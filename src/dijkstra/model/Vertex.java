@@ -16,25 +16,84 @@ import java.util.regex.Pattern;
 public class Vertex {
 	
 	final private String id;
+	
+	/* Position in the first Graph built over this vertex, -1 before */
+	
+	private int ordinal = -1;
+	
+	/* Cached getIdInteger(), ID_INTEGER_UNPARSED until the first call */
+	
+	static final private int ID_INTEGER_UNPARSED = -2;
+	
+	private int id_integer = ID_INTEGER_UNPARSED;
+	
+	/* Optional planar coordinates, used by goal-directed heuristics */
+	
+	final private boolean has_coordinates;
+	final private double x;
+	final private double y;
 
 	public Vertex(String id) {
 		this.id = id;
+		this.has_coordinates = false;
+		this.x = 0;
+		this.y = 0;
+	}
+	
+	public Vertex(String id, double x, double y) {
+		this.id = id;
+		this.has_coordinates = true;
+		this.x = x;
+		this.y = y;
 	}
 
 	public String getId() {
 		return id;
 	}
 	
+	/*
+	 * Dense index of the vertex, assigned when the first Graph containing it
+	 * is built: its position in that graph's getVertexes(). -1 if no graph
+	 * has been built over it yet.
+	 */
+	
+	public int getOrdinal() {
+		return ordinal;
+	}
+	
+	void assignOrdinal(final int ordinal) {
+		if (-1 == this.ordinal)
+			this.ordinal = ordinal;
+	}
+	
+	public boolean hasCoordinates() {
+		return has_coordinates;
+	}
+	
+	public double getX() {
+		return x;
+	}
+	
+	public double getY() {
+		return y;
+	}
+	
 	static final private Pattern int_pattern = Pattern.compile("\\d+");
 	
+	/* First number in the id, or -1 if there is none. Parsed once. */
+	
 	public int getIdInteger() {
-		int id_int = -1;
-		
-		Matcher matcher = int_pattern.matcher(id);
-		if(matcher.find())
-			id_int = Integer.valueOf(matcher.group());
+		if (ID_INTEGER_UNPARSED == id_integer) {
+			int id_int = -1;
+			
+			Matcher matcher = int_pattern.matcher(id);
+			if(matcher.find())
+				id_int = Integer.valueOf(matcher.group());
+			
+			id_integer = id_int;
+		}
 			
-		return id_int;
+		return id_integer;
 	}
 
 	@Override
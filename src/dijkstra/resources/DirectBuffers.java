@@ -0,0 +1,54 @@
+/*
+ * Allocation of direct (off-heap) buffers in native byte order, for data
+ * that grows with the graph and should not count against the Java heap.
+ * Direct memory is limited by -XX:MaxDirectMemorySize rather than -Xmx and
+ * is released when the buffer is garbage collected.
+ */
+
+package dijkstra.resources;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+public final class DirectBuffers {
+
+	private DirectBuffers() {
+	}
+
+	public static ByteBuffer allocateBytes(final long count) {
+		if ((0 > count) || (Integer.MAX_VALUE < count))
+			throw new IllegalArgumentException("Buffer size out of range: "
+					+ count);
+
+		return ByteBuffer.allocateDirect((int) count)
+				.order(ByteOrder.nativeOrder());
+	}
+
+	public static IntBuffer allocateInts(final long count) {
+		return allocateBytes(4L * count).asIntBuffer();
+	}
+
+	/* Copies the values into a new direct buffer */
+
+	public static IntBuffer copyOf(final int[] values) {
+		IntBuffer buffer = allocateInts(values.length);
+		buffer.put(values);
+		buffer.clear();
+		return buffer;
+	}
+
+	public static void fill(final IntBuffer buffer, final int value) {
+		final int limit = buffer.limit();
+
+		for (int i = 0; i < limit; i++)
+			buffer.put(i, value);
+	}
+
+	public static void fill(final ByteBuffer buffer, final byte value) {
+		final int limit = buffer.limit();
+
+		for (int i = 0; i < limit; i++)
+			buffer.put(i, value);
+	}
+}
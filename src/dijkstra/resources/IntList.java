@@ -0,0 +1,90 @@
+package dijkstra.resources;
+
+import java.util.Arrays;
+
+/*
+ * Growable list of primitive ints, used where an ArrayList<Integer> would
+ * box every element.
+ */
+
+public final class IntList {
+
+	private int[] values;
+	private int size;
+
+	public IntList() {
+		this(16);
+	}
+
+	public IntList(final int capacity) {
+		values = new int[Math.max(1, capacity)];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return (0 == size);
+	}
+
+	public int get(final int index) {
+		if (index >= size)
+			throw new IndexOutOfBoundsException(index + " >= " + size);
+
+		return values[index];
+	}
+
+	public void set(final int index, final int value) {
+		if (index >= size)
+			throw new IndexOutOfBoundsException(index + " >= " + size);
+
+		values[index] = value;
+	}
+
+	public void add(final int value) {
+		if (size == values.length)
+			values = Arrays.copyOf(values, size * 2);
+
+		values[size++] = value;
+	}
+
+	public void addAll(final IntList other) {
+		ensureCapacity(size + other.size);
+		System.arraycopy(other.values, 0, values, size, other.size);
+		size += other.size;
+	}
+
+	public void clear() {
+		size = 0;
+	}
+
+	/* Drops the elements from new_size on. */
+
+	public void truncate(final int new_size) {
+		if (new_size > size)
+			throw new IndexOutOfBoundsException(new_size + " > " + size);
+
+		size = new_size;
+	}
+
+	public void ensureCapacity(final int capacity) {
+		if (values.length < capacity)
+			values = Arrays.copyOf(values,
+					Math.max(capacity, values.length * 2));
+	}
+
+	/*
+	 * Direct access to the backing array for tight loops; only the first
+	 * size() elements are valid and the array is replaced when the list
+	 * grows.
+	 */
+
+	public int[] array() {
+		return values;
+	}
+
+	public int[] toArray() {
+		return Arrays.copyOf(values, size);
+	}
+}
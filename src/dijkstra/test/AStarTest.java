@@ -0,0 +1,64 @@
+/*
+ * Test the A* engine on a grid like the one in GridTest, but with vertex
+ * coordinates so the octile heuristic can steer the search.
+ */
+
+package dijkstra.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import dijkstra.engine.AStarAlgorithm;
+import dijkstra.engine.DijkstraAlgorithm;
+import dijkstra.engine.Heuristics;
+import dijkstra.model.Graph;
+import dijkstra.model.Vertex;
+
+public class AStarTest {
+	
+	private static final int X = 40;
+	private static final int Y = 40;
+
+	private Random rand = new Random();
+
+	@Test
+	public void test() {
+		Graph graph = TestGraphs.grid(X, Y, true);
+		
+		DijkstraAlgorithm dijkstra = new DijkstraAlgorithm(graph);
+		AStarAlgorithm astar = 
+				new AStarAlgorithm(graph, Heuristics.octile(100, 141));
+		
+		int dijkstra_settled = 0;
+		int astar_settled = 0;
+		
+		for (int n = 0; n < 100; n++) {
+			int source = rand.nextInt(X*Y);
+			int target = source;
+			while (target == source)
+				target = rand.nextInt(X*Y);
+			
+			dijkstra.execute(source);
+			List<Vertex> path = astar.shortestPath(source, target);
+			
+			assertNotNull(path);
+			assertEquals(TestGraphs.cost(graph, dijkstra.getPath(target)),
+					TestGraphs.cost(graph, path));
+			
+			/* The octile heuristic is consistent: no node settles twice */
+			
+			assertTrue(astar.getSettledCount() <= dijkstra.getSettledCount());
+			
+			dijkstra_settled += dijkstra.getSettledCount();
+			astar_settled += astar.getSettledCount();
+		}
+		
+		assertTrue(astar_settled < dijkstra_settled);
+	}
+}
@@ -0,0 +1,104 @@
+/*
+ * Test shortestPath() against execute(source) followed by getPath(target)
+ * on random directed graphs, where the backward search has to follow the
+ * incoming edges, with nodes removed from DijkstraAlgorithm in between.
+ */
+
+package dijkstra.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import dijkstra.engine.DijkstraAlgorithm;
+import dijkstra.engine.ParallelDijkstraAlgorithm;
+import dijkstra.model.Graph;
+import dijkstra.model.GraphBuilder;
+import dijkstra.model.Vertex;
+
+public class BidirectionalSearchTest {
+
+	private static final int NODE_COUNT = 500;
+	private static final int EDGE_COUNT = 1500;
+
+	private static final int QUERY_COUNT = 200;
+
+	private Random rand = new Random();
+
+	private Graph directedGraph() {
+		List<Vertex> nodes = new ArrayList<Vertex>();
+
+		for (int n = 0; n < NODE_COUNT; n++)
+			nodes.add(new Vertex("Node_" + n));
+
+		GraphBuilder builder = new GraphBuilder(nodes);
+
+		for (int n = 0; n < EDGE_COUNT; n++)
+			builder.addEdge(rand.nextInt(NODE_COUNT), rand.nextInt(NODE_COUNT),
+					rand.nextInt(100));
+
+		return builder.build();
+	}
+
+	@Test
+	public void testDijkstra() {
+		Graph graph = directedGraph();
+
+		DijkstraAlgorithm dijkstra = new DijkstraAlgorithm(graph);
+
+		for (int n = 0; n < QUERY_COUNT; n++) {
+			if (0 == rand.nextInt(5)) {
+				int node = rand.nextInt(NODE_COUNT);
+
+				if (dijkstra.isRemoved(node))
+					dijkstra.restoreNode(node);
+				else
+					dijkstra.removeNode(node);
+			}
+
+			int source = rand.nextInt(NODE_COUNT);
+			int target = rand.nextInt(NODE_COUNT);
+
+			dijkstra.execute(source);
+
+			List<Vertex> path = dijkstra.getPath(target);
+
+			assertEquals(TestGraphs.cost(graph, path), TestGraphs.cost(graph,
+					dijkstra.shortestPath(source, target)));
+
+			/* getPath() still answers for the last execute() */
+
+			assertEquals(path, dijkstra.getPath(target));
+		}
+	}
+
+	@Test
+	public void testParallelDijkstra() {
+		Graph graph = directedGraph();
+
+		DijkstraAlgorithm dijkstra = new DijkstraAlgorithm(graph);
+		ParallelDijkstraAlgorithm parallel_dijkstra =
+				new ParallelDijkstraAlgorithm(graph);
+
+		for (int n = 0; n < QUERY_COUNT / 10; n++) {
+			int source = rand.nextInt(NODE_COUNT);
+			int target = rand.nextInt(NODE_COUNT);
+
+			dijkstra.execute(source);
+			parallel_dijkstra.execute(source);
+
+			int cost = TestGraphs.cost(graph, dijkstra.getPath(target));
+
+			assertEquals(cost, TestGraphs.cost(graph,
+					parallel_dijkstra.getPath(target)));
+			assertEquals(cost, TestGraphs.cost(graph,
+					parallel_dijkstra.shortestPath(source, target)));
+		}
+
+		parallel_dijkstra.terminate();
+	}
+}
@@ -0,0 +1,161 @@
+/*
+ * Test Dial's bucket queue against a brute force scan of the queued keys,
+ * with keys kept in the window Dijkstra guarantees, and DijkstraAlgorithm
+ * on every queue type against the indexed heap, with weights small enough
+ * for AUTO to pick the bucket queue and too large for it.
+ */
+
+package dijkstra.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import dijkstra.engine.BucketQueue;
+import dijkstra.engine.DijkstraAlgorithm;
+import dijkstra.engine.DijkstraAlgorithm.QueueType;
+import dijkstra.model.Graph;
+import dijkstra.model.GraphBuilder;
+import dijkstra.model.Vertex;
+
+public class BucketQueueTest {
+
+	private static final int NODE_COUNT = 500;
+	private static final int OPERATION_COUNT = 20000;
+
+	private static final int X = 30;
+	private static final int Y = 30;
+
+	private static Random rand = new Random(System.currentTimeMillis());
+
+	@Test
+	public void test() {
+		for (int max_weight : new int[] { 0, 1, 7, 100 }) {
+			BucketQueue queue = new BucketQueue(NODE_COUNT, max_weight);
+
+			int[] keys = new int[NODE_COUNT];
+			Arrays.fill(keys, -1);
+
+			/* The first key opens the window; later keys may not fall
+			 * below the key last polled */
+
+			int floor = rand.nextInt(1000);
+
+			queue.offer(0, floor);
+			keys[0] = floor;
+
+			for (int n = 0; n < OPERATION_COUNT; n++) {
+				if ((0 == rand.nextInt(3)) && (false == queue.isEmpty())) {
+					int node = queue.poll();
+					assertEquals(minimum(keys), keys[node]);
+					floor = keys[node];
+					keys[node] = -1;
+				} else {
+					int node = rand.nextInt(NODE_COUNT);
+					int key = floor + rand.nextInt(max_weight + 1);
+					queue.offer(node, key);
+					if ((-1 == keys[node]) || (key < keys[node]))
+						keys[node] = key;
+				}
+
+				assertEquals(count(keys), queue.size());
+			}
+
+			/* Keys outside the window are rejected */
+
+			try {
+				queue.offer(0, floor + max_weight + 1);
+				fail("Queued a key beyond the bucket window");
+			} catch (IllegalArgumentException ex) {
+			}
+
+			queue.clear();
+			assertTrue(queue.isEmpty());
+
+			/* A cleared queue starts a new window anywhere */
+
+			queue.offer(1, 5);
+			assertEquals(1, queue.poll());
+			assertTrue(queue.isEmpty());
+		}
+	}
+
+	@Test
+	public void testDijkstra() {
+		check(TestGraphs.grid(X, Y, true));
+	}
+
+	/* Random weights above MAX_BUCKET_QUEUE_WEIGHT: AUTO takes the heap */
+
+	@Test
+	public void testHeavyWeights() {
+		List<Vertex> nodes = new ArrayList<Vertex>();
+
+		for (int n = 0; n < X*Y; n++)
+			nodes.add(new Vertex("Node_" + n));
+
+		GraphBuilder builder = new GraphBuilder(nodes);
+
+		final int max_weight = 100 * DijkstraAlgorithm.MAX_BUCKET_QUEUE_WEIGHT;
+
+		for (int n = 0; n < 4*X*Y; n++)
+			builder.addEdge(rand.nextInt(X*Y), rand.nextInt(X*Y),
+					1 + rand.nextInt(max_weight));
+
+		Graph graph = builder.build();
+
+		assertTrue(graph.getCompressedGraph().getMaxWeight()
+				> DijkstraAlgorithm.MAX_BUCKET_QUEUE_WEIGHT);
+
+		check(graph);
+	}
+
+	/* Every queue type, AUTO included, against the indexed heap */
+
+	private static void check(final Graph graph) {
+		final int node_count = graph.getVertexes().size();
+
+		DijkstraAlgorithm heap_dijkstra = new DijkstraAlgorithm(graph);
+		heap_dijkstra.setQueueType(QueueType.INDEXED_HEAP);
+
+		for (QueueType queue_type : QueueType.values()) {
+			DijkstraAlgorithm dijkstra = new DijkstraAlgorithm(graph);
+			dijkstra.setQueueType(queue_type);
+
+			for (int n = 0; n < 10; n++) {
+				int source = rand.nextInt(node_count);
+
+				heap_dijkstra.execute(source);
+				dijkstra.execute(source);
+
+				for (int target = 0; target < node_count; target++)
+					assertEquals(TestGraphs.cost(graph,
+							heap_dijkstra.getPath(target)), TestGraphs.cost(
+									graph, dijkstra.getPath(target)));
+			}
+		}
+	}
+
+	private static int minimum(final int[] keys) {
+		int min = Integer.MAX_VALUE;
+		for (int key : keys)
+			if ((-1 != key) && (key < min))
+				min = key;
+		return min;
+	}
+
+	private static int count(final int[] keys) {
+		int count = 0;
+		for (int key : keys)
+			if (-1 != key)
+				count += 1;
+		return count;
+	}
+}
@@ -0,0 +1,168 @@
+/*
+ * Test the CSR form of a Graph against getAdjacencies() on a random
+ * directed graph, that removeNode() masks nodes without touching the
+ * shared arrays, and the CSR form of graphs without edges or vertexes.
+ */
+
+package dijkstra.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import dijkstra.engine.DijkstraAlgorithm;
+import dijkstra.model.CompressedGraph;
+import dijkstra.model.Edge;
+import dijkstra.model.Graph;
+import dijkstra.model.Vertex;
+
+public class CompressedGraphTest {
+
+	private static final int NODE_COUNT = 300;
+	private static final int EDGE_COUNT = 1200;
+
+	private Random rand = new Random();
+
+	private Graph randomGraph() {
+		List<Vertex> nodes = new ArrayList<Vertex>();
+		List<Edge> edges = new ArrayList<Edge>();
+
+		for (int n = 0; n < NODE_COUNT; n++)
+			nodes.add(new Vertex("Node_" + n));
+
+		for (int e = 0; e < EDGE_COUNT; e++)
+			edges.add(new Edge(nodes.get(rand.nextInt(NODE_COUNT)),
+					nodes.get(rand.nextInt(NODE_COUNT)), 1 + rand.nextInt(100)));
+
+		return new Graph(nodes, edges);
+	}
+
+	@Test
+	public void test() {
+		Graph graph = randomGraph();
+		CompressedGraph compressed_graph = graph.getCompressedGraph();
+
+		int[] offsets = compressed_graph.getOffsets();
+		int[] targets = compressed_graph.getTargets();
+		int[] weights = compressed_graph.getWeights();
+
+		assertEquals(NODE_COUNT, compressed_graph.getVertexCount());
+		assertEquals(EDGE_COUNT, compressed_graph.getEdgeCount());
+		assertEquals(NODE_COUNT + 1, offsets.length);
+		assertEquals(0, offsets[0]);
+		assertEquals(EDGE_COUNT, offsets[NODE_COUNT]);
+
+		int max_weight = 0;
+
+		/* The edges of every vertex, in the order of getEdges() */
+
+		for (int v = 0; v < NODE_COUNT; v++) {
+			Vertex vertex = graph.getVertexes().get(v);
+			List<Edge> adjacent = graph.getAdjacencies().get(vertex);
+
+			assertEquals(adjacent.size(), compressed_graph.getOutDegree(v));
+
+			for (int i = 0; i < adjacent.size(); i++) {
+				Edge edge = adjacent.get(i);
+
+				assertEquals(graph.indexOf(edge.getDestination()),
+						targets[offsets[v] + i]);
+				assertEquals(edge.getWeight(), weights[offsets[v] + i]);
+
+				max_weight = Math.max(max_weight, edge.getWeight());
+			}
+		}
+
+		assertEquals(max_weight, compressed_graph.getMaxWeight());
+
+		/* Built once and shared */
+
+		assertSame(compressed_graph, graph.getCompressedGraph());
+	}
+
+	@Test
+	public void testRemovedNodes() {
+		Graph graph = randomGraph();
+		CompressedGraph compressed_graph = graph.getCompressedGraph();
+
+		int[] offsets = compressed_graph.getOffsets().clone();
+		int[] targets = compressed_graph.getTargets().clone();
+		int[] weights = compressed_graph.getWeights().clone();
+
+		DijkstraAlgorithm dijkstra = new DijkstraAlgorithm(graph);
+
+		List<Vertex> removed = new ArrayList<Vertex>();
+
+		for (int n = 0; n < NODE_COUNT / 10; n++) {
+			int node = 1 + rand.nextInt(NODE_COUNT - 1);
+			dijkstra.removeNode(node);
+			removed.add(graph.getVertexes().get(node));
+		}
+
+		dijkstra.execute(0);
+
+		for (int node = 1; node < NODE_COUNT; node++) {
+			List<Vertex> path = dijkstra.getPath(node);
+
+			if (dijkstra.isRemoved(node)) {
+				assertNull(path);
+				continue;
+			}
+
+			if (null == path)
+				continue;
+
+			for (Vertex step : path)
+				assertTrue(false == removed.contains(step));
+		}
+
+		/* Removal is masked in the engine; the shared arrays are untouched */
+
+		assertArrayEquals(offsets, compressed_graph.getOffsets());
+		assertArrayEquals(targets, compressed_graph.getTargets());
+		assertArrayEquals(weights, compressed_graph.getWeights());
+	}
+
+	@Test
+	public void testEmpty() {
+		CompressedGraph empty = new Graph(new ArrayList<Vertex>(),
+				new ArrayList<Edge>()).getCompressedGraph();
+
+		assertEquals(0, empty.getVertexCount());
+		assertEquals(0, empty.getEdgeCount());
+		assertEquals(0, empty.getMaxWeight());
+		assertArrayEquals(new int[] { 0 }, empty.getOffsets());
+
+		List<Vertex> nodes = new ArrayList<Vertex>();
+
+		for (int n = 0; n < 3; n++)
+			nodes.add(new Vertex("Node_" + n));
+
+		CompressedGraph edgeless = new Graph(nodes,
+				new ArrayList<Edge>()).getCompressedGraph();
+
+		assertEquals(3, edgeless.getVertexCount());
+		assertEquals(0, edgeless.getEdgeCount());
+		assertArrayEquals(new int[4], edgeless.getOffsets());
+
+		/* Edges must stay within the graph */
+
+		List<Edge> edges = new ArrayList<Edge>();
+		edges.add(new Edge(nodes.get(0), new Vertex("Elsewhere"), 1));
+
+		try {
+			new Graph(nodes, edges).getCompressedGraph();
+			fail("Built a CSR form with an edge leaving the graph");
+		} catch (IllegalArgumentException ex) {
+		}
+	}
+}
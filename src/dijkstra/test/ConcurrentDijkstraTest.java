@@ -0,0 +1,139 @@
+/*
+ * Test one ConcurrentDijkstraAlgorithm queried from several threads at once
+ * against a sequential DijkstraAlgorithm, and its executeAll() batches
+ * against single shortestPath() queries.
+ */
+
+package dijkstra.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import dijkstra.engine.ConcurrentDijkstraAlgorithm;
+import dijkstra.engine.DijkstraAlgorithm;
+import dijkstra.engine.ShortestPathTree;
+import dijkstra.model.Graph;
+import dijkstra.model.Vertex;
+
+public class ConcurrentDijkstraTest {
+
+	private static final int X = 30;
+	private static final int Y = 30;
+
+	private static final int THREAD_COUNT = 4;
+	private static final int QUERY_COUNT = 50;
+
+	private Random rand = new Random();
+
+	@Test
+	public void testConcurrentQueries() throws Exception {
+		final Graph graph = TestGraphs.grid(X, Y, true);
+
+		final ConcurrentDijkstraAlgorithm concurrent_dijkstra =
+				new ConcurrentDijkstraAlgorithm(graph);
+
+		final int[] sources = new int[THREAD_COUNT * QUERY_COUNT];
+		final int[] targets = new int[THREAD_COUNT * QUERY_COUNT];
+
+		for (int n = 0; n < sources.length; n++) {
+			sources[n] = rand.nextInt(X*Y);
+			targets[n] = rand.nextInt(X*Y);
+		}
+
+		/* Every thread runs its share of full and point-to-point queries */
+
+		ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+		List<Future<int[]>> futures = new ArrayList<Future<int[]>>();
+
+		for (int t = 0; t < THREAD_COUNT; t++) {
+			final int from = t * QUERY_COUNT;
+
+			futures.add(executor.submit(new Callable<int[]>() {
+				@Override
+				public int[] call() {
+					int[] costs = new int[2 * QUERY_COUNT];
+
+					for (int n = 0; n < QUERY_COUNT; n++) {
+						int source = sources[from + n];
+						int target = targets[from + n];
+
+						ShortestPathTree tree =
+								concurrent_dijkstra.execute(source);
+
+						costs[2*n] = TestGraphs.cost(graph,
+								tree.getPath(target));
+						costs[2*n + 1] = TestGraphs.cost(graph,
+								concurrent_dijkstra.shortestPath(source,
+										target));
+					}
+
+					return costs;
+				}
+			}));
+		}
+
+		executor.shutdown();
+
+		DijkstraAlgorithm dijkstra = new DijkstraAlgorithm(graph);
+
+		for (int t = 0; t < THREAD_COUNT; t++) {
+			int[] costs = futures.get(t).get();
+
+			for (int n = 0; n < QUERY_COUNT; n++) {
+				dijkstra.execute(sources[t * QUERY_COUNT + n]);
+
+				int cost = TestGraphs.cost(graph,
+						dijkstra.getPath(targets[t * QUERY_COUNT + n]));
+
+				assertEquals(cost, costs[2*n]);
+				assertEquals(cost, costs[2*n + 1]);
+			}
+		}
+	}
+
+	@Test
+	public void testExecuteAll() {
+		Graph graph = TestGraphs.grid(X, Y, true);
+
+		ConcurrentDijkstraAlgorithm concurrent_dijkstra =
+				new ConcurrentDijkstraAlgorithm(graph);
+
+		/* Enough queries for several chunks per worker */
+
+		int[] sources = new int[THREAD_COUNT * QUERY_COUNT];
+		int[] targets = new int[THREAD_COUNT * QUERY_COUNT];
+
+		for (int n = 0; n < sources.length; n++) {
+			sources[n] = rand.nextInt(X*Y);
+			targets[n] = rand.nextInt(X*Y);
+		}
+
+		List<List<Vertex>> paths =
+				concurrent_dijkstra.executeAll(sources, targets);
+
+		assertEquals(sources.length, paths.size());
+
+		for (int n = 0; n < sources.length; n++)
+			assertEquals(concurrent_dijkstra.shortestPath(sources[n],
+					targets[n]), paths.get(n));
+
+		assertEquals(0, concurrent_dijkstra.executeAll(new int[0],
+				new int[0]).size());
+
+		try {
+			concurrent_dijkstra.executeAll(sources, new int[1]);
+			fail("Ran a batch with more sources than targets");
+		} catch (IllegalArgumentException ex) {
+		}
+	}
+}
@@ -0,0 +1,116 @@
+/*
+ * Test contraction hierarchy queries against plain Dijkstra on a grid like
+ * the one in GridTest, and on a random directed graph where the weights of
+ * the two directions differ and many pairs are unreachable.
+ */
+
+package dijkstra.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import dijkstra.engine.ContractionHierarchy;
+import dijkstra.engine.ContractionHierarchyAlgorithm;
+import dijkstra.engine.DijkstraAlgorithm;
+import dijkstra.model.Graph;
+import dijkstra.model.GraphBuilder;
+import dijkstra.model.Vertex;
+
+public class ContractionHierarchyTest {
+	
+	private static final int X = 40;
+	private static final int Y = 40;
+	
+	private static final int NODE_COUNT = 1000;
+	private static final int EDGE_COUNT = 2500;
+
+	private Random rand = new Random();
+
+	@Test
+	public void test() {
+		Graph graph = TestGraphs.grid(X, Y, true);
+		List<Vertex> nodes = graph.getVertexes();
+		
+		DijkstraAlgorithm dijkstra = new DijkstraAlgorithm(graph);
+		ContractionHierarchyAlgorithm ch = new ContractionHierarchyAlgorithm(
+				new ContractionHierarchy(graph));
+		
+		for (int n = 0; n < 100; n++) {
+			int source = rand.nextInt(X*Y);
+			int target = source;
+			while (target == source)
+				target = rand.nextInt(X*Y);
+			
+			dijkstra.execute(source);
+			List<Vertex> path = ch.shortestPath(source, target);
+			
+			assertNotNull(path);
+			assertEquals(nodes.get(target), path.get(0));
+			assertEquals(nodes.get(source), path.get(path.size() - 1));
+			assertEquals(TestGraphs.cost(graph, dijkstra.getPath(target)),
+					TestGraphs.cost(graph, path));
+			assertEquals(TestGraphs.cost(graph, path), ch.getDistance());
+		}
+		
+		assertNull(ch.shortestPath(0, 0));
+	}
+	
+	@Test
+	public void testDirected() {
+		List<Vertex> nodes = new ArrayList<Vertex>();
+		
+		for (int n = 0; n < NODE_COUNT; n++)
+			nodes.add(new Vertex("Node_" + n));
+		
+		/* One-way edges, some with a return edge of a different weight */
+		
+		GraphBuilder builder = new GraphBuilder(nodes);
+		
+		for (int n = 0; n < EDGE_COUNT; n++) {
+			int source = rand.nextInt(NODE_COUNT);
+			int dest = rand.nextInt(NODE_COUNT);
+			
+			builder.addEdge(source, dest, 1 + rand.nextInt(100));
+			
+			if (0 == rand.nextInt(3))
+				builder.addEdge(dest, source, 1 + rand.nextInt(1000));
+		}
+		
+		Graph graph = builder.build();
+		
+		DijkstraAlgorithm dijkstra = new DijkstraAlgorithm(graph);
+		ContractionHierarchyAlgorithm ch = new ContractionHierarchyAlgorithm(
+				new ContractionHierarchy(graph));
+		
+		for (int n = 0; n < 200; n++) {
+			int source = rand.nextInt(NODE_COUNT);
+			int target = source;
+			while (target == source)
+				target = rand.nextInt(NODE_COUNT);
+			
+			dijkstra.execute(source);
+			List<Vertex> expected = dijkstra.getPath(target);
+			List<Vertex> path = ch.shortestPath(source, target);
+			
+			if (null == expected) {
+				assertNull(path);
+				assertEquals(Integer.MAX_VALUE, ch.getDistance());
+				continue;
+			}
+			
+			assertNotNull(path);
+			assertEquals(nodes.get(target), path.get(0));
+			assertEquals(nodes.get(source), path.get(path.size() - 1));
+			assertEquals(TestGraphs.cost(graph, expected),
+					TestGraphs.cost(graph, path));
+			assertEquals(TestGraphs.cost(graph, path), ch.getDistance());
+		}
+	}
+}
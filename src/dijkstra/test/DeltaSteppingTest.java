@@ -0,0 +1,47 @@
+/*
+ * Test the Delta-stepping engine against DijkstraAlgorithm on a grid like the
+ * one in GridTest, for a range of bucket widths.
+ */
+
+package dijkstra.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import dijkstra.engine.DeltaSteppingAlgorithm;
+import dijkstra.engine.DijkstraAlgorithm;
+import dijkstra.model.Graph;
+
+public class DeltaSteppingTest {
+	
+	private static final int X = 40;
+	private static final int Y = 40;
+
+	private Random rand = new Random();
+
+	@Test
+	public void test() {
+		Graph graph = TestGraphs.grid(X, Y, true);
+		
+		DijkstraAlgorithm dijkstra = new DijkstraAlgorithm(graph);
+		
+		for (int delta : new int[] { 1, 50, 141, 1000 }) {
+			DeltaSteppingAlgorithm delta_stepping = 
+					new DeltaSteppingAlgorithm(graph, delta);
+			
+			for (int n = 0; n < 10; n++) {
+				int source = rand.nextInt(X*Y);
+				int target = rand.nextInt(X*Y);
+				
+				dijkstra.execute(source);
+				delta_stepping.execute(source);
+				
+				assertEquals(TestGraphs.cost(graph, dijkstra.getPath(target)), 
+						TestGraphs.cost(graph, delta_stepping.getPath(target)));
+			}
+		}
+	}
+}
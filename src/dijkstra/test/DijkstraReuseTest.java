@@ -0,0 +1,90 @@
+/*
+ * Test that a DijkstraAlgorithm reused for many queries, mixing full,
+ * early-exit and bounded searches with node removals, answers exactly like
+ * a new engine per query, for every queue type. resetSearch() only undoes
+ * what the previous search touched, so leftovers would show up here.
+ */
+
+package dijkstra.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import dijkstra.engine.DijkstraAlgorithm;
+import dijkstra.engine.DijkstraAlgorithm.QueueType;
+import dijkstra.model.Graph;
+import dijkstra.model.GraphBuilder;
+import dijkstra.model.Vertex;
+
+public class DijkstraReuseTest {
+
+	private static final int NODE_COUNT = 1000;
+	private static final int LANE_COUNT = 2500;
+
+	private static final int QUERY_COUNT = 200;
+
+	private Random rand = new Random();
+
+	@Test
+	public void test() {
+		List<Vertex> nodes = new ArrayList<Vertex>();
+
+		for (int n = 0; n < NODE_COUNT; n++)
+			nodes.add(new Vertex("Node_" + n));
+
+		GraphBuilder builder = new GraphBuilder(nodes);
+
+		for (int n = 0; n < LANE_COUNT; n++)
+			builder.addLane(rand.nextInt(NODE_COUNT), rand.nextInt(NODE_COUNT),
+					1 + rand.nextInt(100));
+
+		Graph graph = builder.build();
+
+		for (QueueType queue_type : QueueType.values()) {
+			DijkstraAlgorithm dijkstra = new DijkstraAlgorithm(graph);
+			dijkstra.setQueueType(queue_type);
+
+			for (int n = 0; n < QUERY_COUNT; n++) {
+				int source = rand.nextInt(NODE_COUNT);
+				int target = rand.nextInt(NODE_COUNT);
+
+				if (0 == rand.nextInt(10)) {
+					int node = rand.nextInt(NODE_COUNT);
+
+					if (dijkstra.isRemoved(node))
+						dijkstra.restoreNode(node);
+					else
+						dijkstra.removeNode(node);
+				}
+
+				DijkstraAlgorithm fresh = new DijkstraAlgorithm(dijkstra);
+				fresh.setQueueType(queue_type);
+
+				switch (rand.nextInt(3)) {
+				case 0:
+					dijkstra.execute(source);
+					fresh.execute(source);
+					break;
+				case 1:
+					dijkstra.execute(source, target);
+					fresh.execute(source, target);
+					break;
+				default:
+					dijkstra.executeWithin(source, 200);
+					fresh.executeWithin(source, 200);
+				}
+
+				assertEquals(fresh.getSettledCount(),
+						dijkstra.getSettledCount());
+
+				for (int node = 0; node < NODE_COUNT; node++)
+					assertEquals(fresh.getPath(node), dijkstra.getPath(node));
+			}
+		}
+	}
+}
@@ -0,0 +1,132 @@
+/*
+ * Test computeAllPairs() row by row against DijkstraAlgorithm on a random
+ * directed graph with unreachable pairs, with and without a blocked vertex,
+ * and its refusal of graphs too large for an int[] matrix.
+ */
+
+package dijkstra.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import dijkstra.engine.ConcurrentDijkstraAlgorithm;
+import dijkstra.engine.DijkstraAlgorithm;
+import dijkstra.engine.DistanceMatrix;
+import dijkstra.model.Edge;
+import dijkstra.model.Graph;
+import dijkstra.model.GraphBuilder;
+import dijkstra.model.GraphOverlay;
+import dijkstra.model.Vertex;
+
+public class DistanceMatrixTest {
+
+	private static final int NODE_COUNT = 200;
+	private static final int EDGE_COUNT = 500;
+
+	private Random rand = new Random();
+
+	/* Sparse enough that many pairs are unreachable; the last vertex has
+	 * no edges at all */
+
+	private Graph directedGraph() {
+		List<Vertex> nodes = new ArrayList<Vertex>();
+
+		for (int n = 0; n < NODE_COUNT; n++)
+			nodes.add(new Vertex("Node_" + n));
+
+		GraphBuilder builder = new GraphBuilder(nodes);
+
+		for (int n = 0; n < EDGE_COUNT; n++)
+			builder.addEdge(rand.nextInt(NODE_COUNT - 1),
+					rand.nextInt(NODE_COUNT - 1), 1 + rand.nextInt(100));
+
+		return builder.build();
+	}
+
+	@Test
+	public void test() {
+		Graph graph = directedGraph();
+
+		DistanceMatrix matrix =
+				new ConcurrentDijkstraAlgorithm(graph).computeAllPairs();
+
+		assertEquals(NODE_COUNT, matrix.getNodeCount());
+
+		check(graph, matrix, new DijkstraAlgorithm(graph));
+
+		assertEquals(Integer.MAX_VALUE, matrix.getDistance(0, NODE_COUNT - 1));
+		assertEquals(Integer.MAX_VALUE, matrix.getDistance(NODE_COUNT - 1, 0));
+	}
+
+	@Test
+	public void testOverlay() {
+		Graph graph = directedGraph();
+
+		/* The busiest vertex, so blocking it changes many distances */
+
+		int blocked = 0;
+
+		for (int v = 1; v < NODE_COUNT; v++)
+			if (graph.getCompressedGraph().getOutDegree(v)
+					> graph.getCompressedGraph().getOutDegree(blocked))
+				blocked = v;
+
+		GraphOverlay overlay = new GraphOverlay(graph);
+		overlay.blockVertex(blocked);
+
+		DijkstraAlgorithm dijkstra = new DijkstraAlgorithm(graph);
+		dijkstra.removeNode(blocked);
+
+		check(graph, new ConcurrentDijkstraAlgorithm(graph).computeAllPairs(
+				overlay), dijkstra);
+	}
+
+	@Test
+	public void testTooLarge() {
+		List<Vertex> nodes = new ArrayList<Vertex>();
+
+		/* 46341 * 46341 cells exceed the largest int[] */
+
+		for (int n = 0; n < 46341; n++)
+			nodes.add(new Vertex("Node_" + n));
+
+		Graph graph = new Graph(nodes, new ArrayList<Edge>());
+
+		try {
+			new ConcurrentDijkstraAlgorithm(graph).computeAllPairs();
+			fail("Allocated a distance matrix larger than an int[]");
+		} catch (IllegalArgumentException ex) {
+		}
+	}
+
+	/* Every row against a full execute() from its source */
+
+	private static void check(final Graph graph, final DistanceMatrix matrix,
+			final DijkstraAlgorithm dijkstra) {
+		for (int source = 0; source < NODE_COUNT; source++) {
+			dijkstra.execute(source);
+
+			int[] row = matrix.getRow(source);
+
+			for (int target = 0; target < NODE_COUNT; target++) {
+				int expected;
+
+				if (target == source)
+					expected = 0;
+				else if (null == dijkstra.getPath(target))
+					expected = Integer.MAX_VALUE;
+				else
+					expected = TestGraphs.cost(graph, dijkstra.getPath(target));
+
+				assertEquals(expected, row[target]);
+				assertEquals(expected, matrix.getDistance(source, target));
+			}
+		}
+	}
+}
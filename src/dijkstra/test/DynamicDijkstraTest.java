@@ -0,0 +1,65 @@
+/*
+ * Test the incremental tree repair of DynamicDijkstraAlgorithm against a
+ * tree computed from scratch after every change.
+ */
+
+package dijkstra.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import dijkstra.engine.DynamicDijkstraAlgorithm;
+import dijkstra.model.Edge;
+import dijkstra.model.Graph;
+
+public class DynamicDijkstraTest {
+	
+	private static final int X = 40;
+	private static final int Y = 40;
+
+	private Random rand = new Random();
+
+	@Test
+	public void test() {
+		Graph graph = TestGraphs.grid(X, Y, true);
+		List<Edge> edges = graph.getEdges();
+		
+		DynamicDijkstraAlgorithm repaired = new DynamicDijkstraAlgorithm(graph);
+		DynamicDijkstraAlgorithm recomputed = new DynamicDijkstraAlgorithm(graph);
+		
+		int source = rand.nextInt(X*Y);
+		repaired.execute(source);
+		
+		for (int n = 0; n < 500; n++) {
+			int node = rand.nextInt(X*Y);
+			
+			switch (rand.nextInt(3)) {
+			case 0:
+				repaired.removeNode(node);
+				recomputed.removeNode(node);
+				break;
+			case 1:
+				repaired.restoreNode(node);
+				recomputed.restoreNode(node);
+				break;
+			default:
+				Edge edge = edges.get(rand.nextInt(edges.size()));
+				int from = graph.indexOf(edge.getSource());
+				int to = graph.indexOf(edge.getDestination());
+				int weight = 50 + rand.nextInt(200);
+				
+				repaired.setEdgeWeight(from, to, weight);
+				recomputed.setEdgeWeight(from, to, weight);
+			}
+			
+			recomputed.execute(source);
+			
+			for (int v = 0; v < X*Y; v++)
+				assertEquals(recomputed.getDistance(v), repaired.getDistance(v));
+		}
+	}
+}
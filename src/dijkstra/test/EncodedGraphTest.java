@@ -0,0 +1,164 @@
+/*
+ * Test EncodedGraph against the CSR arrays it was encoded from, for random
+ * graphs with narrow, wide and constant weights, and EncodedDijkstraAlgorithm
+ * against ConcurrentDijkstraAlgorithm on them.
+ */
+
+package dijkstra.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import dijkstra.engine.ConcurrentDijkstraAlgorithm;
+import dijkstra.engine.DistanceMatrix;
+import dijkstra.engine.EncodedDijkstraAlgorithm;
+import dijkstra.engine.ShortestPathTree;
+import dijkstra.model.CompressedGraph;
+import dijkstra.model.EncodedGraph;
+import dijkstra.model.Graph;
+import dijkstra.model.GraphBuilder;
+import dijkstra.model.Vertex;
+
+public class EncodedGraphTest {
+
+	private static final int NODE_COUNT = 3000;
+	private static final int EDGE_COUNT = 20000;
+
+	private Random rand = new Random();
+
+	@Test
+	public void test() {
+		for (int max_weight : new int[] { 1, 100, 1000000, Integer.MAX_VALUE / 256 }) {
+			Graph graph = randomGraph(max_weight);
+			CompressedGraph compressed_graph = graph.getCompressedGraph();
+			EncodedGraph encoded_graph = EncodedGraph.encode(compressed_graph);
+
+			assertEquals(compressed_graph.getEdgeCount(),
+					encoded_graph.getEdgeCount());
+
+			checkEdges(compressed_graph, encoded_graph);
+
+			ConcurrentDijkstraAlgorithm engine =
+					new ConcurrentDijkstraAlgorithm(graph);
+			EncodedDijkstraAlgorithm encoded_engine =
+					new EncodedDijkstraAlgorithm(graph, encoded_graph);
+
+			for (int n = 0; n < 5; n++) {
+				int source = rand.nextInt(NODE_COUNT);
+
+				ShortestPathTree tree = engine.execute(source);
+				ShortestPathTree encoded_tree = encoded_engine.execute(source);
+
+				for (int target = 0; target < NODE_COUNT; target++) {
+					assertEquals(tree.getDistance(target),
+							encoded_tree.getDistance(target));
+
+					List<Vertex> path = encoded_tree.getPath(target);
+
+					if (null != path)
+						assertEquals(tree.getDistance(target),
+								TestGraphs.cost(graph, path));
+				}
+			}
+		}
+	}
+
+	/* Same edges per vertex, in target order */
+
+	private static void checkEdges(final CompressedGraph compressed_graph,
+			final EncodedGraph encoded_graph) {
+		int[] offsets = compressed_graph.getOffsets();
+		int[] targets = compressed_graph.getTargets();
+		int[] weights = compressed_graph.getWeights();
+
+		EncodedGraph.Cursor cursor = encoded_graph.cursor();
+
+		for (int v = 0; v < compressed_graph.getVertexCount(); v++) {
+			long[] expected = new long[offsets[v + 1] - offsets[v]];
+
+			for (int e = offsets[v]; e < offsets[v + 1]; e++)
+				expected[e - offsets[v]] = ((long) targets[e] << 32)
+						| weights[e];
+
+			Arrays.sort(expected);
+
+			long[] decoded = new long[expected.length];
+			int count = 0;
+
+			cursor.reset(v);
+
+			while (cursor.next())
+				decoded[count++] = ((long) cursor.target() << 32)
+						| cursor.weight();
+
+			assertFalse(cursor.next());
+			assertArrayEquals(expected, decoded);
+		}
+	}
+
+	@Test
+	public void testAllPairs() {
+		Graph graph = randomGraph(100);
+
+		DistanceMatrix matrix =
+				new ConcurrentDijkstraAlgorithm(graph).computeAllPairs();
+		DistanceMatrix encoded_matrix =
+				new EncodedDijkstraAlgorithm(graph).computeAllPairs();
+
+		for (int source = 0; source < NODE_COUNT; source += 7)
+			assertArrayEquals(matrix.getRow(source),
+					encoded_matrix.getRow(source));
+	}
+
+	/* Neighbours close to each other take a byte each */
+
+	@Test
+	public void testGrid() {
+		List<Vertex> nodes = new ArrayList<Vertex>();
+
+		for (int n = 0; n < 100 * 100; n++)
+			nodes.add(new Vertex("Node_" + n));
+
+		GraphBuilder builder = new GraphBuilder(nodes);
+
+		for (int n = 0; n < 100 * 100; n++) {
+			if (0 < (n % 100)) builder.addLane(n, n - 1, 100);
+			if (100 <= n) builder.addLane(n, n - 100, 141);
+		}
+
+		CompressedGraph compressed_graph = builder.build().getCompressedGraph();
+		EncodedGraph encoded_graph = EncodedGraph.encode(compressed_graph);
+
+		checkEdges(compressed_graph, encoded_graph);
+
+		long csr_size = 4L * (compressed_graph.getVertexCount() + 1
+				+ 2 * compressed_graph.getEdgeCount());
+
+		assertEquals(6, encoded_graph.getWeightBits());
+		assertTrue(encoded_graph.getByteSize() < csr_size / 2);
+	}
+
+	private Graph randomGraph(final int max_weight) {
+		List<Vertex> nodes = new ArrayList<Vertex>();
+
+		for (int n = 0; n < NODE_COUNT; n++)
+			nodes.add(new Vertex("Node_" + n));
+
+		GraphBuilder builder = new GraphBuilder(nodes).setDeduplicate(false);
+
+		for (int n = 0; n < EDGE_COUNT; n++)
+			builder.addEdge(rand.nextInt(NODE_COUNT), rand.nextInt(NODE_COUNT),
+					(1 == max_weight) ? 1 : rand.nextInt(max_weight));
+
+		return builder.build();
+	}
+}
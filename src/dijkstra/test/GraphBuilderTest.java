@@ -0,0 +1,111 @@
+/*
+ * Test GraphBuilder against the CSR form built from Edge lists, with and
+ * without deduplication, on a random graph large enough to be sorted in
+ * parallel.
+ */
+
+package dijkstra.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import dijkstra.engine.DijkstraAlgorithm;
+import dijkstra.model.CompressedGraph;
+import dijkstra.model.Edge;
+import dijkstra.model.Graph;
+import dijkstra.model.GraphBuilder;
+import dijkstra.model.Vertex;
+
+public class GraphBuilderTest {
+
+	private static final int NODE_COUNT = 2000;
+	private static final int EDGE_COUNT = 300000;
+
+	private Random rand = new Random();
+
+	@Test
+	public void test() {
+		List<Vertex> nodes = new ArrayList<Vertex>();
+		List<Edge> edges = new ArrayList<Edge>();
+
+		for (int n = 0; n < NODE_COUNT; n++)
+			nodes.add(new Vertex("Node_" + n));
+
+		GraphBuilder builder = new GraphBuilder(nodes).setDeduplicate(false);
+		GraphBuilder dedup_builder = new GraphBuilder(nodes);
+
+		/* Lightest weight of every (source, destination) pair */
+
+		Map<Long, Integer> lightest = new HashMap<Long, Integer>();
+
+		for (int e = 0; e < EDGE_COUNT; e++) {
+			int source = rand.nextInt(NODE_COUNT);
+			int dest = rand.nextInt(NODE_COUNT);
+			int weight = 1 + rand.nextInt(100);
+
+			edges.add(new Edge(nodes.get(source), nodes.get(dest), weight));
+			builder.addEdge(source, dest, weight);
+			dedup_builder.addEdge(source, dest, weight);
+
+			Long key = ((long) source * NODE_COUNT) + dest;
+			Integer known = lightest.get(key);
+			if ((known == null) || (known > weight))
+				lightest.put(key, weight);
+		}
+
+		CompressedGraph expected = new Graph(nodes, edges).getCompressedGraph();
+
+		Graph graph = builder.build();
+		CompressedGraph built = graph.getCompressedGraph();
+
+		assertArrayEquals(expected.getOffsets(), built.getOffsets());
+		assertArrayEquals(expected.getTargets(), built.getTargets());
+		assertArrayEquals(expected.getWeights(), built.getWeights());
+
+		assertEquals(EDGE_COUNT, graph.getEdges().size());
+
+		int adjacent = 0;
+		for (List<Edge> vertex_edges : graph.getAdjacencies().values())
+			adjacent += vertex_edges.size();
+		assertEquals(EDGE_COUNT, adjacent);
+
+		Graph dedup_graph = dedup_builder.build();
+		CompressedGraph deduplicated = dedup_graph.getCompressedGraph();
+
+		assertEquals(lightest.size(), deduplicated.getEdgeCount());
+
+		for (int v = 0; v < NODE_COUNT; v++) {
+			for (int e = deduplicated.getOffsets()[v];
+					e < deduplicated.getOffsets()[v + 1]; e++) {
+				Long key = ((long) v * NODE_COUNT)
+						+ deduplicated.getTargets()[e];
+				assertEquals(lightest.get(key).intValue(),
+						deduplicated.getWeights()[e]);
+			}
+		}
+
+		/* Merging duplicates into the lightest edge keeps all distances */
+
+		DijkstraAlgorithm dijkstra = new DijkstraAlgorithm(graph);
+		DijkstraAlgorithm dedup_dijkstra = new DijkstraAlgorithm(dedup_graph);
+
+		for (int n = 0; n < 10; n++) {
+			int source = rand.nextInt(NODE_COUNT);
+			int target = rand.nextInt(NODE_COUNT);
+
+			dijkstra.execute(source);
+			dedup_dijkstra.execute(source);
+
+			assertEquals(TestGraphs.cost(graph, dijkstra.getPath(target)),
+					TestGraphs.cost(dedup_graph, dedup_dijkstra.getPath(target)));
+		}
+	}
+}
@@ -0,0 +1,96 @@
+/*
+ * Test writing a grid like the one in GridTest to a graph file, mapping it
+ * back and querying it, and a direct copy of the grid, with
+ * BufferDijkstraAlgorithm.
+ */
+
+package dijkstra.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import dijkstra.engine.BufferDijkstraAlgorithm;
+import dijkstra.engine.DijkstraAlgorithm;
+import dijkstra.model.BufferGraph;
+import dijkstra.model.Graph;
+import dijkstra.model.GraphFile;
+import dijkstra.model.Vertex;
+
+public class GraphFileTest {
+
+	private static final int X = 40;
+	private static final int Y = 40;
+
+	private Random rand = new Random();
+
+	@Test
+	public void test() throws IOException {
+		Graph graph = TestGraphs.grid(X, Y, true);
+		List<Vertex> nodes = graph.getVertexes();
+
+		File file = File.createTempFile("grid", ".graph");
+		file.deleteOnExit();
+
+		GraphFile.write(graph, file);
+
+		BufferGraph mapped = GraphFile.map(file);
+
+		assertEquals(X*Y, mapped.getVertexCount());
+		assertEquals(graph.getEdges().size(), mapped.getEdgeCount());
+
+		for (int n = 0; n < X*Y; n++) {
+			assertEquals(nodes.get(n), mapped.getVertex(n));
+			assertEquals(n, mapped.indexOf("Node_" + n));
+		}
+
+		/* Same queue and edge order, so ties are broken the same way */
+
+		DijkstraAlgorithm dijkstra = new DijkstraAlgorithm(graph);
+		dijkstra.setQueueType(DijkstraAlgorithm.QueueType.INDEXED_HEAP);
+
+		BufferDijkstraAlgorithm buffer_dijkstra =
+				new BufferDijkstraAlgorithm(mapped);
+		BufferDijkstraAlgorithm direct_dijkstra =
+				new BufferDijkstraAlgorithm(BufferGraph.allocateDirect(graph));
+
+		for (int n = 0; n < 10; n++) {
+			int source = rand.nextInt(X*Y);
+
+			/* An early exit first, which must leave nothing behind */
+
+			buffer_dijkstra.execute(rand.nextInt(X*Y), rand.nextInt(X*Y));
+			direct_dijkstra.execute(rand.nextInt(X*Y), rand.nextInt(X*Y));
+
+			dijkstra.execute(source);
+			buffer_dijkstra.execute(source);
+			direct_dijkstra.execute(source);
+
+			for (int target = 0; target < X*Y; target++) {
+				assertEquals(dijkstra.getPath(target),
+						buffer_dijkstra.getPath(target));
+				assertEquals(dijkstra.getPath(target),
+						direct_dijkstra.getPath(target));
+			}
+		}
+
+		/* Anything else is rejected */
+
+		FileOutputStream out = new FileOutputStream(file);
+		out.write(new byte[64]);
+		out.close();
+
+		try {
+			GraphFile.map(file);
+			fail("Mapped a file without a header");
+		} catch (IOException ex) {
+		}
+	}
+}
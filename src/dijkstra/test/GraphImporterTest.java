@@ -0,0 +1,190 @@
+/*
+ * Test GraphImporter on a random DIMACS file large enough to be split into
+ * several regions, comparing sequential and parallel parsing with a graph
+ * built from the same arcs, and on a small CSV file.
+ */
+
+package dijkstra.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import dijkstra.engine.DijkstraAlgorithm;
+import dijkstra.model.CompressedGraph;
+import dijkstra.model.Graph;
+import dijkstra.model.GraphBuilder;
+import dijkstra.model.GraphImporter;
+import dijkstra.model.Vertex;
+
+public class GraphImporterTest {
+
+	private static final int NODE_COUNT = 20000;
+	private static final int ARC_COUNT = 300000;
+
+	private Random rand = new Random();
+
+	@Test
+	public void testDimacs() throws IOException {
+		List<Vertex> nodes = new ArrayList<Vertex>();
+
+		for (int n = 1; n <= NODE_COUNT; n++)
+			nodes.add(new Vertex(Integer.toString(n)));
+
+		GraphBuilder builder = new GraphBuilder(nodes);
+
+		File gr_file = File.createTempFile("random", ".gr");
+		gr_file.deleteOnExit();
+
+		BufferedWriter out = new BufferedWriter(new FileWriter(gr_file));
+		out.write("c random graph\n");
+		out.write("p sp " + NODE_COUNT + " " + ARC_COUNT + "\n");
+
+		for (int a = 0; a < ARC_COUNT; a++) {
+			int source = rand.nextInt(NODE_COUNT);
+			int destination = rand.nextInt(NODE_COUNT);
+			int weight = rand.nextInt(10000);
+
+			builder.addEdge(source, destination, weight);
+
+			/* Windows line ends and comments in between are fine too */
+
+			if (0 == (a % 1000))
+				out.write("c arc " + a + "\r\n");
+
+			out.write("a " + (source + 1) + " " + (destination + 1) + " "
+					+ weight + ((0 == (a % 7)) ? "\r\n" : "\n"));
+		}
+
+		out.close();
+
+		File co_file = File.createTempFile("random", ".co");
+		co_file.deleteOnExit();
+
+		out = new BufferedWriter(new FileWriter(co_file));
+		out.write("p aux sp co " + NODE_COUNT + "\n");
+
+		for (int n = 1; n <= NODE_COUNT; n++)
+			out.write("v " + n + " " + (-n) + " " + (2 * n) + "\n");
+
+		out.close();
+
+		/* Split into regions even on a single core */
+
+		assertTrue(gr_file.length() > (4 << 20));
+
+		CompressedGraph expected = builder.build().getCompressedGraph();
+
+		Graph sequential = new GraphImporter().readDimacs(gr_file);
+		Graph parallel = new GraphImporter().setParallel(true)
+				.readDimacs(gr_file, co_file);
+
+		for (Graph graph : new Graph[] { sequential, parallel }) {
+			CompressedGraph compressed = graph.getCompressedGraph();
+
+			assertArrayEquals(expected.getOffsets(), compressed.getOffsets());
+			assertArrayEquals(expected.getTargets(), compressed.getTargets());
+			assertArrayEquals(expected.getWeights(), compressed.getWeights());
+		}
+
+		for (int n = 0; n < NODE_COUNT; n += 97) {
+			Vertex vertex = parallel.getVertexes().get(n);
+
+			assertEquals(nodes.get(n), vertex);
+			assertEquals(-(n + 1), vertex.getX(), 0);
+			assertEquals(2 * (n + 1), vertex.getY(), 0);
+		}
+
+		/* An arc ahead of the problem line is rejected in both modes */
+
+		File early_file = File.createTempFile("early", ".gr");
+		early_file.deleteOnExit();
+
+		FileOutputStream early_out = new FileOutputStream(early_file);
+		early_out.write("a 1 2 10\n".getBytes(StandardCharsets.US_ASCII));
+		early_out.write(Files.readAllBytes(gr_file.toPath()));
+		early_out.close();
+
+		for (boolean parallel_read : new boolean[] { false, true }) {
+			try {
+				new GraphImporter().setParallel(parallel_read)
+						.readDimacs(early_file);
+				fail("Read an arc before the problem line");
+			} catch (IOException ex) {
+				assertEquals("Arc before the problem line", ex.getMessage());
+			}
+		}
+
+		/* Arcs to vertexes beyond the problem line are rejected */
+
+		out = new BufferedWriter(new FileWriter(gr_file));
+		out.write("p sp 2 1\na 1 3 10\n");
+		out.close();
+
+		try {
+			new GraphImporter().readDimacs(gr_file);
+			fail("Read an arc to an unknown vertex");
+		} catch (IOException ex) {
+		}
+	}
+
+	@Test
+	public void testCsv() throws IOException {
+		File csv_file = File.createTempFile("lanes", ".csv");
+		csv_file.deleteOnExit();
+
+		BufferedWriter out = new BufferedWriter(new FileWriter(csv_file));
+		out.write("source,destination,weight\n");
+		out.write("# two ways from A to D\n");
+		out.write("A,B,1\n");
+		out.write("B,D,5\n");
+		out.write("\n");
+		out.write("A, C, 2\r\n");
+		out.write("C,D,2\n");
+		out.write("C,D,7");
+		out.close();
+
+		Graph graph = new GraphImporter().readCsv(csv_file);
+
+		assertEquals(4, graph.getVertexes().size());
+		assertEquals(4, graph.getCompressedGraph().getEdgeCount());
+
+		DijkstraAlgorithm dijkstra = new DijkstraAlgorithm(graph);
+		dijkstra.execute(graph.indexOf(new Vertex("A")));
+
+		List<Vertex> path = dijkstra.getPath(new Vertex("D"));
+
+		assertEquals(3, path.size());
+		assertEquals(new Vertex("C"), path.get(1));
+
+		/* Without deduplication the heavier C -> D stays */
+
+		graph = new GraphImporter().setDeduplicate(false).readCsv(csv_file);
+		assertEquals(5, graph.getCompressedGraph().getEdgeCount());
+
+		out = new BufferedWriter(new FileWriter(csv_file));
+		out.write("A,B,1\nB,C,x\n");
+		out.close();
+
+		try {
+			new GraphImporter().readCsv(csv_file);
+			fail("Read a malformed weight");
+		} catch (IOException ex) {
+			assertTrue(ex.getMessage().contains("B,C,x"));
+		}
+	}
+}
@@ -0,0 +1,130 @@
+/*
+ * Test overlay queries of ConcurrentDijkstraAlgorithm against DijkstraAlgorithm
+ * on graphs with the same changes applied, for several overlays of one grid
+ * queried concurrently.
+ */
+
+package dijkstra.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import dijkstra.engine.ConcurrentDijkstraAlgorithm;
+import dijkstra.engine.DijkstraAlgorithm;
+import dijkstra.engine.ShortestPathTree;
+import dijkstra.model.CompressedGraph;
+import dijkstra.model.Edge;
+import dijkstra.model.Graph;
+import dijkstra.model.GraphOverlay;
+import dijkstra.model.Vertex;
+
+public class GraphOverlayTest {
+
+	private static final int X = 30;
+	private static final int Y = 30;
+
+	private static final int OVERLAY_COUNT = 8;
+
+	private Random rand = new Random();
+
+	@Test
+	public void test() throws Exception {
+		final Graph graph = TestGraphs.grid(X, Y, false);
+		final List<Vertex> nodes = graph.getVertexes();
+		final CompressedGraph compressed_graph = graph.getCompressedGraph();
+
+		final ConcurrentDijkstraAlgorithm engine =
+				new ConcurrentDijkstraAlgorithm(graph);
+
+		List<GraphOverlay> overlays = new ArrayList<GraphOverlay>();
+
+		for (int o = 0; o < OVERLAY_COUNT; o++) {
+			GraphOverlay overlay = new GraphOverlay(graph);
+
+			for (int n = 0; n < 40; n++)
+				overlay.blockVertex(rand.nextInt(X*Y));
+
+			for (int n = 0; n < 40; n++) {
+				int from = rand.nextInt(X*Y);
+				int to = compressed_graph.getTargets()[
+						compressed_graph.getOffsets()[from]];
+
+				if (0 == (n % 2))
+					overlay.blockEdge(from, to);
+				else
+					overlay.setEdgeWeight(from, to, rand.nextInt(1000));
+			}
+
+			overlays.add(overlay);
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		List<Future<ShortestPathTree>> trees =
+				new ArrayList<Future<ShortestPathTree>>();
+
+		final int source = rand.nextInt(X*Y);
+
+		for (final GraphOverlay overlay : overlays) {
+			trees.add(executor.submit(new Callable<ShortestPathTree>() {
+				@Override
+				public ShortestPathTree call() {
+					return engine.execute(source, overlay);
+				}
+			}));
+		}
+
+		for (int o = 0; o < OVERLAY_COUNT; o++) {
+			DijkstraAlgorithm dijkstra = new DijkstraAlgorithm(
+					applied(nodes, compressed_graph, overlays.get(o)));
+
+			for (int n = 0; n < X*Y; n++)
+				if ((n != source) && overlays.get(o).isVertexBlocked(n))
+					dijkstra.removeNode(n);
+
+			dijkstra.execute(source);
+
+			ShortestPathTree tree = trees.get(o).get();
+
+			for (int n = 0; n < X*Y; n++)
+				assertEquals(TestGraphs.cost(overlays.get(o), dijkstra.getPath(n)),
+						TestGraphs.cost(overlays.get(o), tree.getPath(n)));
+		}
+
+		executor.shutdown();
+
+		/* The base graph is unchanged */
+
+		ShortestPathTree tree = engine.execute(0);
+		assertEquals(100 * (X - 1 + Y - 1), tree.getDistance(X*Y - 1));
+	}
+
+	/* The overlay's changes made to a copy of the graph */
+
+	private Graph applied(final List<Vertex> nodes,
+			final CompressedGraph compressed_graph, final GraphOverlay overlay) {
+		List<Edge> edges = new ArrayList<Edge>();
+
+		for (int v = 0; v < nodes.size(); v++) {
+			for (int e = compressed_graph.getOffsets()[v];
+					e < compressed_graph.getOffsets()[v + 1]; e++) {
+				if (overlay.isEdgeBlocked(e))
+					continue;
+
+				edges.add(new Edge(nodes.get(v),
+						nodes.get(compressed_graph.getTargets()[e]),
+						overlay.weight(e)));
+			}
+		}
+
+		return new Graph(nodes, edges);
+	}
+}
@@ -0,0 +1,203 @@
+/*
+ * Test vertex ordinals, lookups by id with repeated ids and vertexes shared
+ * between graphs, the symbol table and id-less edges.
+ */
+
+package dijkstra.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import dijkstra.model.Edge;
+import dijkstra.model.Graph;
+import dijkstra.model.SymbolTable;
+import dijkstra.model.Vertex;
+
+public class GraphTest {
+
+	private static final int NODE_COUNT = 100;
+
+	@Test
+	public void testOrdinals() {
+		List<Vertex> nodes = new ArrayList<Vertex>();
+		List<Edge> edges = new ArrayList<Edge>();
+
+		for (int n = 0; n < NODE_COUNT; n++)
+			nodes.add(new Vertex("Node_" + n));
+
+		for (int n = 1; n < NODE_COUNT; n++)
+			Graph.addLane(edges, nodes, n, n-1, 100);
+
+		assertEquals(-1, nodes.get(0).getOrdinal());
+
+		Graph graph = new Graph(nodes, edges);
+
+		for (int n = 0; n < NODE_COUNT; n++) {
+			assertEquals(n, nodes.get(n).getOrdinal());
+			assertEquals(n, nodes.get(n).getIdInteger());
+			assertEquals(n, graph.indexOf(nodes.get(n)));
+
+			/* Equal vertexes are found through the symbol table */
+
+			assertEquals(n, graph.indexOf(new Vertex("Node_" + n)));
+			assertEquals(n, graph.indexOf("Node_" + n));
+		}
+
+		assertEquals(-1, graph.indexOf(new Vertex("Node_" + NODE_COUNT)));
+
+		/* A graph over the same vertexes in another order */
+
+		List<Vertex> reversed = new ArrayList<Vertex>(nodes);
+		Collections.reverse(reversed);
+
+		Graph reversed_graph = new Graph(reversed, edges);
+
+		assertEquals(0, nodes.get(0).getOrdinal());
+		assertEquals(NODE_COUNT - 1, reversed_graph.indexOf(nodes.get(0)));
+
+		assertEquals(2 * (NODE_COUNT - 1),
+				graph.getCompressedGraph().getEdgeCount());
+	}
+
+	@Test
+	public void testDuplicateIds() {
+		Vertex a = new Vertex("A");
+		Vertex other_a = new Vertex("A");
+		Vertex c = new Vertex("C");
+		Vertex d = new Vertex("D");
+
+		List<Vertex> nodes = new ArrayList<Vertex>();
+		nodes.add(a);
+		nodes.add(new Vertex("B"));
+		nodes.add(other_a);
+		nodes.add(c);
+		nodes.add(d);
+
+		List<Edge> edges = new ArrayList<Edge>();
+		edges.add(new Edge(c, d, 1));
+
+		Graph graph = new Graph(nodes, edges);
+
+		/* Ids after the repeated one still find their own position */
+
+		assertEquals(0, graph.indexOf("A"));
+		assertEquals(1, graph.indexOf("B"));
+		assertEquals(3, graph.indexOf("C"));
+		assertEquals(4, graph.indexOf(new Vertex("D")));
+		assertEquals(-1, graph.indexOf("E"));
+
+		/* The vertexes themselves answer with their own position */
+
+		assertEquals(0, graph.indexOf(a));
+		assertEquals(2, graph.indexOf(other_a));
+
+		assertEquals(4, graph.getSymbolTable().size());
+
+		int[] offsets = graph.getCompressedGraph().getOffsets();
+		assertEquals(1, offsets[4] - offsets[3]);
+		assertEquals(4, graph.getCompressedGraph().getTargets()[offsets[3]]);
+	}
+
+	@Test
+	public void testSharedVertexes() {
+		Vertex x = new Vertex("X");
+		Vertex y = new Vertex("Y");
+		Vertex z = new Vertex("Z");
+
+		List<Vertex> first_nodes = new ArrayList<Vertex>();
+		first_nodes.add(x);
+		first_nodes.add(y);
+		first_nodes.add(z);
+
+		new Graph(first_nodes, new ArrayList<Edge>());
+
+		/* The second graph numbers the shared vertexes differently, and
+		 * repeats an id before them */
+
+		List<Vertex> nodes = new ArrayList<Vertex>();
+		nodes.add(new Vertex("W"));
+		nodes.add(new Vertex("W"));
+		nodes.add(z);
+		nodes.add(x);
+
+		List<Edge> edges = new ArrayList<Edge>();
+		edges.add(new Edge(z, x, 1));
+
+		Graph graph = new Graph(nodes, edges);
+
+		assertEquals(2, z.getOrdinal());
+		assertEquals(0, x.getOrdinal());
+
+		assertEquals(2, graph.indexOf(z));
+		assertEquals(3, graph.indexOf(x));
+		assertEquals(-1, graph.indexOf(y));
+
+		int[] offsets = graph.getCompressedGraph().getOffsets();
+		assertEquals(1, offsets[3] - offsets[2]);
+		assertEquals(3, graph.getCompressedGraph().getTargets()[offsets[2]]);
+	}
+
+	@Test
+	public void testSymbolTable() {
+		SymbolTable symbols = new SymbolTable();
+
+		assertEquals(0, symbols.intern("a"));
+		assertEquals(1, symbols.intern("b"));
+		assertEquals(0, symbols.intern("a"));
+
+		assertEquals(2, symbols.size());
+		assertEquals(1, symbols.indexOf("b"));
+		assertEquals(-1, symbols.indexOf("c"));
+		assertEquals("b", symbols.nameOf(1));
+	}
+
+	@Test
+	public void testEdgeIdentity() {
+		Vertex a = new Vertex("A");
+		Vertex b = new Vertex("B");
+
+		Edge edge = new Edge(a, b, 5);
+
+		assertFalse(edge.hasId());
+		assertEquals(new Edge(a, b, 5), edge);
+		assertEquals(new Edge(a, b, 5).hashCode(), edge.hashCode());
+		assertFalse(edge.equals(new Edge(b, a, 5)));
+		assertFalse(edge.equals(new Edge(a, b, 6)));
+		assertFalse(edge.equals(new Edge("A_B", a, b, 5)));
+
+		assertTrue(new Edge("A_B", a, b, 5).equals(new Edge("A_B", a, b, 7)));
+
+		/* Lanes keep their "Lane_<source>_<destination>" ids and compare
+		 * by them, built once on demand */
+
+		List<Vertex> nodes = new ArrayList<Vertex>();
+		nodes.add(a);
+		nodes.add(b);
+
+		List<Edge> edges = new ArrayList<Edge>();
+		Graph.addLane(edges, nodes, 0, 1, 5);
+		Graph.addLane(edges, nodes, 0, 1, 7);
+
+		Edge lane = edges.get(0);
+
+		assertTrue(lane.hasId());
+		assertEquals("Lane_0_1", lane.getId());
+		assertEquals("Lane_1_0", edges.get(1).getId());
+		assertSame(lane.getId(), lane.getId());
+
+		assertEquals(edges.get(2), lane);
+		assertFalse(lane.equals(edges.get(1)));
+		assertEquals(new Edge("Lane_0_1", a, b, 9), lane);
+		assertEquals(lane, new Edge("Lane_0_1", a, b, 9));
+		assertEquals(new Edge("Lane_0_1", a, b, 9).hashCode(), lane.hashCode());
+		assertFalse(lane.equals(new Edge(a, b, 5)));
+	}
+}
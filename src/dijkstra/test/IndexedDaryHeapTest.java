@@ -0,0 +1,115 @@
+/*
+ * Test the indexed d-ary heap used by DijkstraAlgorithm against a brute
+ * force scan of the queued keys, and its off-heap twin against it.
+ */
+
+package dijkstra.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import dijkstra.engine.BufferDaryHeap;
+import dijkstra.engine.IndexedDaryHeap;
+
+public class IndexedDaryHeapTest {
+	
+	private static final int NODE_COUNT = 500;
+	private static final int OPERATION_COUNT = 20000;
+	
+	private static Random rand = new Random(System.currentTimeMillis());
+
+	@Test
+	public void test() {
+		for (int arity = 2; arity <= 8; arity++) {
+			IndexedDaryHeap heap = new IndexedDaryHeap(NODE_COUNT, arity);
+			
+			int[] keys = new int[NODE_COUNT];
+			Arrays.fill(keys, -1);
+			
+			for (int n = 0; n < OPERATION_COUNT; n++) {
+				int node = rand.nextInt(NODE_COUNT);
+				
+				switch (rand.nextInt(4)) {
+				case 0:
+				case 1:
+					int key = rand.nextInt(1000);
+					heap.offer(node, key);
+					if ((-1 == keys[node]) || (key < keys[node]))
+						keys[node] = key;
+					break;
+				case 2:
+					if (heap.isEmpty())
+						break;
+					int min_key = heap.peekKey();
+					int min_node = heap.poll();
+					assertEquals(minimum(keys), min_key);
+					assertEquals(keys[min_node], min_key);
+					keys[min_node] = -1;
+					break;
+				default:
+					heap.remove(node);
+					keys[node] = -1;
+				}
+				
+				assertEquals(count(keys), heap.size());
+			}
+			
+			heap.clear();
+			assertTrue(heap.isEmpty());
+			
+			for (int node = 0; node < NODE_COUNT; node++)
+				assertFalse(heap.contains(node));
+		}
+	}
+	
+	/* Same operations, same nodes polled */
+
+	@Test
+	public void testBuffer() {
+		for (int arity = 2; arity <= 8; arity++) {
+			IndexedDaryHeap heap = new IndexedDaryHeap(NODE_COUNT, arity);
+			BufferDaryHeap buffer_heap = new BufferDaryHeap(NODE_COUNT, arity);
+
+			for (int n = 0; n < OPERATION_COUNT; n++) {
+				if ((0 == rand.nextInt(3)) && (false == heap.isEmpty())) {
+					assertEquals(heap.poll(), buffer_heap.poll());
+				} else {
+					int node = rand.nextInt(NODE_COUNT);
+					int key = rand.nextInt(1000);
+					heap.offer(node, key);
+					buffer_heap.offer(node, key);
+				}
+
+				assertEquals(heap.size(), buffer_heap.size());
+			}
+
+			buffer_heap.clear();
+			assertTrue(buffer_heap.isEmpty());
+
+			for (int node = 0; node < NODE_COUNT; node++)
+				assertFalse(buffer_heap.contains(node));
+		}
+	}
+
+	private static int minimum(final int[] keys) {
+		int min = Integer.MAX_VALUE;
+		for (int key : keys)
+			if ((-1 != key) && (key < min))
+				min = key;
+		return min;
+	}
+	
+	private static int count(final int[] keys) {
+		int count = 0;
+		for (int key : keys)
+			if (-1 != key)
+				count += 1;
+		return count;
+	}
+}
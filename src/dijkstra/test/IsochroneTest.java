@@ -0,0 +1,61 @@
+/*
+ * Test the early-exit queries, execute(source, target) and executeWithin(),
+ * of both engines on a grid like the one in GridTest.
+ */
+
+package dijkstra.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import dijkstra.engine.DijkstraAlgorithm;
+import dijkstra.engine.Isochrone;
+import dijkstra.engine.ParallelDijkstraAlgorithm;
+import dijkstra.model.Graph;
+import dijkstra.model.Vertex;
+
+public class IsochroneTest {
+	
+	private static final int X = 30;
+	private static final int Y = 30;
+
+	@Test
+	public void test() {
+		Graph graph = TestGraphs.grid(X, Y, false);
+		List<Vertex> nodes = graph.getVertexes();
+		
+		DijkstraAlgorithm dijkstra = new DijkstraAlgorithm(graph);
+		ParallelDijkstraAlgorithm parallel_dijkstra = 
+				new ParallelDijkstraAlgorithm(graph);
+		
+		/* Two steps from a corner: the corner, 2 nodes at 100, 3 at 200 */
+		
+		Isochrone isochrone = dijkstra.executeWithin(0, 250);
+		
+		assertEquals(6, isochrone.size());
+		assertEquals(200, isochrone.getDistance(5));
+		assertEquals(nodes.get(0), isochrone.getVertexes().get(0));
+		
+		isochrone = parallel_dijkstra.executeWithin(0, 250);
+		
+		assertEquals(6, isochrone.size());
+		assertEquals(200, isochrone.getDistance(5));
+		
+		/* The target query settles fewer nodes but finds the same path */
+		
+		int target = X + 1;
+		
+		dijkstra.execute(0, target);
+		assertEquals(3, dijkstra.getPath(target).size());
+		assertTrue(dijkstra.getSettledCount() < X*Y);
+		
+		parallel_dijkstra.execute(0, target);
+		assertEquals(3, parallel_dijkstra.getPath(target).size());
+		
+		parallel_dijkstra.terminate();
+	}
+}
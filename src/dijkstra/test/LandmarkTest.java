@@ -0,0 +1,161 @@
+/*
+ * Test the ALT engine on a random maze without coordinates, like the ones
+ * in WumpusTest but with one-way lanes of random length, and on a perfect
+ * maze carved out of a grid, where the only path between two cells winds
+ * far from the straight line and a single landmark has to do.
+ */
+
+package dijkstra.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import dijkstra.engine.DijkstraAlgorithm;
+import dijkstra.engine.LandmarkAlgorithm;
+import dijkstra.engine.Landmarks;
+import dijkstra.model.Edge;
+import dijkstra.model.Graph;
+import dijkstra.model.Vertex;
+
+public class LandmarkTest {
+	
+	private static final int NODE_COUNT = 2000;
+	private static final int LANE_COUNT = 6000;
+	
+	private static final int X = 40;
+	private static final int Y = 40;
+	
+	private List<Vertex> nodes;
+	private List<Edge> edges;
+	
+	private Random rand = new Random();
+
+	@Test
+	public void test() {
+		nodes = new ArrayList<Vertex>();
+		edges = new ArrayList<Edge>();
+		
+		for (int n = 0; n < NODE_COUNT; n++)
+			nodes.add(new Vertex("Node_" + n));
+		
+		for (int n = 0; n < LANE_COUNT; n++) {
+			int source = rand.nextInt(NODE_COUNT);
+			int dest = rand.nextInt(NODE_COUNT);
+			
+			edges.add(new Edge("Lane_" + n, nodes.get(source), nodes.get(dest),
+					1 + rand.nextInt(100)));
+		}
+		
+		Graph graph = new Graph(nodes, edges);
+		
+		DijkstraAlgorithm dijkstra = new DijkstraAlgorithm(graph);
+		
+		for (Landmarks.Strategy strategy : Landmarks.Strategy.values()) {
+			LandmarkAlgorithm alt = new LandmarkAlgorithm(
+					new Landmarks(graph, 8, strategy));
+			
+			int dijkstra_settled = 0;
+			int alt_settled = 0;
+			
+			for (int n = 0; n < 100; n++) {
+				int source = rand.nextInt(NODE_COUNT);
+				int target = rand.nextInt(NODE_COUNT);
+				
+				dijkstra.execute(source);
+				List<Vertex> path = alt.shortestPath(source, target);
+				
+				assertEquals(TestGraphs.cost(graph, dijkstra.getPath(target)),
+						TestGraphs.cost(graph, path));
+				
+				/* Landmark bounds are consistent: no node settles twice */
+				
+				assertTrue(alt.getSettledCount() <= dijkstra.getSettledCount());
+				
+				dijkstra_settled += dijkstra.getSettledCount();
+				alt_settled += alt.getSettledCount();
+			}
+			
+			assertTrue(alt_settled < dijkstra_settled);
+		}
+	}
+	
+	@Test
+	public void testMaze() {
+		Graph graph = carveMaze();
+		
+		DijkstraAlgorithm dijkstra = new DijkstraAlgorithm(graph);
+		
+		for (Landmarks.Strategy strategy : Landmarks.Strategy.values()) {
+			for (int count : new int[] { 1, 8 }) {
+				LandmarkAlgorithm alt = new LandmarkAlgorithm(
+						new Landmarks(graph, count, strategy));
+				
+				for (int n = 0; n < 50; n++) {
+					int source = rand.nextInt(X*Y);
+					int target = rand.nextInt(X*Y);
+					
+					dijkstra.execute(source);
+					List<Vertex> path = alt.shortestPath(source, target);
+					
+					assertEquals(TestGraphs.cost(graph, 
+							dijkstra.getPath(target)), 
+							TestGraphs.cost(graph, path));
+					assertTrue(alt.getSettledCount() 
+							<= dijkstra.getSettledCount());
+				}
+			}
+		}
+	}
+	
+	/*
+	 * Spanning tree of an X by Y grid grown by a randomized depth-first
+	 * search, with lanes of random length and no vertex coordinates.
+	 */
+	
+	private Graph carveMaze() {
+		nodes = new ArrayList<Vertex>();
+		edges = new ArrayList<Edge>();
+		
+		for (int n = 0; n < X*Y; n++)
+			nodes.add(new Vertex("Node_" + n));
+		
+		boolean[] visited = new boolean[X*Y];
+		int[] stack = new int[X*Y];
+		int depth = 0;
+		
+		stack[depth++] = 0;
+		visited[0] = true;
+		
+		int[] neighbours = new int[4];
+		
+		while (0 < depth) {
+			int n = stack[depth - 1];
+			int i = n % X, j = n / X;
+			int count = 0;
+			
+			if ((0 < i) && (false == visited[n - 1])) neighbours[count++] = n - 1;
+			if (((X - 1) > i) && (false == visited[n + 1])) neighbours[count++] = n + 1;
+			if ((0 < j) && (false == visited[n - X])) neighbours[count++] = n - X;
+			if (((Y - 1) > j) && (false == visited[n + X])) neighbours[count++] = n + X;
+			
+			if (0 == count) {
+				depth -= 1;
+				continue;
+			}
+			
+			int next = neighbours[rand.nextInt(count)];
+			Graph.addLane(edges, nodes, n, next, 1 + rand.nextInt(100));
+			
+			visited[next] = true;
+			stack[depth++] = next;
+		}
+		
+		return new Graph(nodes, edges);
+	}
+}
@@ -0,0 +1,88 @@
+/*
+ * Test the partitioned engine against DijkstraAlgorithm on a grid like the
+ * one in GridTest, for a range of partition counts, that the count is
+ * capped at the pool parallelism and the vertex count, and check that the
+ * partitioner keeps its parts balanced.
+ */
+
+package dijkstra.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import dijkstra.engine.DijkstraAlgorithm;
+import dijkstra.engine.PartitionedDijkstraAlgorithm;
+import dijkstra.model.Graph;
+import dijkstra.model.GraphPartitioner;
+import dijkstra.resources.Concurrency;
+
+public class PartitionedDijkstraTest {
+	
+	private static final int X = 40;
+	private static final int Y = 40;
+
+	private Random rand = new Random();
+
+	@Test
+	public void test() {
+		Graph graph = TestGraphs.grid(X, Y, true);
+		
+		DijkstraAlgorithm dijkstra = new DijkstraAlgorithm(graph);
+		
+		int parallelism = Concurrency.getForkJoinPool().getParallelism();
+		
+		for (int partition_count : new int[] { 1, 2, 4, 8, 64 }) {
+			PartitionedDijkstraAlgorithm partitioned = 
+					new PartitionedDijkstraAlgorithm(graph, partition_count);
+			
+			assertEquals(Math.min(partition_count, parallelism), 
+					partitioned.getPartitionCount());
+			
+			for (int n = 0; n < 10; n++) {
+				int source = rand.nextInt(X*Y);
+				int target = rand.nextInt(X*Y);
+				
+				dijkstra.execute(source);
+				partitioned.execute(source);
+				
+				assertEquals(TestGraphs.cost(graph, dijkstra.getPath(target)), 
+						TestGraphs.cost(graph, partitioned.getPath(target)));
+			}
+		}
+		
+		/* Never more partitions than vertexes */
+		
+		Graph small_graph = TestGraphs.grid(3, 1, false);
+		
+		assertEquals(Math.min(3, parallelism), new PartitionedDijkstraAlgorithm(
+				small_graph, 8).getPartitionCount());
+		
+		try {
+			new PartitionedDijkstraAlgorithm(graph, 0);
+			fail("Built an engine without partitions");
+		} catch (IllegalArgumentException ex) {
+		}
+		
+		for (int part_count : new int[] { 2, 3, 8 }) {
+			int[] parts = GraphPartitioner.partition(
+					graph.getCompressedGraph(), part_count);
+			
+			int[] sizes = new int[part_count];
+			for (int part : parts)
+				sizes[part] += 1;
+			
+			for (int size : sizes)
+				assertTrue((0 < size) && (size <= (X*Y*103)/(100*part_count) + 1));
+			
+			/* A random assignment cuts most edges */
+			
+			assertTrue(GraphPartitioner.countCutEdges(graph.getCompressedGraph(),
+					parts) < graph.getEdges().size() / 4);
+		}
+	}
+}
@@ -0,0 +1,106 @@
+/*
+ * Test the metrics the engines report and the latency histogram behind
+ * CountingSearchMetrics.
+ */
+
+package dijkstra.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import dijkstra.engine.DijkstraAlgorithm;
+import dijkstra.engine.ParallelDijkstraAlgorithm;
+import dijkstra.metrics.CountingSearchMetrics;
+import dijkstra.metrics.JmxSearchMetrics;
+import dijkstra.metrics.LatencyHistogram;
+import dijkstra.model.Graph;
+
+public class SearchMetricsTest {
+	
+	private static final int X = 20;
+	private static final int Y = 20;
+
+	@Test
+	public void testHistogram() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		
+		for (long value = 1; value <= 100000; value++)
+			histogram.record(value);
+		
+		assertEquals(100000, histogram.getCount());
+		assertEquals(100000, histogram.getMax());
+		assertEquals(50000.5, histogram.getMean(), 0.001);
+		
+		/* Buckets are within about 3% of the true value */
+		
+		long median = histogram.getValueAtPercentile(50.0);
+		assertTrue(Math.abs(median - 50000) <= 50000 / 32);
+		
+		long p99 = histogram.getValueAtPercentile(99.0);
+		assertTrue(Math.abs(p99 - 99000) <= 99000 / 32);
+		
+		assertEquals(100000, histogram.getValueAtPercentile(100.0));
+		
+		histogram.reset();
+		assertEquals(0, histogram.getValueAtPercentile(50.0));
+	}
+
+	@Test
+	public void testEngines() {
+		Graph graph = TestGraphs.grid(X, Y, false);
+		
+		CountingSearchMetrics metrics = new CountingSearchMetrics();
+		
+		DijkstraAlgorithm dijkstra = new DijkstraAlgorithm(graph);
+		dijkstra.setMetrics(metrics);
+		
+		dijkstra.execute(0);
+		dijkstra.execute(X*Y - 1);
+		
+		assertEquals(2, metrics.getQueryCount());
+		assertEquals(2 * X*Y, metrics.getSettledCount());
+		assertEquals(2 * graph.getEdges().size(), metrics.getRelaxationCount());
+		assertEquals(metrics.getPollCount(), 
+				metrics.getSettledCount() + metrics.getStalePollCount());
+		assertEquals(2, metrics.getLatencyHistogram().getCount());
+		
+		metrics.reset();
+		
+		ParallelDijkstraAlgorithm parallel_dijkstra = 
+				new ParallelDijkstraAlgorithm(graph);
+		parallel_dijkstra.setMetrics(metrics);
+		
+		parallel_dijkstra.execute(0);
+		
+		assertEquals(1, metrics.getQueryCount());
+		assertEquals(X*Y, metrics.getSettledCount());
+		assertEquals(graph.getEdges().size(), metrics.getRelaxationCount());
+		
+		/* One round per settled node after the source, one more to find
+		 * the queues empty */
+		
+		assertEquals(X*Y, metrics.getRoundCount());
+		
+		/* Barrier waits are recorded with the query, before execute()
+		 * returns; how long they are depends on the scheduling */
+		
+		long barrier_wait_nanos = metrics.getBarrierWaitNanos();
+		assertTrue(barrier_wait_nanos >= 0);
+		
+		parallel_dijkstra.execute(X*Y - 1);
+		
+		assertEquals(2, metrics.getQueryCount());
+		assertEquals(2 * X*Y, metrics.getSettledCount());
+		assertEquals(2 * X*Y, metrics.getRoundCount());
+		assertTrue(metrics.getBarrierWaitNanos() >= barrier_wait_nanos);
+		
+		parallel_dijkstra.terminate();
+		
+		JmxSearchMetrics jmx = new JmxSearchMetrics(metrics);
+		jmx.register("SearchMetricsTest");
+		assertEquals(2, jmx.getQueryCount());
+		jmx.unregister();
+	}
+}
@@ -0,0 +1,110 @@
+/*
+ * Test the LRU eviction, counters and invalidation of ShortestPathTreeCache
+ * on a grid like the one in GridTest, with node removals and with edge
+ * weight changes through DynamicDijkstraAlgorithm.
+ */
+
+package dijkstra.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import dijkstra.engine.DijkstraAlgorithm;
+import dijkstra.engine.DijkstraAlgorithm.QueueType;
+import dijkstra.engine.DynamicDijkstraAlgorithm;
+import dijkstra.engine.ShortestPathTree;
+import dijkstra.engine.ShortestPathTreeCache;
+import dijkstra.metrics.CountingSearchMetrics;
+import dijkstra.model.Graph;
+import dijkstra.model.Vertex;
+
+public class ShortestPathTreeCacheTest {
+	
+	private static final int X = 20;
+	private static final int Y = 20;
+
+	@Test
+	public void test() {
+		Graph graph = TestGraphs.grid(X, Y, false);
+		
+		DijkstraAlgorithm dijkstra = new DijkstraAlgorithm(graph);
+		ShortestPathTreeCache cache = new ShortestPathTreeCache(dijkstra, 2);
+		
+		dijkstra.execute(X*Y - 1);
+		List<Vertex> path = dijkstra.getPath(0);
+		
+		ShortestPathTree tree0 = cache.getTree(0);
+		assertSame(tree0, cache.getTree(0));
+		
+		cache.getTree(1);
+		cache.getTree(0);
+		cache.getTree(2);	/* evicts 1, the least recently used */
+		
+		assertEquals(2, cache.size());
+		assertEquals(2, cache.getHitCount());
+		assertEquals(3, cache.getMissCount());
+		assertEquals(1, cache.getEvictionCount());
+		
+		/* Misses leave the engine's own results alone */
+		
+		assertEquals(path, dijkstra.getPath(0));
+		
+		assertSame(tree0, cache.getTree(0));
+		assertEquals(2 * (X - 1) * 100, tree0.getDistance(X*Y - 1));
+		
+		/* Removing a node must not be hidden by the cache */
+		
+		dijkstra.removeNode(1);
+		dijkstra.removeNode(X);
+		
+		assertNull(cache.getPath(0, X*Y - 1));
+		assertEquals(1, cache.getInvalidationCount());
+		
+		dijkstra.restoreNode(X);
+		
+		assertEquals(2 * (X - 1) + 1, cache.getPath(0, X*Y - 1).size());
+		assertEquals(2, cache.getInvalidationCount());
+	}
+	
+	@Test
+	public void testEdgeWeight() {
+		Graph graph = TestGraphs.grid(X, Y, false);
+		
+		DynamicDijkstraAlgorithm dijkstra = new DynamicDijkstraAlgorithm(graph);
+		dijkstra.setQueueType(QueueType.PRIORITY_QUEUE);
+		dijkstra.setHeapArity(3);
+		dijkstra.setMetrics(new CountingSearchMetrics());
+		
+		/* Copies, like the one the cache runs its misses on, keep the
+		 * engine's settings */
+		
+		DijkstraAlgorithm copy = new DijkstraAlgorithm(dijkstra);
+		
+		assertEquals(QueueType.PRIORITY_QUEUE, copy.getQueueType());
+		assertEquals(3, copy.getHeapArity());
+		assertSame(dijkstra.getMetrics(), copy.getMetrics());
+		
+		ShortestPathTreeCache cache = new ShortestPathTreeCache(dijkstra, 2);
+		
+		assertEquals(2 * (X - 1) * 100, cache.getTree(0).getDistance(X*Y - 1));
+		
+		/* Both ways out of the corner get longer */
+		
+		dijkstra.setEdgeWeight(0, 1, 1000);
+		dijkstra.setEdgeWeight(0, X, 1000);
+		
+		assertEquals(1000 + (2 * (X - 1) - 1) * 100,
+				cache.getTree(0).getDistance(X*Y - 1));
+		assertEquals(1, cache.getInvalidationCount());
+		
+		/* Into the corner is unchanged */
+		
+		assertEquals(2 * (X - 1) * 100, cache.getTree(X*Y - 1).getDistance(0));
+		assertEquals(1, cache.getInvalidationCount());
+	}
+}
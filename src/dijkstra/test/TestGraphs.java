@@ -0,0 +1,106 @@
+/*
+ * Graphs and checks shared by the tests: the grid of GridTest, built with
+ * Graph.addLane(), and the cost of a path the engines return.
+ */
+
+package dijkstra.test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import dijkstra.model.CompressedGraph;
+import dijkstra.model.Edge;
+import dijkstra.model.Graph;
+import dijkstra.model.GraphOverlay;
+import dijkstra.model.Vertex;
+
+public final class TestGraphs {
+
+	private TestGraphs() {
+	}
+
+	/*
+	 * X by Y grid of "Node_<n>" vertexes, n = j*X + i, at coordinates (i, j).
+	 * Neighbours are joined by lanes of weight 100, diagonal neighbours by
+	 * lanes of weight 141 if 'diagonals' is set.
+	 */
+
+	public static Graph grid(final int X, final int Y, final boolean diagonals) {
+		List<Vertex> nodes = new ArrayList<Vertex>();
+		List<Edge> edges = new ArrayList<Edge>();
+
+		for (int j = 0; j < Y; j++) {
+			for (int i = 0; i < X; i++) {
+				int n = j*X + i;
+
+				nodes.add(new Vertex("Node_" + n, i, j));
+
+				if(0 < i) Graph.addLane(edges, nodes, n, n-1, 100);
+				if(0 < j) Graph.addLane(edges, nodes, n, n-X, 100);
+
+				if (false == diagonals)
+					continue;
+
+				if((0 < j) && (0 < i)) Graph.addLane(edges, nodes, n, n-X-1, 141);
+				if ((0 < j) && ((X - 1) > i)) Graph.addLane(edges, nodes, n, n-X+1, 141);
+			}
+		}
+
+		return new Graph(nodes, edges);
+	}
+
+	/*
+	 * Sum of the lightest edge weights along the path, -1 for a null path.
+	 * Paths run from the target back to the source.
+	 */
+
+	public static int cost(final Graph graph, final List<Vertex> path) {
+		return cost(graph, null, path);
+	}
+
+	/* The same with the edges and weights the overlay leaves */
+
+	public static int cost(final GraphOverlay overlay,
+			final List<Vertex> path) {
+		return cost(overlay.getGraph(), overlay, path);
+	}
+
+	private static int cost(final Graph graph, final GraphOverlay overlay,
+			final List<Vertex> path) {
+		if (path == null)
+			return -1;
+
+		CompressedGraph compressed_graph = graph.getCompressedGraph();
+
+		int[] offsets = compressed_graph.getOffsets();
+		int[] targets = compressed_graph.getTargets();
+		int[] weights = compressed_graph.getWeights();
+
+		int cost = 0;
+
+		for (int n = 1; n < path.size(); n++) {
+			int from = graph.indexOf(path.get(n));
+			int to = graph.indexOf(path.get(n - 1));
+
+			int lightest = Integer.MAX_VALUE;
+
+			for (int e = offsets[from]; e < offsets[from + 1]; e++) {
+				if (to != targets[e])
+					continue;
+
+				if (null == overlay)
+					lightest = Math.min(lightest, weights[e]);
+				else if (false == overlay.isEdgeBlocked(e))
+					lightest = Math.min(lightest, overlay.weight(e));
+			}
+
+			if (Integer.MAX_VALUE == lightest)
+				throw new AssertionError("No edge " + path.get(n) + " -> "
+						+ path.get(n - 1));
+
+			cost += lightest;
+		}
+
+		return cost;
+	}
+}